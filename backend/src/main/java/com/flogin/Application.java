@@ -1,19 +1,31 @@
 package com.flogin;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.flogin.security.BoundedPasswordEncoder;
+
 @SpringBootApplication
+@EnableScheduling
 public class Application {
   public static void main(String[] args) {
     SpringApplication.run(Application.class, args);
   }
 
+  // BCrypt chạy trên pool riêng (mặc định = số CPU) với hàng đợi giới hạn, xem BoundedPasswordEncoder
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(@Value("${flogin.auth.bcrypt.threads:0}") int threads,
+                                         @Value("${flogin.auth.bcrypt.queue-capacity:64}") int queueCapacity,
+                                         @Value("${flogin.auth.bcrypt.timeout:5s}") Duration timeout,
+                                         @Value("${flogin.auth.bcrypt.retry-after-seconds:1}") long retryAfterSeconds) {
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), poolSize, queueCapacity, timeout, retryAfterSeconds);
   }
 }
@@ -0,0 +1,41 @@
+package com.flogin;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Cache interceptor đứng ngoài transaction interceptor:
+ * cache hit không mở transaction, và @CacheEvict chạy sau khi transaction đã commit.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+  public static final String PRODUCTS = "products";
+
+  // Chỉ khi chạy virtual thread (profile virtual): chế độ async cho @Cacheable(sync = true) nạp giá trị ngoài
+  // khóa bin của ConcurrentHashMap, nên truy vấn JDBC không ghim carrier thread. Caffeine chạy loader trên
+  // executor của cache (mặc định ForkJoinPool.commonPool, chỉ CPU-1 thread) nên dùng virtual thread riêng.
+  // Platform thread giữ chế độ đồng bộ: loader chạy ngay trên thread của request
+  @Bean
+  @ConditionalOnThreading(Threading.VIRTUAL)
+  public CacheManagerCustomizer<CaffeineCacheManager> asyncCaffeineCacheMode(CacheProperties properties) {
+    Executor loaders = Executors.newVirtualThreadPerTaskExecutor();
+    String spec = properties.getCaffeine().getSpec();
+    return cacheManager -> {
+      cacheManager.setCaffeine((spec == null ? Caffeine.newBuilder() : Caffeine.from(spec)).executor(loaders));
+      cacheManager.setAsyncCacheMode(true);
+    };
+  }
+}
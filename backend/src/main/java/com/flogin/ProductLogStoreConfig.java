@@ -0,0 +1,52 @@
+package com.flogin;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.util.unit.DataSize;
+
+import com.flogin.repository.AuthUserRepository;
+import com.flogin.repository.LogProductBulkWriter;
+import com.flogin.repository.LogProductRepository;
+import com.flogin.repository.ProductBulkWriter;
+import com.flogin.repository.ProductLogStore;
+import com.flogin.repository.ProductRepository;
+import com.flogin.repository.ProductStore;
+
+/**
+ * Profile logstore: products nằm trong ProductLogStore (file mmap) thay cho bảng MySQL.
+ * Spring Data JPA chỉ còn tạo AuthUserRepository; ProductStore và ProductBulkWriter trỏ vào log.
+ * Bảng auth vẫn ở spring.datasource.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("logstore")
+@EnableJpaRepositories(basePackageClasses = AuthUserRepository.class,
+    excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ProductRepository.class))
+public class ProductLogStoreConfig {
+
+  @Bean
+  public ProductLogStore productLogStore(@Value("${flogin.products.log.dir:data/products}") Path dir,
+                                         @Value("${flogin.products.log.initial-size:64MB}") DataSize initialSize,
+                                         @Value("${flogin.products.log.force-on-write:true}") boolean forceOnWrite,
+                                         @Value("${flogin.products.log.compaction-min-garbage:16MB}") DataSize minGarbage,
+                                         @Value("${flogin.products.log.compaction-garbage-ratio:0.5}") double garbageRatio) {
+    return new ProductLogStore(dir, (int) Math.min(Integer.MAX_VALUE, initialSize.toBytes()), forceOnWrite,
+        minGarbage.toBytes(), garbageRatio);
+  }
+
+  @Bean
+  public ProductStore productStore(ProductLogStore store) {
+    return new LogProductRepository(store);
+  }
+
+  @Bean
+  public ProductBulkWriter logProductBulkWriter(ProductLogStore store) {
+    return new LogProductBulkWriter(store);
+  }
+}
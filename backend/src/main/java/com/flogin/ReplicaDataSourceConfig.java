@@ -0,0 +1,114 @@
+package com.flogin;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionManager;
+
+import com.flogin.repository.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Bật khi có flogin.datasource.replica-urls: transaction @Transactional(readOnly = true, label = REPLICA)
+ * đọc từ replica, còn lại dùng spring.datasource.*. Chỉ gắn nhãn cho đường đọc trả thẳng cho client
+ * (trang danh sách, export, đồng bộ thay đổi); đọc để nạp cache/snapshot/bộ đếm thì không.
+ *
+ * LazyConnectionDataSourceProxy chỉ lấy kết nối thật ở câu SQL đầu tiên, lúc đó JpaTransactionManager
+ * đã gọi setReadOnly(true) nên proxy biết chọn readOnlyDataSource, và nhãn đã được ghi nhận ở doBegin.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("flogin.datasource.replica-urls")
+public class ReplicaDataSourceConfig {
+
+  // Thay pool mà DataSourceAutoConfiguration lẽ ra tạo, vẫn đọc spring.datasource.hikari.*
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties props) {
+    HikariDataSource ds = props.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    ds.setPoolName("primary");
+    return ds;
+  }
+
+  @Bean
+  public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource, DataSourceProperties props,
+                                                    @Value("${flogin.datasource.replica-urls}") List<String> urls,
+                                                    @Value("${flogin.datasource.replica-username:${spring.datasource.username:}}") String username,
+                                                    @Value("${flogin.datasource.replica-password:${spring.datasource.password:}}") String password,
+                                                    @Value("${flogin.datasource.replica-pool-size:10}") int poolSize,
+                                                    @Value("${flogin.datasource.replica-selection:round-robin}") String selection,
+                                                    @Value("${flogin.datasource.replica-max-lag:5s}") Duration maxLag,
+                                                    @Value("${flogin.datasource.replica-lag-query:SHOW REPLICA STATUS}") String lagQuery,
+                                                    @Value("${flogin.datasource.replica-lag-column:Seconds_Behind_Source}") String lagColumn) {
+    Map<String, DataSource> replicas = new LinkedHashMap<>();
+    for (String url : urls) {
+      if (url.isBlank()) continue;
+      String name = "replica-" + replicas.size();
+      HikariDataSource ds = new HikariDataSource();
+      ds.setPoolName(name);
+      ds.setJdbcUrl(url.trim());
+      ds.setUsername(username);
+      ds.setPassword(password);
+      if (props.getDriverClassName() != null) ds.setDriverClassName(props.getDriverClassName());
+      ds.setMaximumPoolSize(poolSize);
+      ds.setReadOnly(true);
+      replicas.put(name, ds);
+    }
+    return new ReplicaRoutingDataSource(primaryDataSource, replicas, ReplicaRoutingDataSource.Selection.parse(selection),
+        maxLag, lagQuery, lagColumn);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+    LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+    proxy.setReadOnlyDataSource(replicaDataSource);
+    return proxy;
+  }
+
+  // Thay transaction manager mà JpaBaseConfiguration lẽ ra tạo, vẫn áp spring.transaction.*
+  @Bean
+  public JpaTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> customizers) {
+    JpaTransactionManager tm = new ReplicaLabelTransactionManager();
+    customizers.ifAvailable(c -> c.customize((TransactionManager) tm));
+    return tm;
+  }
+
+  /** Ghi nhận nhãn REPLICA của transaction ngoài cùng cho ReplicaRoutingDataSource. */
+  static final class ReplicaLabelTransactionManager extends JpaTransactionManager {
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+      ReplicaRoutingDataSource.begin(definition);
+      try {
+        super.doBegin(transaction, definition);
+      } catch (RuntimeException | Error ex) {
+        ReplicaRoutingDataSource.end();
+        throw ex;
+      }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+      try {
+        super.doCleanupAfterCompletion(transaction);
+      } finally {
+        ReplicaRoutingDataSource.end();
+      }
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package com.flogin;
 
 import com.flogin.security.SecurityHeadersFilter;
+import com.flogin.security.TokenAuthenticationFilter;
+import com.flogin.security.TokenService;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -30,4 +32,13 @@ public class WebConfig {
     registrationBean.addUrlPatterns("/*");
     return registrationBean;
   }
+
+  @Bean
+  public FilterRegistrationBean<TokenAuthenticationFilter> tokenAuthenticationFilter(TokenService tokens) {
+    FilterRegistrationBean<TokenAuthenticationFilter> registrationBean = new FilterRegistrationBean<>();
+    registrationBean.setFilter(new TokenAuthenticationFilter(tokens));
+    registrationBean.setOrder(2);
+    registrationBean.addUrlPatterns("/api/products", "/api/products/*");
+    return registrationBean;
+  }
 }
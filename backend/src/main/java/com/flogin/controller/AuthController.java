@@ -1,7 +1,9 @@
 package com.flogin.controller;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -9,8 +11,12 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.flogin.dto.LoginRequest;
 import com.flogin.dto.LoginResponse;
+import com.flogin.security.LoginThrottle;
+import com.flogin.security.LoginThrottledException;
+import com.flogin.security.PasswordVerifierBusyException;
 import com.flogin.service.AuthService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -18,17 +24,22 @@ import jakarta.validation.Valid;
 public class AuthController {
 
   private final AuthService authService;
+  private final LoginThrottle throttle;
 
-  public AuthController(AuthService authService) {
+  public AuthController(AuthService authService, LoginThrottle throttle) {
     this.authService = authService;
+    this.throttle = throttle;
   }
 
   @PostMapping("/login")
-  public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest req) {
+  public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest req, HttpServletRequest http) {
+    // Chặn trước khi đọc DB/BCrypt. IP lấy từ remoteAddr (sau proxy cần server.forward-headers-strategy)
+    throttle.acquire(req.getUsername(), http.getRemoteAddr());
     LoginResponse res = authService.authenticate(req);
 
     if (res.isSuccess()) {
       // Đăng nhập OK
+      throttle.reset(req.getUsername());
       return ResponseEntity.ok(res);
     }
 
@@ -39,4 +50,19 @@ public class AuthController {
     }
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(res);     // 400 (lỗi validate)
   }
+
+  // Pool BCrypt đã đầy: báo client thử lại sau thay vì giữ request chờ
+  @ExceptionHandler(PasswordVerifierBusyException.class)
+  public ResponseEntity<LoginResponse> busy(PasswordVerifierBusyException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+        .body(new LoginResponse(false, "He thong dang qua tai, vui long thu lai sau", null, null)); // 503
+  }
+
+  @ExceptionHandler(LoginThrottledException.class)
+  public ResponseEntity<LoginResponse> throttled(LoginThrottledException ex) {
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+        .body(new LoginResponse(false, "Dang nhap sai qua nhieu lan, vui long thu lai sau", null, null)); // 429
+  }
 }
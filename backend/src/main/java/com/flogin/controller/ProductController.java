@@ -1,82 +1,191 @@
 package com.flogin.controller;
 
 import java.util.List;
-import java.util.Locale;
+import java.util.Set;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.flogin.dto.BulkItemResult;
+import com.flogin.dto.BulkResponse;
+import com.flogin.dto.CategoryStats;
+import com.flogin.dto.CursorPage;
+import com.flogin.dto.ProductBulkItem;
+import com.flogin.dto.ProductField;
 import com.flogin.dto.ProductRequest;
-import com.flogin.entity.Category;
+import com.flogin.dto.StockAdjustment;
 import com.flogin.entity.Product;
-import com.flogin.repository.ProductRepository;
+import com.flogin.service.ProductBulkService;
+import com.flogin.service.ProductCatalogSnapshot;
+import com.flogin.service.ProductCategoryStats;
+import com.flogin.service.ProductExportService;
+import com.flogin.service.ProductReadCoalescer;
+import com.flogin.service.ProductSearchService;
+import com.flogin.service.ProductService;
 
 import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
-  private final ProductRepository repo;
-  public ProductController(ProductRepository repo) { this.repo = repo; }
+  private final ProductCatalogSnapshot catalog;
+  private final ProductService service;
+  private final ProductExportService exportService;
+  private final ProductBulkService bulkService;
+  private final ProductSearchService searchService;
+  private final ProductCategoryStats categoryStats;
+  private final ProductReadCoalescer reads;
 
+  public ProductController(ProductCatalogSnapshot catalog, ProductService service, ProductExportService exportService,
+                           ProductBulkService bulkService, ProductSearchService searchService,
+                           ProductCategoryStats categoryStats, ProductReadCoalescer reads) {
+    this.catalog = catalog;
+    this.service = service;
+    this.exportService = exportService;
+    this.bulkService = bulkService;
+    this.searchService = searchService;
+    this.categoryStats = categoryStats;
+    this.reads = reads;
+  }
+
+  // Trả thẳng byte[] đã serialize (và nén) sẵn; If-None-Match khớp thì 304
+  // ?fields=id,name hoặc ?fields=summary: chỉ SELECT và trả các cột đó, không đi qua snapshot
   @GetMapping
-  public List<Product> list() { return repo.findAll(); }
+  public ResponseEntity<?> list(WebRequest request,
+                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                @RequestParam(required = false) String fields) {
+    Set<ProductField> selected = ProductService.parseFields(fields);
+    if (selected != null) {
+      String etag = ProductService.fieldsETag(reads.listETag(), selected);
+      if (request.checkNotModified(etag)) return null;
+      return ResponseEntity.ok().eTag(etag).body(reads.listFields(selected));
+    }
+    ProductCatalogSnapshot.Snapshot s = catalog.get();
+    boolean gzip = acceptsGzip(acceptEncoding);
+    // Strong ETag phải khác nhau giữa hai bản mã hoá
+    String etag = gzip ? s.etag().substring(0, s.etag().length() - 1) + "-gzip\"" : s.etag();
+    if (request.checkNotModified(etag)) return null;
+
+    ResponseEntity.BodyBuilder res = ResponseEntity.ok()
+        .eTag(etag)
+        .contentType(MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) res.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    return res.body(gzip ? s.gzip() : s.json());
+  }
+
+  // Phân trang theo cursor: GET /api/products/page?limit=20&cursor=<nextCursor của trang trước>[&fields=summary]
+  @GetMapping("/page")
+  public CursorPage<?> page(@RequestParam(required = false) String cursor,
+                            @RequestParam(defaultValue = "20") int limit,
+                            @RequestParam(required = false) String fields) {
+    return service.getPage(cursor, limit, ProductService.parseFields(fields));
+  }
+
+  // Tìm theo name/description, không phân biệt dấu: GET /api/products/search?q=banh%20uot
+  @GetMapping("/search")
+  public List<Product> search(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+    return searchService.search(q, limit);
+  }
+
+  // Thống kê theo category (số sản phẩm, tồn kho, giá trị tồn kho), giữ sẵn trong bộ nhớ
+  @GetMapping("/stats")
+  public List<CategoryStats> stats() {
+    return categoryStats.snapshot();
+  }
+
+  // Export toàn bộ catalog dạng NDJSON, stream trực tiếp không dựng List trong bộ nhớ
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> export() {
+    StreamingResponseBody body = exportService::exportNdjson;
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\"")
+        .body(body);
+  }
 
   @PostMapping
   public ResponseEntity<Product> create(@Valid @RequestBody ProductRequest req) {
-    Product p = new Product();
-    fill(p, req);
-    return ResponseEntity.status(HttpStatus.CREATED).body(repo.save(p));
+    return ResponseEntity.status(HttpStatus.CREATED).body(service.createProduct(req));
   }
 
+  // Tạo/cập nhật hàng loạt: phần tử có id là cập nhật, không có id là tạo mới
+  @PostMapping("/bulk")
+  public ResponseEntity<BulkResponse> bulk(@RequestBody List<ProductBulkItem> items) {
+    BulkResponse res = bulkService.upsert(items);
+    boolean rejected = res.getItems().stream()
+        .anyMatch(r -> r.getStatus() == BulkItemResult.Status.INVALID);
+    return ResponseEntity.status(rejected ? HttpStatus.BAD_REQUEST : HttpStatus.OK).body(res);
+  }
+
+  // If-Match (nếu có) phải khớp version hiện tại, không thì 412
   @PutMapping("/{id}")
-  public ResponseEntity<Product> update(@PathVariable Long id, @Valid @RequestBody ProductRequest req) {
-    return repo.findById(id).map(old -> {
-      fill(old, req);
-      return ResponseEntity.ok(repo.save(old));
-    }).orElse(ResponseEntity.notFound().build());
+  public ResponseEntity<Product> update(@PathVariable Long id, @Valid @RequestBody ProductRequest req,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    Product saved = service.updateProduct(id, req, ProductService.parseIfMatch(ifMatch));
+    return ResponseEntity.ok().eTag(ProductService.eTag(saved)).body(saved);
+  }
+
+  // Nhập/xuất kho: PATCH /api/products/1/stock {"delta": -3}. Không đủ hàng thì 409
+  @PatchMapping("/{id}/stock")
+  public ResponseEntity<Product> adjustStock(@PathVariable Long id, @Valid @RequestBody StockAdjustment req) {
+    Product saved = service.adjustStock(id, req.getDelta());
+    return ResponseEntity.ok().eTag(ProductService.eTag(saved)).body(saved);
   }
 
   @DeleteMapping("/{id}")
-  public ResponseEntity<Void> delete(@PathVariable Long id) {
-    if (!repo.existsById(id)) return ResponseEntity.notFound().build();
-    repo.deleteById(id);
+  public ResponseEntity<Void> delete(@PathVariable Long id,
+                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    service.deleteProduct(id, ProductService.parseIfMatch(ifMatch));
     return ResponseEntity.noContent().build();
   }
 
+  // Đọc qua ProductService để dùng chung cache với các thao tác ghi; cache (sync = true) gộp các request cùng id
   @GetMapping("/{id}")
-public ResponseEntity<Product> read(@PathVariable Long id) {
-  return repo.findById(id)
-      .map(ResponseEntity::ok)
-      .orElse(ResponseEntity.notFound().build());
-}
+  public ResponseEntity<Product> read(@PathVariable Long id, WebRequest request) {
+    Product p = reads.getProduct(id);
+    String etag = ProductService.eTag(p);
+    if (request.checkNotModified(etag)) return null;
+    return ResponseEntity.ok().eTag(etag).body(p);
+  }
 
-  private void fill(Product p, ProductRequest req) {
-    p.setName(req.getName());
-    p.setPrice(req.getPrice());
-    p.setQuantity(req.getQuantity());
-    p.setDescription(req.getDescription());
-    p.setCategory(parseCategory(req.getCategory()));
+  // Hai request cùng sửa một sản phẩm: request commit sau bị @Version chặn
+  @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+  public ResponseEntity<ProblemDetail> handleConcurrentUpdate(ObjectOptimisticLockingFailureException ex) {
+    return ResponseEntity.status(HttpStatus.CONFLICT)
+        .body(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "Sản phẩm vừa được cập nhật bởi request khác, vui lòng thử lại"));
   }
 
-  private Category parseCategory(String raw) {
-    if (raw == null) {
-      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Category là bắt buộc");
-    }
-    try {
-    return Category.valueOf(raw.trim().toUpperCase(Locale.ROOT));
-    } catch (IllegalArgumentException ex) {
-    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Category không hợp lệ");
+  // "gzip" có trong Accept-Encoding và không bị tắt bằng q=0
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) return false;
+    for (String part : acceptEncoding.split(",")) {
+      String[] tokens = part.trim().split(";");
+      if (!tokens[0].trim().equalsIgnoreCase("gzip")) continue;
+      for (int i = 1; i < tokens.length; i++) {
+        String param = tokens[i].trim().replace(" ", "");
+        if (param.matches("q=0(\\.0*)?")) return false;
+      }
+      return true;
     }
+    return false;
   }
-
 }
@@ -0,0 +1,38 @@
+package com.flogin.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.flogin.dto.ProductChanges;
+import com.flogin.service.ProductChangeFeed;
+import com.flogin.service.ProductChangeService;
+
+// Thay đổi sản phẩm cho client đồng bộ: đẩy trực tiếp (SSE) hoặc hỏi theo mốc (changes?since=)
+@RestController
+@RequestMapping("/api/products")
+public class ProductFeedController {
+  private final ProductChangeFeed feed;
+  private final ProductChangeService changes;
+
+  public ProductFeedController(ProductChangeFeed feed, ProductChangeService changes) {
+    this.feed = feed;
+    this.changes = changes;
+  }
+
+  // Server-Sent Events: client áp từng thay đổi thay vì tải lại toàn bộ danh sách
+  @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter events() {
+    return feed.subscribe();
+  }
+
+  // Đồng bộ tăng dần: GET /api/products/changes?since=<watermark lần trước>&limit=500; hasMore thì gọi tiếp ngay
+  @GetMapping("/changes")
+  public ProductChanges changes(@RequestParam(defaultValue = "0") long since,
+                                @RequestParam(defaultValue = "500") int limit) {
+    return changes.changesSince(since, limit);
+  }
+}
@@ -0,0 +1,49 @@
+package com.flogin.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.flogin.dto.ReservationRequest;
+import com.flogin.dto.ReservationResponse;
+import com.flogin.service.InventoryReservationService;
+import com.flogin.service.InventoryReservationService.Reservation;
+
+import jakarta.validation.Valid;
+
+// Giữ chỗ cho checkout: reserve -> confirm (đã bán) hoặc release/hết TTL (trả kho)
+@RestController
+@RequestMapping("/api/products")
+public class ReservationController {
+  private final InventoryReservationService reservations;
+
+  public ReservationController(InventoryReservationService reservations) {
+    this.reservations = reservations;
+  }
+
+  @PostMapping("/{id}/reservations")
+  public ResponseEntity<ReservationResponse> reserve(@PathVariable Long id, @Valid @RequestBody ReservationRequest req) {
+    Reservation r = reservations.reserve(id, req.getQuantity());
+    return ResponseEntity.status(HttpStatus.CREATED).body(toResponse(r));
+  }
+
+  @PostMapping("/reservations/{rid}/confirm")
+  public ResponseEntity<ReservationResponse> confirm(@PathVariable String rid) {
+    return ResponseEntity.ok(toResponse(reservations.confirm(rid)));
+  }
+
+  @DeleteMapping("/reservations/{rid}")
+  public ResponseEntity<Void> release(@PathVariable String rid) {
+    reservations.release(rid);
+    return ResponseEntity.noContent().build();
+  }
+
+  private static ReservationResponse toResponse(Reservation r) {
+    return new ReservationResponse(r.id(), r.productId(), r.quantity(), r.expiresAt());
+  }
+}
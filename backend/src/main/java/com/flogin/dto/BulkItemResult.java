@@ -0,0 +1,28 @@
+package com.flogin.dto;
+
+public class BulkItemResult {
+  public enum Status { CREATED, UPDATED, NOT_FOUND, INVALID }
+
+  private int index;
+  private Long id;
+  private Status status;
+  private String message;
+
+  public BulkItemResult() {}
+
+  public BulkItemResult(int index, Long id, Status status, String message) {
+    this.index = index;
+    this.id = id;
+    this.status = status;
+    this.message = message;
+  }
+
+  public int getIndex() { return index; }
+  public void setIndex(int index) { this.index = index; }
+  public Long getId() { return id; }
+  public void setId(Long id) { this.id = id; }
+  public Status getStatus() { return status; }
+  public void setStatus(Status status) { this.status = status; }
+  public String getMessage() { return message; }
+  public void setMessage(String message) { this.message = message; }
+}
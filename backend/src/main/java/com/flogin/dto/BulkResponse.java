@@ -0,0 +1,32 @@
+package com.flogin.dto;
+
+import java.util.List;
+
+public class BulkResponse {
+  private int created;
+  private int updated;
+  private int failed;
+  private List<BulkItemResult> items;
+
+  public BulkResponse() {}
+
+  public BulkResponse(List<BulkItemResult> items) {
+    this.items = items;
+    for (BulkItemResult r : items) {
+      switch (r.getStatus()) {
+        case CREATED -> created++;
+        case UPDATED -> updated++;
+        default -> failed++;
+      }
+    }
+  }
+
+  public int getCreated() { return created; }
+  public void setCreated(int created) { this.created = created; }
+  public int getUpdated() { return updated; }
+  public void setUpdated(int updated) { this.updated = updated; }
+  public int getFailed() { return failed; }
+  public void setFailed(int failed) { this.failed = failed; }
+  public List<BulkItemResult> getItems() { return items; }
+  public void setItems(List<BulkItemResult> items) { this.items = items; }
+}
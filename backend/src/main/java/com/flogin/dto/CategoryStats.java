@@ -0,0 +1,28 @@
+package com.flogin.dto;
+
+import com.flogin.entity.Category;
+
+public class CategoryStats {
+  private Category category;
+  private long products;
+  private long stock;
+  private long inventoryValue;
+
+  public CategoryStats() {}
+
+  public CategoryStats(Category category, long products, long stock, long inventoryValue) {
+    this.category = category;
+    this.products = products;
+    this.stock = stock;
+    this.inventoryValue = inventoryValue;
+  }
+
+  public Category getCategory() { return category; }
+  public void setCategory(Category category) { this.category = category; }
+  public long getProducts() { return products; }
+  public void setProducts(long products) { this.products = products; }
+  public long getStock() { return stock; }
+  public void setStock(long stock) { this.stock = stock; }
+  public long getInventoryValue() { return inventoryValue; }
+  public void setInventoryValue(long inventoryValue) { this.inventoryValue = inventoryValue; }
+}
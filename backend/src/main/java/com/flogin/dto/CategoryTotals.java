@@ -0,0 +1,11 @@
+package com.flogin.dto;
+
+import com.flogin.entity.Category;
+
+// Projection cho câu GROUP BY category trong ProductRepository
+public interface CategoryTotals {
+  Category getCategory();
+  long getProducts();
+  long getStock();
+  long getInventoryValue();
+}
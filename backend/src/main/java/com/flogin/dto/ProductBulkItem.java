@@ -0,0 +1,11 @@
+package com.flogin.dto;
+
+/**
+ * Một phần tử của POST /api/products/bulk: id == null thì tạo mới, ngược lại cập nhật.
+ */
+public class ProductBulkItem extends ProductRequest {
+  private Long id;
+
+  public Long getId() { return id; }
+  public void setId(Long id) { this.id = id; }
+}
@@ -0,0 +1,31 @@
+package com.flogin.dto;
+
+import java.util.List;
+
+import com.flogin.entity.Product;
+
+// Kết quả GET /api/products/changes: gửi lại watermark làm since của lần gọi sau
+public class ProductChanges {
+  private List<Product> changed;
+  private List<Long> deleted;
+  private long watermark;
+  private boolean hasMore;
+
+  public ProductChanges() {}
+
+  public ProductChanges(List<Product> changed, List<Long> deleted, long watermark, boolean hasMore) {
+    this.changed = changed;
+    this.deleted = deleted;
+    this.watermark = watermark;
+    this.hasMore = hasMore;
+  }
+
+  public List<Product> getChanged() { return changed; }
+  public void setChanged(List<Product> changed) { this.changed = changed; }
+  public List<Long> getDeleted() { return deleted; }
+  public void setDeleted(List<Long> deleted) { this.deleted = deleted; }
+  public long getWatermark() { return watermark; }
+  public void setWatermark(long watermark) { this.watermark = watermark; }
+  public boolean isHasMore() { return hasMore; }
+  public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,20 @@
+package com.flogin.dto;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Các thuộc tính được phép chọn qua ?fields=. Tên JSON trùng tên thuộc tính của entity Product.
+ */
+public enum ProductField {
+  ID, NAME, PRICE, QUANTITY, DESCRIPTION, CATEGORY, VERSION;
+
+  /** Cột của lưới danh sách, tương ứng ProductSummary; viết tắt ?fields=summary. */
+  public static final Set<ProductField> SUMMARY = EnumSet.of(ID, NAME, PRICE, QUANTITY, CATEGORY);
+
+  // Locale.ROOT: với locale mặc định tiếng Thổ Nhĩ Kỳ "PRICE" thành "prıce"
+  public String attribute() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+}
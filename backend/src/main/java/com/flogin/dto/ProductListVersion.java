@@ -0,0 +1,8 @@
+package com.flogin.dto;
+
+// Projection cho ETag của GET /api/products (xem ProductRepository.listVersion)
+public interface ProductListVersion {
+  long getProducts();
+  long getVersionSum();
+  long getMaxId();
+}
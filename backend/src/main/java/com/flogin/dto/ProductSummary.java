@@ -0,0 +1,36 @@
+package com.flogin.dto;
+
+import com.flogin.entity.Category;
+
+/**
+ * Dòng của bảng danh sách sản phẩm: các cột lưới hiển thị, không có description (tới 500 ký tự).
+ * Được dựng thẳng từ câu select new ... nên Hibernate không tạo entity, không giữ trong persistence context.
+ */
+public class ProductSummary {
+  private Long id;
+  private String name;
+  private Integer price;
+  private Integer quantity;
+  private Category category;
+
+  public ProductSummary() {}
+
+  public ProductSummary(Long id, String name, Integer price, Integer quantity, Category category) {
+    this.id = id;
+    this.name = name;
+    this.price = price;
+    this.quantity = quantity;
+    this.category = category;
+  }
+
+  public Long getId() { return id; }
+  public void setId(Long id) { this.id = id; }
+  public String getName() { return name; }
+  public void setName(String name) { this.name = name; }
+  public Integer getPrice() { return price; }
+  public void setPrice(Integer price) { this.price = price; }
+  public Integer getQuantity() { return quantity; }
+  public void setQuantity(Integer quantity) { this.quantity = quantity; }
+  public Category getCategory() { return category; }
+  public void setCategory(Category category) { this.category = category; }
+}
@@ -0,0 +1,20 @@
+package com.flogin.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Body của POST /api/products/{id}/reservations: số lượng cần giữ.
+ */
+public class ReservationRequest {
+  @NotNull
+  @Min(1) @Max(99_999)
+  private Integer quantity;
+
+  public ReservationRequest() {}
+  public ReservationRequest(Integer quantity) { this.quantity = quantity; }
+
+  public Integer getQuantity() { return quantity; }
+  public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
@@ -0,0 +1,28 @@
+package com.flogin.dto;
+
+import java.time.Instant;
+
+public class ReservationResponse {
+  private String id;
+  private Long productId;
+  private int quantity;
+  private Instant expiresAt;
+
+  public ReservationResponse() {}
+
+  public ReservationResponse(String id, Long productId, int quantity, Instant expiresAt) {
+    this.id = id;
+    this.productId = productId;
+    this.quantity = quantity;
+    this.expiresAt = expiresAt;
+  }
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+  public Long getProductId() { return productId; }
+  public void setProductId(Long productId) { this.productId = productId; }
+  public int getQuantity() { return quantity; }
+  public void setQuantity(int quantity) { this.quantity = quantity; }
+  public Instant getExpiresAt() { return expiresAt; }
+  public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,20 @@
+package com.flogin.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Body của PATCH /api/products/{id}/stock: số lượng cộng thêm (âm là trừ kho).
+ */
+public class StockAdjustment {
+  @NotNull
+  @Min(-99_999) @Max(99_999)
+  private Integer delta;
+
+  public StockAdjustment() {}
+  public StockAdjustment(Integer delta) { this.delta = delta; }
+
+  public Integer getDelta() { return delta; }
+  public void setDelta(Integer delta) { this.delta = delta; }
+}
@@ -1,9 +1,11 @@
 package com.flogin.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.flogin.service.AuthUserListener;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -11,6 +13,7 @@ import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
 @Entity
+@EntityListeners(AuthUserListener.class)
 @Table(name = "auth", uniqueConstraints = @UniqueConstraint(columnNames = "username"))
 public class AuthUser {
   @Id
@@ -1,5 +1,9 @@
 package com.flogin.entity;
 
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -8,6 +12,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -15,6 +20,8 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 
+import org.hibernate.annotations.ColumnDefault;
+
 @Entity @Table(name = "products")
 public class Product {
   @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -51,6 +58,17 @@ public class Product {
   @Column(nullable = false, length = 50)
   private Category category;
 
+  // Tăng mỗi lần ghi: optimistic locking và ETag của GET /api/products/{id}
+  @Version
+  @ColumnDefault("0")
+  @Column(nullable = false)
+  private Long version;
+
+  // DB tự đặt khi INSERT/UPDATE (V3__product_filter_indexes.sql); chỉ đọc, giá trị trên entity vừa ghi có thể cũ
+  @JsonIgnore
+  @Column(name = "updated_at", nullable = false, insertable = false, updatable = false)
+  private Instant updatedAt;
+
   public Product() {}
 
   // getters/setters
@@ -66,4 +84,7 @@ public class Product {
   public void setDescription(String description) { this.description = description; }
   public Category getCategory() { return category; }
   public void setCategory(Category category) { this.category = category; }
+  public Long getVersion() { return version; }
+  public void setVersion(Long version) { this.version = version; }
+  public Instant getUpdatedAt() { return updatedAt; }
 }
@@ -1,12 +1,18 @@
 package com.flogin.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.flogin.entity.AuthUser;
 
 public interface AuthUserRepository extends JpaRepository<AuthUser, Long> {
   Optional<AuthUser> findByUsername(String username);
   boolean existsByUsername(String username);
+
+  // Chỉ cột username, để dựng UsernameBloomFilter
+  @Query("select a.username from AuthUser a")
+  List<String> findAllUsernames();
 }
@@ -0,0 +1,140 @@
+package com.flogin.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+
+/**
+ * Ghi hàng loạt bằng JDBC batch. Product.id dùng IDENTITY nên Hibernate không batch được INSERT;
+ * ở đây mỗi chunk là một executeBatch, và với rewriteBatchedStatements=true Connector/J gửi
+ * một câu INSERT nhiều dòng cho cả chunk.
+ */
+@Repository
+@Profile("!logstore")
+public class JdbcProductBulkWriter implements ProductBulkWriter {
+  static final String INSERT_SQL =
+      "INSERT INTO products (name, price, quantity, description, category, version) VALUES (?, ?, ?, ?, ?, 0)";
+  static final String UPDATE_SQL =
+      "UPDATE products SET name = ?, price = ?, quantity = ?, description = ?, category = ?, version = version + 1 WHERE id = ?";
+
+  // Không kẹp: kết quả ngoài [0, 99999] (ràng buộc của Product.quantity) thì không ghi, như ProductRepository.adjustQuantity
+  static final String ADJUST_QUANTITY_SQL =
+      "UPDATE products SET quantity = quantity + ?, version = version + 1 WHERE id = ? AND quantity + ? BETWEEN 0 AND 99999";
+  static final String LOCK_SQL =
+      "SELECT id, name, price, quantity, description, category, version FROM products WHERE id IN (%s) FOR UPDATE";
+
+  private final JdbcTemplate jdbc;
+
+  public JdbcProductBulkWriter(JdbcTemplate jdbc) { this.jdbc = jdbc; }
+
+  @Override
+  public List<Long> insertAll(List<Product> products, int batchSize) {
+    return jdbc.execute((ConnectionCallback<List<Long>>) con -> {
+      List<Long> ids = new ArrayList<>(products.size());
+      try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+        for (int from = 0; from < products.size(); from += batchSize) {
+          for (Product p : products.subList(from, Math.min(from + batchSize, products.size()))) {
+            bind(ps, p);
+            ps.addBatch();
+          }
+          ps.executeBatch();
+          try (ResultSet keys = ps.getGeneratedKeys()) {
+            while (keys.next()) ids.add(keys.getLong(1));
+          }
+        }
+      }
+      return ids;
+    });
+  }
+
+  @Override
+  public int[] updateAll(List<Product> products, int batchSize) {
+    int[][] chunks = jdbc.batchUpdate(UPDATE_SQL, products, batchSize, (ps, p) -> {
+      bind(ps, p);
+      ps.setLong(6, p.getId());
+    });
+    return resolveCounts(chunks, products.stream().map(Product::getId).toList(), batchSize);
+  }
+
+  // SELECT ... FOR UPDATE, một câu IN (...) mỗi chunk
+  @Override
+  public Map<Long, Product> lockAll(List<Long> ids, int batchSize) {
+    Map<Long, Product> rows = new HashMap<>();
+    for (int from = 0; from < ids.size(); from += batchSize) {
+      List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+      String sql = LOCK_SQL.formatted(String.join(", ", Collections.nCopies(chunk.size(), "?")));
+      jdbc.query(sql, rs -> {
+        Product p = new Product();
+        p.setId(rs.getLong(1));
+        p.setName(rs.getString(2));
+        p.setPrice(rs.getInt(3));
+        p.setQuantity(rs.getInt(4));
+        p.setDescription(rs.getString(5));
+        p.setCategory(Category.valueOf(rs.getString(6)));
+        p.setVersion(rs.getLong(7));
+        rows.put(p.getId(), p);
+      }, chunk.toArray());
+    }
+    return rows;
+  }
+
+  @Override
+  public int[] adjustQuantities(List<Map.Entry<Long, Integer>> deltas, int batchSize) {
+    int[][] chunks = jdbc.batchUpdate(ADJUST_QUANTITY_SQL, deltas, batchSize, (ps, d) -> {
+      ps.setInt(1, d.getValue());
+      ps.setLong(2, d.getKey());
+      ps.setInt(3, d.getValue());
+    });
+    return resolveCounts(chunks, deltas.stream().map(Map.Entry::getKey).toList(), batchSize);
+  }
+
+  // Driver có thể trả SUCCESS_NO_INFO (không biết câu UPDATE có khớp dòng nào không): không coi là đã ghi
+  // mà kiểm tra lại id còn tồn tại, một câu IN (...) theo PK mỗi chunk. Cùng transaction với UPDATE nên
+  // dòng đã khớp vẫn còn đó. Với adjustQuantities, điều kiện khoảng đã được bảo đảm bởi lockAll
+  private int[] resolveCounts(int[][] chunks, List<Long> ids, int batchSize) {
+    int[] counts = new int[ids.size()];
+    List<Integer> unknown = new ArrayList<>();
+    int i = 0;
+    for (int[] chunk : chunks) {
+      for (int c : chunk) {
+        if (c == Statement.SUCCESS_NO_INFO) unknown.add(i);
+        counts[i++] = c;
+      }
+    }
+    for (int from = 0; from < unknown.size(); from += batchSize) {
+      List<Integer> idx = unknown.subList(from, Math.min(from + batchSize, unknown.size()));
+      Set<Long> existing = existingIds(idx.stream().map(ids::get).toList());
+      for (int k : idx) counts[k] = existing.contains(ids.get(k)) ? 1 : 0;
+    }
+    return counts;
+  }
+
+  private Set<Long> existingIds(List<Long> ids) {
+    String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+    return new HashSet<>(jdbc.queryForList("SELECT id FROM products WHERE id IN (" + in + ")", Long.class, ids.toArray()));
+  }
+
+  private static void bind(PreparedStatement ps, Product p) throws SQLException {
+    ps.setString(1, p.getName());
+    ps.setInt(2, p.getPrice());
+    ps.setInt(3, p.getQuantity());
+    ps.setString(4, p.getDescription());
+    ps.setString(5, p.getCategory().name());
+  }
+}
@@ -0,0 +1,46 @@
+package com.flogin.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.flogin.entity.Product;
+
+/**
+ * ProductBulkWriter ghi vào ProductLogStore (profile logstore). Cả lô nằm trong một lần giữ write lock
+ * và một lần force xuống đĩa; batchSize không còn ý nghĩa.
+ */
+public class LogProductBulkWriter implements ProductBulkWriter {
+  private final ProductLogStore store;
+
+  public LogProductBulkWriter(ProductLogStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public List<Long> insertAll(List<Product> products, int batchSize) {
+    return store.insertAll(products);
+  }
+
+  @Override
+  public int[] updateAll(List<Product> products, int batchSize) {
+    return store.updateAll(products);
+  }
+
+  // Log không có khoá dòng theo transaction: chỉ đọc bản hiện tại. Ghi xen giữa làm kết quả ra ngoài khoảng thì
+  // adjustQuantities trả 0 cho phần tử đó
+  @Override
+  public Map<Long, Product> lockAll(List<Long> ids, int batchSize) {
+    Map<Long, Product> rows = new HashMap<>();
+    for (Long id : ids) {
+      Product p = store.get(id);
+      if (p != null) rows.put(id, p);
+    }
+    return rows;
+  }
+
+  @Override
+  public int[] adjustQuantities(List<Map.Entry<Long, Integer>> deltas, int batchSize) {
+    return store.adjustQuantities(deltas, false);
+  }
+}
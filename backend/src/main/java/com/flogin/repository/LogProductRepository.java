@@ -0,0 +1,239 @@
+package com.flogin.repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.flogin.dto.CategoryTotals;
+import com.flogin.dto.ProductField;
+import com.flogin.dto.ProductListVersion;
+import com.flogin.dto.ProductSummary;
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+
+/**
+ * ProductStore trên ProductLogStore thay cho Spring Data JPA (profile logstore). Các service dùng
+ * như cũ. Ghi xuống log ngay, không rollback theo @Transactional.
+ */
+public class LogProductRepository implements ProductStore {
+  // Số dòng mỗi lần đọc của streamAllOrderById
+  private static final int STREAM_CHUNK = 1000;
+
+  private final ProductLogStore store;
+
+  public LogProductRepository(ProductLogStore store) {
+    this.store = store;
+  }
+
+  // ---- như CrudRepository ----
+
+  // id null là thêm mới; id không còn tồn tại mà có version thì coi như bị xoá đồng thời, như merge của JPA
+  @Override
+  public <S extends Product> S save(S entity) {
+    if (entity.getId() == null) {
+      store.insert(entity);
+    } else if (store.update(entity, true) == null) {
+      if (entity.getVersion() != null) throw new ObjectOptimisticLockingFailureException(Product.class, entity.getId());
+      store.insert(entity);
+    }
+    return entity;
+  }
+
+  @Override
+  public Optional<Product> findById(Long id) {
+    return Optional.ofNullable(store.get(id));
+  }
+
+  @Override
+  public boolean existsById(Long id) {
+    return store.contains(id);
+  }
+
+  @Override
+  public List<Product> findAll() {
+    return store.findAfter(0L, 0);
+  }
+
+  @Override
+  public List<Product> findAllById(Iterable<Long> ids) {
+    List<Product> found = new ArrayList<>();
+    for (Long id : ids) {
+      Product p = store.get(id);
+      if (p != null) found.add(p);
+    }
+    return found;
+  }
+
+  @Override
+  public void deleteById(Long id) {
+    store.delete(id);
+  }
+
+  // Không sắp hoặc chỉ sắp theo id: đi trên các slot của index theo thứ tự id, chỉ giải mã các dòng của trang.
+  // Sắp theo thuộc tính khác thì phải giải mã và sắp cả danh mục
+  @Override
+  public Page<Product> findAll(Pageable pageable) {
+    Sort sort = pageable.getSort();
+    Sort.Order byId = sort.getOrderFor("id");
+    if (pageable.isPaged() && (sort.isUnsorted() || (byId != null && sort.toList().size() == 1))) {
+      List<Product> page = store.findPage(pageable.getOffset(), pageable.getPageSize(), byId != null && byId.isDescending());
+      return new PageImpl<>(page, pageable, store.count());
+    }
+    List<Product> all = findAll();
+    if (sort.isSorted()) all.sort(comparator(sort));
+    if (pageable.isUnpaged()) return new PageImpl<>(all, pageable, all.size());
+    int from = (int) Math.min(pageable.getOffset(), all.size());
+    int to = Math.min(from + pageable.getPageSize(), all.size());
+    return new PageImpl<>(all.subList(from, to), pageable, all.size());
+  }
+
+  // ---- truy vấn riêng của ProductRepository ----
+
+  @Override
+  public List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit) {
+    return store.findAfter(id, limit.isLimited() ? limit.max() : 0);
+  }
+
+  @Override
+  public List<ProductSummary> findSummariesAfter(long id, Limit limit) {
+    return findByIdGreaterThanOrderByIdAsc(id, limit).stream()
+        .map(p -> new ProductSummary(p.getId(), p.getName(), p.getPrice(), p.getQuantity(), p.getCategory()))
+        .toList();
+  }
+
+  @Override
+  public List<Map<String, Object>> findFieldsAfter(Set<ProductField> fields, long afterId, int limit) {
+    Set<ProductField> columns = EnumSet.copyOf(fields);
+    List<Product> products = store.findAfter(afterId, limit);
+    List<Map<String, Object>> rows = new ArrayList<>(products.size());
+    for (Product p : products) {
+      Map<String, Object> row = new LinkedHashMap<>(columns.size() * 2);
+      for (ProductField f : columns) row.put(f.attribute(), value(p, f));
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  // Đọc từng lô STREAM_CHUNK dòng theo id, không giữ khoá giữa các lô
+  @Override
+  public Stream<Product> streamAllOrderById() {
+    Iterator<Product> it = new Iterator<>() {
+      private List<Product> chunk = List.of();
+      private int i;
+      private long afterId;
+      private boolean done;
+
+      @Override
+      public boolean hasNext() {
+        if (i < chunk.size()) return true;
+        if (done) return false;
+        chunk = store.findAfter(afterId, STREAM_CHUNK);
+        i = 0;
+        done = chunk.size() < STREAM_CHUNK;
+        if (chunk.isEmpty()) return false;
+        afterId = chunk.get(chunk.size() - 1).getId();
+        return true;
+      }
+
+      @Override
+      public Product next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return chunk.get(i++);
+      }
+    };
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  @Override
+  public List<CategoryTotals> sumByCategory() {
+    Map<Category, long[]> totals = new EnumMap<>(Category.class);
+    try (Stream<Product> rows = streamAllOrderById()) {
+      rows.forEach(p -> {
+        long[] t = totals.computeIfAbsent(p.getCategory(), c -> new long[3]);
+        t[0]++;
+        t[1] += p.getQuantity();
+        t[2] += (long) p.getPrice() * p.getQuantity();
+      });
+    }
+    List<CategoryTotals> out = new ArrayList<>(totals.size());
+    totals.forEach((category, t) -> out.add(new CategoryTotals() {
+      @Override public Category getCategory() { return category; }
+      @Override public long getProducts() { return t[0]; }
+      @Override public long getStock() { return t[1]; }
+      @Override public long getInventoryValue() { return t[2]; }
+    }));
+    return out;
+  }
+
+  @Override
+  public ProductListVersion listVersion() {
+    long products = store.count();
+    long versionSum = store.versionSum();
+    long maxId = store.maxId();
+    return new ProductListVersion() {
+      @Override public long getProducts() { return products; }
+      @Override public long getVersionSum() { return versionSum; }
+      @Override public long getMaxId() { return maxId; }
+    };
+  }
+
+  @Override
+  public int adjustQuantity(long id, int delta) {
+    return store.adjustQuantities(List.of(Map.entry(id, delta)), false)[0];
+  }
+
+  // ---- nội bộ ----
+
+  private static Object value(Product p, ProductField f) {
+    return switch (f) {
+      case ID -> p.getId();
+      case NAME -> p.getName();
+      case PRICE -> p.getPrice();
+      case QUANTITY -> p.getQuantity();
+      case DESCRIPTION -> p.getDescription();
+      case CATEGORY -> p.getCategory();
+      case VERSION -> p.getVersion();
+    };
+  }
+
+  // Sort theo thuộc tính của Product; thuộc tính lạ báo lỗi như Spring Data JPA
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static Comparator<Product> comparator(Sort sort) {
+    Comparator<Product> result = null;
+    for (Sort.Order order : sort) {
+      ProductField field;
+      try {
+        field = ProductField.valueOf(order.getProperty().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException ex) {
+        throw new PropertyReferenceException(order.getProperty(), TypeInformation.of(Product.class), List.of());
+      }
+      Comparator<Product> c = Comparator.comparing(p -> (Comparable) value(p, field),
+          Comparator.nullsFirst(Comparator.naturalOrder()));
+      if (order.isDescending()) c = c.reversed();
+      result = result == null ? c : result.thenComparing(c);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,30 @@
+package com.flogin.repository;
+
+import java.util.List;
+import java.util.Map;
+
+import com.flogin.entity.Product;
+
+/**
+ * Ghi hàng loạt products cho ProductBulkService và InventoryReservationService.flush:
+ * JdbcProductBulkWriter (MySQL) hoặc LogProductBulkWriter (profile logstore).
+ */
+public interface ProductBulkWriter {
+
+  /** Trả về id sinh ra theo đúng thứ tự danh sách đầu vào. */
+  List<Long> insertAll(List<Product> products, int batchSize);
+
+  /** Không kiểm tra version; trả về số dòng bị ảnh hưởng của từng phần tử (0 = không tồn tại). */
+  int[] updateAll(List<Product> products, int batchSize);
+
+  /**
+   * Đọc và khoá các dòng theo id tới hết transaction. Id không tồn tại không có trong kết quả.
+   */
+  Map<Long, Product> lockAll(List<Long> ids, int batchSize);
+
+  /**
+   * Cộng delta vào quantity theo id; trả về số dòng bị ảnh hưởng của từng phần tử (0 = không tồn tại hoặc
+   * kết quả ra ngoài [0, 99999]). Gọi sau lockAll để biết trước quantity và chọn delta nằm trong khoảng.
+   */
+  int[] adjustQuantities(List<Map.Entry<Long, Integer>> deltas, int batchSize);
+}
@@ -0,0 +1,113 @@
+package com.flogin.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+
+/**
+ * products.change_seq và product_tombstones (V4__product_change_seq.sql). Trigger đánh dấu dòng vừa ghi/xoá là
+ * chờ (change_seq = 0), assignPending cấp số cho chúng sau khi đã commit; ở đây còn đọc thay đổi và dọn tombstone
+ * cũ. Các câu đọc nên chạy trong cùng một transaction để thấy cùng một snapshot.
+ *
+ * Không có ở profile logstore: log không lưu change_seq và bỏ bản ghi xoá khi compact.
+ */
+@Repository
+@Profile("!logstore")
+public class ProductChangeRepository {
+  public record Counter(long seq, long purgedSeq) {}
+  public record Changed(long seq, Product product) {}
+  public record Deleted(long seq, long id) {}
+
+  static final String COUNTER_SQL = "SELECT seq, purged_seq FROM product_change_counter WHERE id = 1";
+  // Range scan trên idx_products_change_seq
+  static final String CHANGED_SQL =
+      "SELECT id, name, price, quantity, description, category, version, change_seq FROM products "
+      + "WHERE change_seq > ? AND change_seq <= ? ORDER BY change_seq LIMIT ?";
+  // Range scan trên idx_product_tombstones_change_seq
+  static final String DELETED_SQL =
+      "SELECT change_seq, id FROM product_tombstones WHERE change_seq > ? AND change_seq <= ? ORDER BY change_seq LIMIT ?";
+
+  // Dòng/tombstone chờ đánh số. SKIP LOCKED: dòng của transaction ghi chưa commit để lần sau, không chờ
+  static final String PENDING_SQL = "SELECT 1 FROM products WHERE change_seq = 0 "
+      + "UNION ALL SELECT 1 FROM product_tombstones WHERE change_seq = 0 LIMIT 1";
+  static final String LOCK_COUNTER_SQL = "SELECT seq FROM product_change_counter WHERE id = 1 FOR UPDATE";
+  static final String LOCK_PENDING_PRODUCTS_SQL =
+      "SELECT id FROM products WHERE change_seq = 0 ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+  static final String LOCK_PENDING_TOMBSTONES_SQL =
+      "SELECT id FROM product_tombstones WHERE change_seq = 0 ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+  // updated_at = updated_at: đánh số không phải là sửa sản phẩm
+  static final String NUMBER_PRODUCT_SQL = "UPDATE products SET change_seq = ?, updated_at = updated_at WHERE id = ?";
+  static final String NUMBER_TOMBSTONE_SQL = "UPDATE product_tombstones SET change_seq = ? WHERE id = ?";
+
+  private final JdbcTemplate jdbc;
+
+  public ProductChangeRepository(JdbcTemplate jdbc) { this.jdbc = jdbc; }
+
+  public Counter counter() {
+    return jdbc.queryForObject(COUNTER_SQL, (rs, i) -> new Counter(rs.getLong(1), rs.getLong(2)));
+  }
+
+  /**
+   * Cấp số tiếp theo của bộ đếm cho các dòng và tombstone chờ đánh số đã commit (tối đa limit mỗi loại, theo id)
+   * rồi nâng bộ đếm. Gọi trong transaction READ COMMITTED (không gap lock). Chỉ khoá dòng bộ đếm (giữa các lần
+   * đánh số với nhau) và các dòng chờ không ai giữ, không bao giờ chờ transaction ghi products nên không thể
+   * deadlock với chúng. Trả về số dòng đã đánh số.
+   */
+  public int assignPending(int limit) {
+    if (jdbc.queryForList(PENDING_SQL, Integer.class).isEmpty()) return 0;
+    long seq = jdbc.queryForObject(LOCK_COUNTER_SQL, Long.class);
+    List<Long> products = jdbc.queryForList(LOCK_PENDING_PRODUCTS_SQL, Long.class, limit);
+    List<Long> tombstones = jdbc.queryForList(LOCK_PENDING_TOMBSTONES_SQL, Long.class, limit);
+    if (products.isEmpty() && tombstones.isEmpty()) return 0;
+
+    List<Object[]> numbered = new ArrayList<>(products.size());
+    for (Long id : products) numbered.add(new Object[] { ++seq, id });
+    jdbc.batchUpdate(NUMBER_PRODUCT_SQL, numbered);
+    numbered.clear();
+    for (Long id : tombstones) numbered.add(new Object[] { ++seq, id });
+    jdbc.batchUpdate(NUMBER_TOMBSTONE_SQL, numbered);
+    jdbc.update("UPDATE product_change_counter SET seq = ? WHERE id = 1", seq);
+    return products.size() + tombstones.size();
+  }
+
+  /** Dòng có change_seq trong (since, until], tăng dần, tối đa limit dòng. */
+  public List<Changed> findChanged(long since, long until, int limit) {
+    return jdbc.query(CHANGED_SQL, (rs, i) -> {
+      Product p = new Product();
+      p.setId(rs.getLong(1));
+      p.setName(rs.getString(2));
+      p.setPrice(rs.getInt(3));
+      p.setQuantity(rs.getInt(4));
+      p.setDescription(rs.getString(5));
+      p.setCategory(Category.valueOf(rs.getString(6)));
+      p.setVersion(rs.getLong(7));
+      return new Changed(rs.getLong(8), p);
+    }, since, until, limit);
+  }
+
+  /** Tombstone có change_seq trong (since, until], tăng dần, tối đa limit dòng. */
+  public List<Deleted> findDeleted(long since, long until, int limit) {
+    return jdbc.query(DELETED_SQL, (rs, i) -> new Deleted(rs.getLong(1), rs.getLong(2)), since, until, limit);
+  }
+
+  /**
+   * Xoá tombstone tạo trước olderThan và nâng purged_seq; gọi trong transaction.
+   * Trả về số tombstone đã xoá.
+   */
+  public int purgeTombstones(Instant olderThan) {
+    Long horizon = jdbc.queryForObject("SELECT MAX(change_seq) FROM product_tombstones WHERE deleted_at < ?",
+        Long.class, Timestamp.from(olderThan));
+    if (horizon == null) return 0;
+    jdbc.update("UPDATE product_change_counter SET purged_seq = GREATEST(purged_seq, ?) WHERE id = 1", horizon);
+    // change_seq = 0: tombstone chưa đánh số, chưa client nào thấy
+    return jdbc.update("DELETE FROM product_tombstones WHERE change_seq BETWEEN 1 AND ?", horizon);
+  }
+}
@@ -0,0 +1,16 @@
+package com.flogin.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.flogin.dto.ProductField;
+
+// Fragment của ProductRepository cho ?fields=: danh sách cột chỉ biết lúc chạy nên dựng bằng Criteria
+public interface ProductFieldsRepository {
+  /**
+   * SELECT đúng các cột trong fields, WHERE id > afterId ORDER BY id. limit <= 0 là không giới hạn.
+   * Mỗi dòng là một Map theo thứ tự khai báo của ProductField, key là tên thuộc tính.
+   */
+  List<Map<String, Object>> findFieldsAfter(Set<ProductField> fields, long afterId, int limit);
+}
@@ -0,0 +1,51 @@
+package com.flogin.repository;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.flogin.dto.ProductField;
+import com.flogin.entity.Product;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+class ProductFieldsRepositoryImpl implements ProductFieldsRepository {
+  @PersistenceContext
+  private EntityManager em;
+
+  @Override
+  public List<Map<String, Object>> findFieldsAfter(Set<ProductField> fields, long afterId, int limit) {
+    // EnumSet: thứ tự cột cố định, không trùng
+    Set<ProductField> columns = EnumSet.copyOf(fields);
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    CriteriaQuery<Tuple> q = cb.createTupleQuery();
+    Root<Product> p = q.from(Product.class);
+    List<Selection<?>> select = new ArrayList<>(columns.size());
+    for (ProductField f : columns) select.add(p.get(f.attribute()).alias(f.attribute()));
+    q.multiselect(select)
+        .where(cb.gt(p.<Long>get("id"), afterId))
+        .orderBy(cb.asc(p.get("id")));
+
+    TypedQuery<Tuple> query = em.createQuery(q);
+    if (limit > 0) query.setMaxResults(limit);
+    List<Tuple> tuples = query.getResultList();
+
+    List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+    for (Tuple t : tuples) {
+      Map<String, Object> row = new LinkedHashMap<>(columns.size() * 2);
+      for (ProductField f : columns) row.put(f.attribute(), t.get(f.attribute()));
+      rows.add(row);
+    }
+    return rows;
+  }
+}
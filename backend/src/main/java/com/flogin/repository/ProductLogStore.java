@@ -0,0 +1,680 @@
+package com.flogin.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Kho products dạng log append-only trên file mmap (profile logstore, xem ProductLogStoreConfig).
+ *
+ * Mỗi lần ghi nối một bản ghi PUT/DELETE vào cuối file. Index trong bộ nhớ là hai mảng long song song
+ * (id tăng dần -> offset bản ghi mới nhất), tra bằng binary search; id do kho cấp nên luôn nối vào cuối mảng.
+ * Khởi động đọc lại log để dựng index, dừng ở bản ghi đầu tiên sai CRC (ghi dở khi crash) và xoá phần đuôi đó.
+ * compact() chép thẳng các bản ghi còn sống (không giải mã) sang file thế hệ mới, không đổi tên đè file đang map.
+ *
+ * Đọc không khoá: StampedLock optimistic read, giải mã trực tiếp từ vùng mmap; có ghi/remap chen giữa thì đọc lại
+ * dưới read lock. Ghi tuần tự dưới write lock.
+ *
+ * Mỗi thư mục chỉ một tiến trình mở: giữ FileLock trên products.lock tới khi close(). Hai instance cùng ghi
+ * một log sẽ ghi đè bản ghi của nhau (writePos riêng) và xoá file thế hệ của nhau khi compact/mở.
+ */
+public class ProductLogStore implements MeterBinder, Closeable {
+  private static final Logger log = LoggerFactory.getLogger(ProductLogStore.class);
+
+  // Header file: magic, format, nextId. magic ghi sau cùng khi compact nên file compact dở không có magic
+  static final int MAGIC = 0x464C5047;
+  static final int FORMAT = 1;
+  static final int HEADER = 16;
+  // Đầu bản ghi: độ dài body, CRC32 của body. Độ dài 0 = hết log (vùng map thừa luôn là byte 0)
+  static final int RECORD_HEADER = 8;
+  static final byte PUT = 1;
+  static final byte DELETE = 2;
+  // type + id
+  private static final int DELETE_BODY = 1 + 8;
+  // type + id + version + price + quantity
+  private static final int PUT_FIXED = 1 + 8 + 8 + 4 + 4;
+  private static final int MAX_MAPPED = Integer.MAX_VALUE;
+  private static final String PREFIX = "products-";
+  private static final String SUFFIX = ".log";
+  private static final String LOCK_FILE = "products.lock";
+
+  private final Path dir;
+  private final int initialSize;
+  private final boolean forceOnWrite;
+  private final long compactionMinGarbage;
+  private final double compactionGarbageRatio;
+  private final StampedLock lock = new StampedLock();
+
+  private FileChannel lockChannel;
+
+  // Các field dưới đây chỉ đổi khi giữ write lock
+  private long generation;
+  private FileChannel channel;
+  private MappedByteBuffer buf;
+  private int writePos;
+  private long[] ids = new long[1024];
+  private long[] offsets = new long[1024];
+  // Số slot đã dùng; slot bị xoá có offset -1 cho tới lần compact sau
+  private int slots;
+  private int live;
+  private long liveBytes;
+  private long versionSum;
+  private long nextId = 1;
+
+  private volatile Timer compactions;
+
+  public ProductLogStore(Path dir, int initialSize, boolean forceOnWrite,
+                         long compactionMinGarbage, double compactionGarbageRatio) {
+    this.dir = dir;
+    this.initialSize = Math.max(initialSize, 4096);
+    this.forceOnWrite = forceOnWrite;
+    this.compactionMinGarbage = compactionMinGarbage;
+    this.compactionGarbageRatio = compactionGarbageRatio;
+    long start = System.nanoTime();
+    try {
+      open();
+    } catch (IOException ex) {
+      closeQuietly();
+      throw new UncheckedIOException("Không mở được products log " + dir, ex);
+    } catch (RuntimeException ex) {
+      closeQuietly();
+      throw ex;
+    }
+    log.info("Products log {}: {} sản phẩm, {} bytes, dựng index {} ms",
+        file(generation), live, writePos, (System.nanoTime() - start) / 1_000_000);
+  }
+
+  // ---- đọc ----
+
+  public Product get(long id) {
+    return read(() -> {
+      int slot = Arrays.binarySearch(ids, 0, slots, id);
+      return slot < 0 || offsets[slot] < 0 ? null : decode(buf, (int) offsets[slot]);
+    });
+  }
+
+  public boolean contains(long id) {
+    return read(() -> {
+      int slot = Arrays.binarySearch(ids, 0, slots, id);
+      return slot >= 0 && offsets[slot] >= 0;
+    });
+  }
+
+  /** Các sản phẩm có id > afterId theo thứ tự id; limit <= 0 là không giới hạn. */
+  public List<Product> findAfter(long afterId, int limit) {
+    return read(() -> {
+      int slot = Arrays.binarySearch(ids, 0, slots, afterId);
+      slot = slot >= 0 ? slot + 1 : -slot - 1;
+      List<Product> out = new ArrayList<>(limit > 0 ? Math.min(limit, live) : live);
+      for (; slot < slots && (limit <= 0 || out.size() < limit); slot++) {
+        if (offsets[slot] >= 0) out.add(decode(buf, (int) offsets[slot]));
+      }
+      return out;
+    });
+  }
+
+  /**
+   * Trang theo thứ tự id (descending: từ id lớn nhất), bỏ qua offset sản phẩm đầu. Chỉ đếm slot để bỏ qua,
+   * không giải mã, nên chi phí giải mã chỉ bằng kích thước trang.
+   */
+  public List<Product> findPage(long offset, int limit, boolean descending) {
+    return read(() -> {
+      List<Product> out = new ArrayList<>(Math.max(0, Math.min(limit, live)));
+      long skip = offset;
+      for (int i = 0; i < slots && out.size() < limit; i++) {
+        int slot = descending ? slots - 1 - i : i;
+        if (offsets[slot] < 0) continue;
+        if (skip > 0) {
+          skip--;
+        } else {
+          out.add(decode(buf, (int) offsets[slot]));
+        }
+      }
+      return out;
+    });
+  }
+
+  public long count() {
+    return read(() -> (long) live);
+  }
+
+  public long versionSum() {
+    return read(() -> versionSum);
+  }
+
+  /** id lớn nhất còn tồn tại, 0 khi rỗng (như max(id) trên bảng). */
+  public long maxId() {
+    return read(() -> {
+      for (int slot = slots - 1; slot >= 0; slot--) {
+        if (offsets[slot] >= 0) return ids[slot];
+      }
+      return 0L;
+    });
+  }
+
+  // ---- ghi ----
+
+  /** Cấp id mới, version 0; gán vào chính p. */
+  public Product insert(Product p) {
+    insertAll(List.of(p));
+    return p;
+  }
+
+  public List<Long> insertAll(List<Product> products) {
+    long stamp = lock.writeLock();
+    int from = writePos;
+    try {
+      // Kiểm tra cả lô trước khi ghi: không để lại nửa lô trong log
+      products.forEach(ProductLogStore::checkNotNull);
+      List<Long> created = new ArrayList<>(products.size());
+      for (Product p : products) {
+        long id = nextId++;
+        p.setId(id);
+        p.setVersion(0L);
+        put(p);
+        created.add(id);
+      }
+      return created;
+    } finally {
+      force(from);
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Ghi đè sản phẩm theo p.getId(), tăng version. checkVersion: version của p phải bằng version đang lưu,
+   * không thì ObjectOptimisticLockingFailureException như @Version của JPA. Trả về null khi id không tồn tại.
+   */
+  public Product update(Product p, boolean checkVersion) {
+    long stamp = lock.writeLock();
+    int from = writePos;
+    try {
+      return replace(p, checkVersion) ? p : null;
+    } finally {
+      force(from);
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /** Như ProductBulkWriter.updateAll: không kiểm tra version; phần tử là 1 nếu đã ghi, 0 nếu id không tồn tại. */
+  public int[] updateAll(List<Product> products) {
+    long stamp = lock.writeLock();
+    int from = writePos;
+    try {
+      products.forEach(ProductLogStore::checkNotNull);
+      int[] counts = new int[products.size()];
+      for (int i = 0; i < counts.length; i++) counts[i] = replace(products.get(i), false) ? 1 : 0;
+      return counts;
+    } finally {
+      force(from);
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Cộng delta vào quantity. clamp: kẹp kết quả trong [0, 99999] (như ProductBulkWriter.adjustQuantities);
+   * không clamp thì trả 0 khi kết quả ra ngoài khoảng đó (như ProductRepository.adjustQuantity).
+   */
+  public int[] adjustQuantities(List<Map.Entry<Long, Integer>> deltas, boolean clamp) {
+    long stamp = lock.writeLock();
+    int from = writePos;
+    try {
+      int[] counts = new int[deltas.size()];
+      for (int i = 0; i < counts.length; i++) {
+        Map.Entry<Long, Integer> d = deltas.get(i);
+        int slot = Arrays.binarySearch(ids, 0, slots, d.getKey());
+        if (slot < 0 || offsets[slot] < 0) continue;
+        Product p = decode(buf, (int) offsets[slot]);
+        int quantity = p.getQuantity() + d.getValue();
+        if (clamp) {
+          quantity = Math.max(0, Math.min(99_999, quantity));
+        } else if (quantity < 0 || quantity > 99_999) {
+          continue;
+        }
+        p.setQuantity(quantity);
+        replace(p, false);
+        counts[i] = 1;
+      }
+      return counts;
+    } finally {
+      force(from);
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public boolean delete(long id) {
+    long stamp = lock.writeLock();
+    int from = writePos;
+    try {
+      int slot = Arrays.binarySearch(ids, 0, slots, id);
+      if (slot < 0 || offsets[slot] < 0) return false;
+      ensureCapacity(RECORD_HEADER + DELETE_BODY);
+      int at = writePos;
+      buf.put(at + RECORD_HEADER, DELETE).putLong(at + RECORD_HEADER + 1, id);
+      seal(at, DELETE_BODY);
+      forget(slot);
+      return true;
+    } finally {
+      force(from);
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  // ---- compaction ----
+
+  /** Số byte của các bản ghi đã bị ghi đè hoặc xoá. */
+  public long garbageBytes() {
+    return read(() -> writePos - HEADER - liveBytes);
+  }
+
+  @Scheduled(fixedDelayString = "${flogin.products.log.compaction-interval:PT1M}")
+  public void compactIfNeeded() {
+    long garbage = garbageBytes();
+    long used = read(() -> (long) writePos - HEADER);
+    if (garbage >= compactionMinGarbage && garbage >= used * compactionGarbageRatio) compact();
+  }
+
+  /**
+   * Chép bản ghi còn sống theo thứ tự id sang products-(generation+1).log, force, rồi mới ghi magic:
+   * crash giữa chừng thì lần khởi động sau bỏ file mới và dùng file cũ. Giữ write lock suốt quá trình.
+   */
+  public void compact() {
+    long stamp = lock.writeLock();
+    long start = System.nanoTime();
+    try {
+      long next = generation + 1;
+      Path target = file(next);
+      int size = (int) Math.min(MAX_MAPPED, Math.max(initialSize, (HEADER + liveBytes) * 2));
+      FileChannel ch = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+      MappedByteBuffer dst;
+      long[] newIds = new long[Math.max(1024, live * 2)];
+      long[] newOffsets = new long[newIds.length];
+      int pos = HEADER;
+      try {
+        dst = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        int n = 0;
+        for (int slot = 0; slot < slots; slot++) {
+          if (offsets[slot] < 0) continue;
+          int at = (int) offsets[slot];
+          int length = RECORD_HEADER + buf.getInt(at);
+          dst.put(pos, buf, at, length);
+          newIds[n] = ids[slot];
+          newOffsets[n++] = pos;
+          pos += length;
+        }
+        dst.putInt(4, FORMAT).putLong(8, nextId);
+        dst.force();
+        dst.putInt(0, MAGIC);
+        dst.force(0, HEADER);
+      } catch (IOException | RuntimeException ex) {
+        ch.close();
+        Files.deleteIfExists(target);
+        throw ex;
+      }
+      FileChannel old = channel;
+      Path oldFile = file(generation);
+      generation = next;
+      channel = ch;
+      buf = dst;
+      writePos = pos;
+      ids = newIds;
+      offsets = newOffsets;
+      slots = live;
+      old.close();
+      deleteQuietly(oldFile);
+      if (compactions != null) compactions.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      log.info("Compact products log -> {}: {} sản phẩm, {} bytes", target.getFileName(), live, writePos);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Compact products log thất bại", ex);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    long stamp = lock.writeLock();
+    try {
+      if (channel.isOpen()) {
+        buf.force();
+        channel.close();
+      }
+      // Đóng channel là nhả FileLock
+      if (lockChannel.isOpen()) lockChannel.close();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("flogin.products.log.size", this, s -> s.read(() -> (double) s.writePos))
+        .description("Số byte đã dùng của file log hiện tại")
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("flogin.products.log.garbage", this, s -> s.garbageBytes())
+        .description("Byte của bản ghi đã bị ghi đè/xoá, thu hồi khi compact")
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("flogin.products.log.records", this, ProductLogStore::count)
+        .description("Số sản phẩm trong index")
+        .register(registry);
+    compactions = Timer.builder("flogin.products.log.compaction")
+        .description("Thời gian compact (giữ write lock)")
+        .register(registry);
+  }
+
+  // ---- nội bộ ----
+
+  private <T> T read(Supplier<T> op) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0L) {
+      try {
+        T result = op.get();
+        if (lock.validate(stamp)) return result;
+      } catch (RuntimeException torn) {
+        // Đọc trúng lúc đang ghi/remap (mảng index hoặc buffer vừa bị thay): đọc lại dưới read lock
+      }
+    }
+    stamp = lock.readLock();
+    try {
+      return op.get();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private boolean replace(Product p, boolean checkVersion) {
+    Long id = p.getId();
+    int slot = id == null ? -1 : Arrays.binarySearch(ids, 0, slots, id);
+    if (slot < 0 || offsets[slot] < 0) return false;
+    long stored = buf.getLong((int) offsets[slot] + RECORD_HEADER + 1 + 8);
+    if (checkVersion && (p.getVersion() == null || p.getVersion() != stored)) {
+      throw new ObjectOptimisticLockingFailureException(Product.class, id);
+    }
+    p.setVersion(stored + 1);
+    put(p);
+    return true;
+  }
+
+  // Nối bản ghi PUT của p và trỏ index vào đó
+  private void put(Product p) {
+    checkNotNull(p);
+    byte[] category = p.getCategory().name().getBytes(StandardCharsets.US_ASCII);
+    byte[] name = p.getName().getBytes(StandardCharsets.UTF_8);
+    byte[] description = p.getDescription() == null ? null : p.getDescription().getBytes(StandardCharsets.UTF_8);
+    int body = PUT_FIXED + 1 + category.length + 2 + name.length + 2 + (description == null ? 0 : description.length);
+    ensureCapacity(RECORD_HEADER + body);
+
+    int at = writePos;
+    int pos = at + RECORD_HEADER;
+    buf.put(pos, PUT).putLong(pos + 1, p.getId()).putLong(pos + 9, p.getVersion())
+        .putInt(pos + 17, p.getPrice()).putInt(pos + 21, p.getQuantity());
+    pos += PUT_FIXED;
+    buf.put(pos++, (byte) category.length).put(pos, category);
+    pos += category.length;
+    buf.putShort(pos, (short) name.length).put(pos + 2, name);
+    pos += 2 + name.length;
+    buf.putShort(pos, (short) (description == null ? -1 : description.length));
+    if (description != null) buf.put(pos + 2, description);
+    seal(at, body);
+
+    int slot = Arrays.binarySearch(ids, 0, slots, p.getId());
+    if (slot >= 0 && offsets[slot] >= 0) forget(slot);
+    index(slot, p.getId(), at);
+    live++;
+    liveBytes += RECORD_HEADER + body;
+    versionSum += p.getVersion();
+  }
+
+  // Các cột NOT NULL của bảng products
+  private static void checkNotNull(Product p) {
+    if (p.getName() == null || p.getPrice() == null || p.getQuantity() == null || p.getCategory() == null) {
+      throw new DataIntegrityViolationException("name, price, quantity, category không được null");
+    }
+  }
+
+  // Ghi CRC rồi độ dài: bản ghi chỉ "tồn tại" khi độ dài khác 0
+  private void seal(int at, int body) {
+    CRC32 crc = new CRC32();
+    crc.update(buf.slice(at + RECORD_HEADER, body));
+    buf.putInt(at + 4, (int) crc.getValue());
+    buf.putInt(at, body);
+    writePos = at + RECORD_HEADER + body;
+  }
+
+  // Bỏ bản ghi hiện tại của slot khỏi các thống kê (bị ghi đè hoặc xoá)
+  private void forget(int slot) {
+    int at = (int) offsets[slot];
+    live--;
+    liveBytes -= RECORD_HEADER + buf.getInt(at);
+    if (buf.get(at + RECORD_HEADER) == PUT) versionSum -= buf.getLong(at + RECORD_HEADER + 9);
+    offsets[slot] = -1;
+  }
+
+  // slot: kết quả binarySearch. id mới luôn lớn nhất nên gần như luôn nối cuối mảng
+  private void index(int slot, long id, int offset) {
+    if (slot >= 0) {
+      offsets[slot] = offset;
+      return;
+    }
+    int at = -slot - 1;
+    if (slots == ids.length) {
+      ids = Arrays.copyOf(ids, slots * 2);
+      offsets = Arrays.copyOf(offsets, slots * 2);
+    }
+    System.arraycopy(ids, at, ids, at + 1, slots - at);
+    System.arraycopy(offsets, at, offsets, at + 1, slots - at);
+    ids[at] = id;
+    offsets[at] = offset;
+    slots++;
+  }
+
+  private void ensureCapacity(int bytes) {
+    // Chừa 4 byte 0 sau bản ghi cuối làm điểm kết thúc
+    long needed = (long) writePos + bytes + 4;
+    if (needed <= buf.capacity()) return;
+    if (needed > MAX_MAPPED) {
+      throw new IllegalStateException("Products log vượt 2GB, cần compact");
+    }
+    long size = buf.capacity();
+    while (size < needed) size = Math.min(MAX_MAPPED, size * 2);
+    try {
+      buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Không mở rộng được products log", ex);
+    }
+  }
+
+  private void force(int from) {
+    if (forceOnWrite && writePos > from) buf.force(from, writePos - from);
+  }
+
+  static Product decode(MappedByteBuffer b, int at) {
+    int pos = at + RECORD_HEADER;
+    Product p = new Product();
+    p.setId(b.getLong(pos + 1));
+    p.setVersion(b.getLong(pos + 9));
+    p.setPrice(b.getInt(pos + 17));
+    p.setQuantity(b.getInt(pos + 21));
+    pos += PUT_FIXED;
+    int len = b.get(pos++);
+    p.setCategory(Category.valueOf(string(b, pos, len, StandardCharsets.US_ASCII)));
+    pos += len;
+    len = b.getShort(pos);
+    p.setName(string(b, pos + 2, len, StandardCharsets.UTF_8));
+    pos += 2 + len;
+    len = b.getShort(pos);
+    if (len >= 0) p.setDescription(string(b, pos + 2, len, StandardCharsets.UTF_8));
+    return p;
+  }
+
+  private static String string(MappedByteBuffer b, int pos, int len, Charset cs) {
+    byte[] bytes = new byte[len];
+    b.get(pos, bytes);
+    return new String(bytes, cs);
+  }
+
+  private Path file(long gen) {
+    return dir.resolve(String.format("%s%06d%s", PREFIX, gen, SUFFIX));
+  }
+
+  // Khoá thư mục, chọn thế hệ mới nhất có magic hợp lệ, xoá các file còn lại, rồi replay log để dựng index
+  private void open() throws IOException {
+    Files.createDirectories(dir);
+    lockChannel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    FileLock held;
+    try {
+      held = lockChannel.tryLock();
+    } catch (OverlappingFileLockException ex) {
+      // Cùng JVM đã giữ khoá
+      held = null;
+    }
+    if (held == null) {
+      throw new IllegalStateException("Products log " + dir + " đang được tiến trình khác mở");
+    }
+    TreeMap<Long, Path> files = new TreeMap<>();
+    try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+      for (Path f : ds) {
+        String n = f.getFileName().toString();
+        try {
+          files.put(Long.parseLong(n.substring(PREFIX.length(), n.length() - SUFFIX.length())), f);
+        } catch (NumberFormatException ignored) {
+          // không phải file của kho
+        }
+      }
+    }
+    generation = 0;
+    for (Map.Entry<Long, Path> f : files.descendingMap().entrySet()) {
+      if (generation == 0 && hasMagic(f.getValue())) {
+        generation = f.getKey();
+      } else {
+        log.warn("Bỏ products log cũ hoặc compact dở: {}", f.getValue().getFileName());
+        Files.delete(f.getValue());
+      }
+    }
+    boolean fresh = generation == 0;
+    if (fresh) generation = 1;
+
+    channel = FileChannel.open(file(generation), StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    long size = Math.max(initialSize, channel.size());
+    if (size > MAX_MAPPED) throw new IllegalStateException("Products log vượt 2GB: " + file(generation));
+    buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    if (fresh) {
+      buf.putInt(4, FORMAT).putLong(8, nextId).putInt(0, MAGIC);
+      buf.force(0, HEADER);
+    } else if (buf.getInt(4) != FORMAT) {
+      throw new IllegalStateException("Products log khác định dạng: " + file(generation));
+    }
+    replay();
+  }
+
+  private static boolean hasMagic(Path f) throws IOException {
+    try (FileChannel ch = FileChannel.open(f, StandardOpenOption.READ)) {
+      if (ch.size() < HEADER) return false;
+      ByteBuffer head = ByteBuffer.allocate(4);
+      ch.read(head, 0);
+      return head.getInt(0) == MAGIC;
+    }
+  }
+
+  private void replay() {
+    long maxSeen = buf.getLong(8) - 1;
+    int pos = HEADER;
+    CRC32 crc = new CRC32();
+    while (pos + RECORD_HEADER <= buf.capacity()) {
+      int body = buf.getInt(pos);
+      if (body == 0) break;
+      if (body < DELETE_BODY || (long) pos + RECORD_HEADER + body > buf.capacity()) {
+        truncate(pos, "độ dài không hợp lệ");
+        break;
+      }
+      crc.reset();
+      crc.update(buf.slice(pos + RECORD_HEADER, body));
+      if ((int) crc.getValue() != buf.getInt(pos + 4)) {
+        truncate(pos, "sai CRC");
+        break;
+      }
+      byte type = buf.get(pos + RECORD_HEADER);
+      long id = buf.getLong(pos + RECORD_HEADER + 1);
+      int slot = Arrays.binarySearch(ids, 0, slots, id);
+      if (slot >= 0 && offsets[slot] >= 0) forget(slot);
+      if (type == PUT) {
+        index(slot, id, pos);
+        live++;
+        liveBytes += RECORD_HEADER + body;
+        versionSum += buf.getLong(pos + RECORD_HEADER + 9);
+      }
+      maxSeen = Math.max(maxSeen, id);
+      pos += RECORD_HEADER + body;
+    }
+    writePos = pos;
+    nextId = maxSeen + 1;
+  }
+
+  // Xoá phần đuôi hỏng để bản ghi ghi sau không bị nối vào rác cũ
+  private void truncate(int pos, String reason) {
+    log.warn("Products log {}: bỏ phần đuôi từ offset {} ({})", file(generation).getFileName(), pos, reason);
+    byte[] zeros = new byte[8192];
+    for (int at = pos; at < buf.capacity(); at += zeros.length) {
+      buf.put(at, zeros, 0, Math.min(zeros.length, buf.capacity() - at));
+    }
+    buf.force();
+  }
+
+  // Mở thất bại: nhả khoá và file đã mở để lần mở sau (hoặc tiến trình khác) dùng được thư mục
+  private void closeQuietly() {
+    for (FileChannel ch : new FileChannel[] { channel, lockChannel }) {
+      try {
+        if (ch != null) ch.close();
+      } catch (IOException ex) {
+        log.debug("Không đóng được products log: {}", ex.toString());
+      }
+    }
+  }
+
+  private static void deleteQuietly(Path f) {
+    try {
+      Files.deleteIfExists(f);
+    } catch (IOException ex) {
+      // Windows không cho xoá file còn đang map: lần khởi động sau sẽ xoá
+      log.debug("Chưa xoá được {}: {}", f, ex.toString());
+    }
+  }
+}
@@ -1,7 +1,59 @@
 package com.flogin.repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import com.flogin.dto.CategoryTotals;
+import com.flogin.dto.ProductListVersion;
+import com.flogin.dto.ProductSummary;
 import com.flogin.entity.Product;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {}
+import jakarta.persistence.QueryHint;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductFieldsRepository, ProductStore {
+  // MySQL Connector/J chỉ stream từng dòng (server-side) khi fetchSize = Integer.MIN_VALUE
+  String STREAMING_FETCH_SIZE = "-2147483648";
+
+  // Keyset paging: WHERE id > ? ORDER BY id LIMIT ? — dùng PK index, không OFFSET, không COUNT(*)
+  List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+  // Chỉ các cột của lưới (không description), không tạo entity
+  @Query("select new com.flogin.dto.ProductSummary(p.id, p.name, p.price, p.quantity, p.category) "
+      + "from Product p where p.id > :id order by p.id")
+  List<ProductSummary> findSummariesAfter(@Param("id") long id, Limit limit);
+
+  // Phải gọi trong transaction và đóng Stream sau khi dùng
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+  })
+  @Query("select p from Product p order by p.id")
+  Stream<Product> streamAllOrderById();
+
+  // Chỉ chạy khi khởi động/đồng bộ lại thống kê; sau đó thống kê được cập nhật tăng dần
+  @Query("select p.category as category, count(p) as products, coalesce(sum(p.quantity), 0) as stock, "
+      + "coalesce(sum(cast(p.price as long) * p.quantity), 0) as inventoryValue "
+      + "from Product p group by p.category")
+  List<CategoryTotals> sumByCategory();
+
+  // Đổi khi danh sách đổi: update tăng tổng version, id IDENTITY không dùng lại nên thêm mới làm tăng max id,
+  // còn xoá (không kèm thêm mới) làm giảm count. Một câu aggregate thay vì tải và serialize cả bảng
+  @Query("select count(p) as products, coalesce(sum(p.version), 0) as versionSum, coalesce(max(p.id), 0) as maxId from Product p")
+  ProductListVersion listVersion();
+
+  // Điều chỉnh tồn kho trong một câu UPDATE có điều kiện: không đọc trước, không mất cập nhật khi chạy song song.
+  // Trả về 0 khi không có sản phẩm hoặc kết quả ra ngoài [0, 99999]
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Product p set p.quantity = p.quantity + :delta, p.version = p.version + 1 "
+      + "where p.id = :id and p.quantity + :delta between 0 and 99999")
+  int adjustQuantity(@Param("id") long id, @Param("delta") int delta);
+}
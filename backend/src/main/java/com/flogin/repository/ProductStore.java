@@ -0,0 +1,47 @@
+package com.flogin.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.flogin.dto.CategoryTotals;
+import com.flogin.dto.ProductListVersion;
+import com.flogin.dto.ProductSummary;
+import com.flogin.entity.Product;
+
+/**
+ * Các thao tác trên products mà service dùng. ProductRepository (Spring Data JPA) cài đặt qua JpaRepository,
+ * LogProductRepository cài đặt trên ProductLogStore (profile logstore). Ý nghĩa từng truy vấn xem ProductRepository.
+ */
+public interface ProductStore extends ProductFieldsRepository {
+
+  <S extends Product> S save(S entity);
+
+  Optional<Product> findById(Long id);
+
+  boolean existsById(Long id);
+
+  List<Product> findAll();
+
+  Page<Product> findAll(Pageable pageable);
+
+  List<Product> findAllById(Iterable<Long> ids);
+
+  void deleteById(Long id);
+
+  List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+  List<ProductSummary> findSummariesAfter(long id, Limit limit);
+
+  Stream<Product> streamAllOrderById();
+
+  List<CategoryTotals> sumByCategory();
+
+  ProductListVersion listVersion();
+
+  int adjustQuantity(long id, int delta);
+}
@@ -0,0 +1,258 @@
+package com.flogin.repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * DataSource cho transaction readOnly: chọn một replica (round-robin hoặc ít kết nối đang dùng nhất),
+ * bỏ qua replica trễ hơn maxLag hoặc lỗi kết nối; không còn replica nào thì dùng primary.
+ * Được gắn làm readOnlyDataSource của LazyConnectionDataSourceProxy (xem ReplicaDataSourceConfig).
+ *
+ * Chỉ transaction gắn nhãn REPLICA mới đọc từ replica; readOnly khác (nạp cache, snapshot, bộ đếm giữ chỗ,
+ * index...) vẫn đọc primary, vì dữ liệu cũ từ replica sẽ bị giữ lại lâu hơn độ trễ replication.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+  /** Nhãn cho @Transactional(readOnly = true, label = REPLICA): kết quả trả thẳng cho client, chấp nhận trễ tới maxLag. */
+  public static final String REPLICA = "replica";
+
+  // Transaction đang chạy trên thread này có nhãn REPLICA
+  private static final ThreadLocal<Boolean> replicaAllowed = new ThreadLocal<>();
+
+  /**
+   * Transaction manager gọi khi bắt đầu transaction mới (doBegin), trước khi có kết nối thật.
+   * Transaction lồng bên trong dùng lại kết nối của transaction ngoài nên không gọi lại.
+   */
+  public static void begin(TransactionDefinition definition) {
+    if (definition.isReadOnly() && definition instanceof TransactionAttribute attr && attr.getLabels().contains(REPLICA)) {
+      replicaAllowed.set(Boolean.TRUE);
+    } else {
+      replicaAllowed.remove();
+    }
+  }
+
+  /** Transaction manager gọi khi transaction kết thúc (doCleanupAfterCompletion). */
+  public static void end() {
+    replicaAllowed.remove();
+  }
+
+  static boolean isReplicaAllowed() {
+    return replicaAllowed.get() != null;
+  }
+
+  public enum Selection {
+    ROUND_ROBIN, LEAST_CONNECTIONS;
+
+    public static Selection parse(String raw) {
+      return valueOf(raw.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+  }
+
+  static final class Replica {
+    final String name;
+    final DataSource dataSource;
+    volatile boolean healthy = true;
+    // Giây trễ đo được lần gần nhất; NaN khi không đo được
+    volatile double lagSeconds = Double.NaN;
+    volatile Counter routed;
+
+    Replica(String name, DataSource dataSource) {
+      this.name = name;
+      this.dataSource = dataSource;
+    }
+
+    int activeConnections() {
+      if (dataSource instanceof HikariDataSource h) {
+        HikariPoolMXBean pool = h.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections();
+      }
+      return 0;
+    }
+  }
+
+  private final DataSource primary;
+  private final List<Replica> replicas;
+  private final Selection selection;
+  private final Duration maxLag;
+  private final String lagQuery;
+  private final String lagColumn;
+  private final AtomicInteger next = new AtomicInteger();
+  private volatile Counter fallbacks;
+
+  /**
+   * @param lagQuery câu đo độ trễ chạy trên từng replica, đọc cột lagColumn (giây) của dòng đầu.
+   *                 Không có dòng hoặc giá trị NULL (replication dừng) là replica không dùng được.
+   *                 Rỗng thì không đo, replica luôn được coi là kịp.
+   */
+  public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Selection selection,
+                                  Duration maxLag, String lagQuery, String lagColumn) {
+    this.primary = primary;
+    this.replicas = new ArrayList<>(replicas.size());
+    replicas.forEach((name, ds) -> this.replicas.add(new Replica(name, ds)));
+    this.selection = selection;
+    this.maxLag = maxLag;
+    this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+    this.lagColumn = lagColumn;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return connect(DataSource::getConnection);
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return connect(ds -> ds.getConnection(username, password));
+  }
+
+  private interface Connect {
+    Connection from(DataSource ds) throws SQLException;
+  }
+
+  private Connection connect(Connect connect) throws SQLException {
+    if (!isReplicaAllowed()) return connect.from(primary);
+    Replica r = choose();
+    if (r == null) return connect.from(fallback());
+    try {
+      Connection con = connect.from(r.dataSource);
+      Counter c = r.routed;
+      if (c != null) c.increment();
+      return con;
+    } catch (SQLException ex) {
+      // Replica không kết nối được: bỏ qua tới lần kiểm tra độ trễ kế tiếp
+      r.healthy = false;
+      log.warn("Không lấy được kết nối từ replica {}, chuyển sang primary", r.name, ex);
+      return connect.from(fallback());
+    }
+  }
+
+  Replica choose() {
+    int n = replicas.size();
+    if (selection == Selection.LEAST_CONNECTIONS) {
+      Replica best = null;
+      int bestActive = Integer.MAX_VALUE;
+      for (Replica r : replicas) {
+        if (!r.healthy) continue;
+        int active = r.activeConnections();
+        if (active < bestActive) {
+          best = r;
+          bestActive = active;
+        }
+      }
+      return best;
+    }
+    int start = next.getAndIncrement();
+    for (int i = 0; i < n; i++) {
+      Replica r = replicas.get(Math.floorMod(start + i, n));
+      if (r.healthy) return r;
+    }
+    return null;
+  }
+
+  private DataSource fallback() {
+    Counter c = fallbacks;
+    if (c != null) c.increment();
+    return primary;
+  }
+
+  /** Đo độ trễ từng replica; trễ quá maxLag hoặc lỗi thì tạm ngừng gửi đọc tới replica đó. */
+  @Scheduled(fixedDelayString = "${flogin.datasource.replica-lag-check-interval:PT5S}")
+  public void checkLag() {
+    for (Replica r : replicas) {
+      boolean wasHealthy = r.healthy;
+      if (lagQuery == null) {
+        r.lagSeconds = 0;
+        r.healthy = true;
+      } else {
+        r.lagSeconds = measureLag(r);
+        r.healthy = !Double.isNaN(r.lagSeconds) && r.lagSeconds <= maxLag.toMillis() / 1000.0;
+      }
+      if (wasHealthy != r.healthy) {
+        log.warn("Replica {} {} (trễ {}s)", r.name, r.healthy ? "dùng lại" : "tạm ngừng", r.lagSeconds);
+      }
+    }
+  }
+
+  private double measureLag(Replica r) {
+    try (Connection con = r.dataSource.getConnection();
+         Statement st = con.createStatement();
+         ResultSet rs = st.executeQuery(lagQuery)) {
+      if (!rs.next()) return Double.NaN;
+      Object v = rs.getObject(lagColumn);
+      return v instanceof Number num ? num.doubleValue() : Double.NaN;
+    } catch (SQLException ex) {
+      log.debug("Không đo được độ trễ của replica {}", r.name, ex);
+      return Double.NaN;
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    for (Replica r : replicas) {
+      // Pool replica không phải bean nên Spring Boot không gắn metric hikaricp_* (tag pool = tên replica)
+      if (r.dataSource instanceof HikariDataSource h && h.getMetricsTrackerFactory() == null) {
+        try {
+          h.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        } catch (IllegalStateException ex) {
+          log.debug("Pool {} đã khởi động, bỏ qua metric hikaricp", r.name);
+        }
+      }
+      r.routed = Counter.builder("flogin.datasource.routed")
+          .description("Kết nối đọc được cấp từ replica")
+          .tag("datasource", r.name)
+          .register(registry);
+      Gauge.builder("flogin.datasource.replica.lag", r, x -> x.lagSeconds)
+          .description("Độ trễ replication đo lần gần nhất (giây)")
+          .baseUnit("seconds")
+          .tag("datasource", r.name)
+          .register(registry);
+      Gauge.builder("flogin.datasource.replica.healthy", r, x -> x.healthy ? 1 : 0)
+          .tag("datasource", r.name)
+          .register(registry);
+    }
+    fallbacks = Counter.builder("flogin.datasource.routed")
+        .description("Kết nối đọc phải lấy từ primary vì không có replica dùng được")
+        .tag("datasource", "primary")
+        .register(registry);
+  }
+
+  @Override
+  public void close() {
+    for (Replica r : replicas) {
+      if (r.dataSource instanceof AutoCloseable c) {
+        try {
+          c.close();
+        } catch (Exception ex) {
+          log.warn("Đóng replica {} lỗi", r.name, ex);
+        }
+      }
+    }
+  }
+}
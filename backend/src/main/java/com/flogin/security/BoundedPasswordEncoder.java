@@ -0,0 +1,124 @@
+package com.flogin.security;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Chạy matches() của BCrypt trên một thread pool riêng có kích thước và hàng đợi giới hạn,
+ * để một đợt login dồn dập không chiếm hết thread của Tomcat bằng việc băm mật khẩu.
+ * Hàng đợi đầy thì ném PasswordVerifierBusyException ngay thay vì xếp hàng vô hạn.
+ * encode() ít dùng nên vẫn chạy trên thread gọi.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder, DisposableBean {
+  private final PasswordEncoder delegate;
+  private final ThreadPoolExecutor executor;
+  private final Duration timeout;
+  private final long retryAfterSeconds;
+
+  private volatile Timer verifyTimer;
+  private volatile Counter rejectedCounter;
+
+  public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                Duration timeout, long retryAfterSeconds) {
+    this.delegate = delegate;
+    this.timeout = timeout;
+    this.retryAfterSeconds = retryAfterSeconds;
+    AtomicInteger seq = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        r -> {
+          Thread t = new Thread(r, "bcrypt-" + seq.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return delegate.encode(rawPassword);
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    Future<Boolean> result;
+    try {
+      result = executor.submit(() -> {
+        long start = System.nanoTime();
+        try {
+          return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+          Timer t = verifyTimer;
+          if (t != null) t.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+      });
+    } catch (RejectedExecutionException ex) {
+      throw busy();
+    }
+    try {
+      return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException ex) {
+      result.cancel(true);
+      throw busy();
+    } catch (InterruptedException ex) {
+      result.cancel(true);
+      Thread.currentThread().interrupt();
+      throw busy();
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException re) throw re;
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  public int getQueueDepth() { return executor.getQueue().size(); }
+  public int getActiveCount() { return executor.getActiveCount(); }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    verifyTimer = Timer.builder("flogin.auth.bcrypt.verify")
+        .description("Thời gian BCrypt matches() trên thread pool riêng")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(registry);
+    rejectedCounter = Counter.builder("flogin.auth.bcrypt.rejected")
+        .description("Số lần từ chối vì hàng đợi đầy hoặc chờ quá timeout")
+        .register(registry);
+    Gauge.builder("flogin.auth.bcrypt.queue.depth", this, BoundedPasswordEncoder::getQueueDepth)
+        .description("Số yêu cầu kiểm tra mật khẩu đang chờ")
+        .register(registry);
+    Gauge.builder("flogin.auth.bcrypt.active", this, BoundedPasswordEncoder::getActiveCount)
+        .description("Số thread đang chạy BCrypt")
+        .register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  private PasswordVerifierBusyException busy() {
+    Counter c = rejectedCounter;
+    if (c != null) c.increment();
+    return new PasswordVerifierBusyException(retryAfterSeconds);
+  }
+}
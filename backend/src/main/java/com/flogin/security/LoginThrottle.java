@@ -0,0 +1,98 @@
+package com.flogin.security;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Giới hạn số lần thử đăng nhập theo username và theo IP, chạy trước mọi truy vấn DB và BCrypt.
+ *
+ * Mỗi key là một token bucket (capacity lần thử liền nhau, hồi 1 token mỗi refill-period), lưu dưới dạng
+ * GCRA: một AtomicLong "thời điểm bucket đầy lại", cập nhật bằng CAS nên không khoá.
+ * Bucket nằm trong Caffeine giới hạn max-keys, bị bỏ khi đã đầy lại (không cần giữ trạng thái).
+ */
+@Component
+public class LoginThrottle {
+  static final class Limit {
+    final long capacity;
+    final long periodNanos;
+    final Cache<String, AtomicLong> buckets;
+
+    Limit(int capacity, Duration period, long maxKeys) {
+      this.capacity = capacity;
+      this.periodNanos = period.toNanos();
+      this.buckets = Caffeine.newBuilder()
+          .maximumSize(maxKeys)
+          .expireAfterAccess(periodNanos * capacity, TimeUnit.NANOSECONDS)
+          .build();
+    }
+  }
+
+  private final boolean enabled;
+  private final Limit byUsername;
+  private final Limit byIp;
+  private final LongSupplier nanoClock;
+
+  @Autowired
+  public LoginThrottle(@Value("${flogin.auth.throttle.enabled:true}") boolean enabled,
+                       @Value("${flogin.auth.throttle.username.capacity:5}") int usernameCapacity,
+                       @Value("${flogin.auth.throttle.username.refill-period:12s}") Duration usernamePeriod,
+                       @Value("${flogin.auth.throttle.ip.capacity:30}") int ipCapacity,
+                       @Value("${flogin.auth.throttle.ip.refill-period:2s}") Duration ipPeriod,
+                       @Value("${flogin.auth.throttle.max-keys:100000}") long maxKeys) {
+    this(usernameCapacity, usernamePeriod, ipCapacity, ipPeriod, maxKeys, System::nanoTime, enabled);
+  }
+
+  LoginThrottle(int usernameCapacity, Duration usernamePeriod, int ipCapacity, Duration ipPeriod,
+                long maxKeys, LongSupplier nanoClock) {
+    this(usernameCapacity, usernamePeriod, ipCapacity, ipPeriod, maxKeys, nanoClock, true);
+  }
+
+  private LoginThrottle(int usernameCapacity, Duration usernamePeriod, int ipCapacity, Duration ipPeriod,
+                        long maxKeys, LongSupplier nanoClock, boolean enabled) {
+    this.enabled = enabled;
+    this.byUsername = new Limit(usernameCapacity, usernamePeriod, maxKeys);
+    this.byIp = new Limit(ipCapacity, ipPeriod, maxKeys);
+    this.nanoClock = nanoClock;
+  }
+
+  /** Lấy một token của IP rồi của username; hết token thì ném LoginThrottledException. */
+  public void acquire(String username, String ip) {
+    if (!enabled) return;
+    long now = nanoClock.getAsLong();
+    if (ip != null) take(byIp, ip, now);
+    if (username != null) take(byUsername, normalize(username), now);
+  }
+
+  /** Đăng nhập đúng: trả lại bucket của username để lần sai trước đó không tính tiếp. */
+  public void reset(String username) {
+    if (username != null) byUsername.buckets.invalidate(normalize(username));
+  }
+
+  private static void take(Limit limit, String key, long now) {
+    AtomicLong full = limit.buckets.get(key, k -> new AtomicLong(now));
+    long burst = limit.capacity * limit.periodNanos;
+    while (true) {
+      long current = full.get();
+      long next = Math.max(current, now) + limit.periodNanos;
+      long over = next - now - burst;
+      if (over > 0) {
+        throw new LoginThrottledException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(over + 999_999_999L)));
+      }
+      if (full.compareAndSet(current, next)) return;
+    }
+  }
+
+  private static String normalize(String username) {
+    return username.trim().toLowerCase(Locale.ROOT);
+  }
+}
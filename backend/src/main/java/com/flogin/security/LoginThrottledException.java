@@ -0,0 +1,15 @@
+package com.flogin.security;
+
+/**
+ * Bucket đăng nhập của username hoặc IP đã hết token; AuthController trả 429 + Retry-After.
+ */
+public class LoginThrottledException extends RuntimeException {
+  private final long retryAfterSeconds;
+
+  public LoginThrottledException(long retryAfterSeconds) {
+    super("Too many login attempts");
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
@@ -0,0 +1,15 @@
+package com.flogin.security;
+
+/**
+ * Hàng đợi kiểm tra mật khẩu đã đầy (hoặc chờ quá lâu); AuthController trả 503 + Retry-After.
+ */
+public class PasswordVerifierBusyException extends RuntimeException {
+  private final long retryAfterSeconds;
+
+  public PasswordVerifierBusyException(long retryAfterSeconds) {
+    super("Password verifier is saturated");
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
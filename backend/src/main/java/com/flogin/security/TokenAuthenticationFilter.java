@@ -0,0 +1,54 @@
+package com.flogin.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Checks the Bearer token on protected endpoints using only {@link TokenService}.
+ * Preflight requests pass through so CORS keeps working.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+  public static final String USERNAME_ATTRIBUTE = "flogin.username";
+  private static final String BEARER = "Bearer ";
+
+  private final TokenService tokens;
+
+  public TokenAuthenticationFilter(TokenService tokens) {
+    this.tokens = tokens;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return HttpMethod.OPTIONS.matches(request.getMethod());
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+
+    String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+    String username = header != null && header.startsWith(BEARER)
+        ? tokens.verify(header.substring(BEARER.length()).trim())
+        : null;
+
+    if (username == null) {
+      response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+      response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response.setCharacterEncoding("UTF-8");
+      response.getWriter().write("{\"success\":false,\"message\":\"Token khong hop le hoac da het han\"}");
+      return;
+    }
+
+    request.setAttribute(USERNAME_ATTRIBUTE, username);
+    filterChain.doFilter(request, response);
+  }
+}
@@ -0,0 +1,106 @@
+package com.flogin.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Access token không trạng thái: base64url("username|exp") + "." + base64url(HMAC-SHA256).
+ * Kiểm tra chỉ cần secret trong bộ nhớ, không đọc DB hay state dùng chung,
+ * nên mọi node có cùng secret đều xác thực được token của nhau.
+ */
+@Component
+public class TokenService {
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+
+  private final SecretKeySpec key;
+  private final Duration ttl;
+  private final Clock clock;
+  // Mac không thread-safe: clone từ bản mẫu đã init cho mỗi lần ký.
+  // Không dùng ThreadLocal vì virtual thread không được tái sử dụng, cache theo thread vô ích.
+  private final Mac prototype;
+
+  @Autowired
+  public TokenService(@Value("${flogin.auth.token.secret:}") String secret,
+                      @Value("${flogin.auth.token.ttl:8h}") Duration ttl) {
+    this(secret, ttl, Clock.systemUTC());
+  }
+
+  TokenService(String secret, Duration ttl, Clock clock) {
+    // Không cấu hình secret thì sinh ngẫu nhiên: chỉ dùng được khi chạy 1 node, restart là token cũ hết hạn
+    byte[] bytes = secret == null || secret.isBlank() ? randomSecret() : secret.getBytes(StandardCharsets.UTF_8);
+    this.key = new SecretKeySpec(bytes, ALGORITHM);
+    this.ttl = ttl;
+    this.clock = clock;
+    this.prototype = newMac();
+  }
+
+  public String issue(String username) {
+    long exp = clock.instant().plus(ttl).getEpochSecond();
+    String payload = B64.encodeToString((username + "|" + exp).getBytes(StandardCharsets.UTF_8));
+    return payload + "." + B64.encodeToString(sign(payload));
+  }
+
+  /** Trả về username nếu token đúng chữ ký và chưa hết hạn, ngược lại null. */
+  public String verify(String token) {
+    if (token == null) return null;
+    int dot = token.indexOf('.');
+    if (dot <= 0 || dot != token.lastIndexOf('.')) return null;
+    String payload = token.substring(0, dot);
+    try {
+      byte[] signature = B64D.decode(token.substring(dot + 1));
+      if (!MessageDigest.isEqual(sign(payload), signature)) return null;
+
+      String claims = new String(B64D.decode(payload), StandardCharsets.UTF_8);
+      int sep = claims.lastIndexOf('|');
+      if (sep <= 0) return null;
+      long exp = Long.parseLong(claims.substring(sep + 1));
+      if (clock.instant().getEpochSecond() >= exp) return null;
+      return claims.substring(0, sep);
+    } catch (IllegalArgumentException e) {
+      // base64 hoặc exp sai định dạng
+      return null;
+    }
+  }
+
+  private byte[] sign(String payload) {
+    return copyMac().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private Mac copyMac() {
+    try {
+      return (Mac) prototype.clone();
+    } catch (CloneNotSupportedException e) {
+      return newMac();
+    }
+  }
+
+  private Mac newMac() {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static byte[] randomSecret() {
+    byte[] bytes = new byte[32];
+    new SecureRandom().nextBytes(bytes);
+    return bytes;
+  }
+}
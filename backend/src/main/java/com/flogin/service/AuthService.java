@@ -1,7 +1,6 @@
 package com.flogin.service;
 
 import java.util.Set;
-import java.util.UUID;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -12,7 +11,9 @@ import com.flogin.dto.LoginRequest;
 import com.flogin.dto.LoginResponse;
 import com.flogin.entity.AuthUser;
 import com.flogin.repository.AuthUserRepository;
+import com.flogin.security.TokenService;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 
@@ -21,9 +22,12 @@ public class AuthService {
   private final AuthUserRepository repo;
   private final PasswordEncoder encoder;
   private final Validator vali;
+  private final TokenService tokens;
+  private final UsernameBloomFilter usernames;
 
-  public AuthService(AuthUserRepository repo, PasswordEncoder encoder, Validator vali) {
-    this.repo = repo; this.encoder = encoder; this.vali = vali;
+  public AuthService(AuthUserRepository repo, PasswordEncoder encoder, Validator vali, TokenService tokens,
+                     UsernameBloomFilter usernames) {
+    this.repo = repo; this.encoder = encoder; this.vali = vali; this.tokens = tokens; this.usernames = usernames;
   }
 
   private String firstViolation(LoginRequest req) {
@@ -44,14 +48,21 @@ public class AuthService {
     return hash != null && encoder.matches(raw, hash);
   }
 
+  // Tổng thời gian đăng nhập (validation + DB + BCrypt); riêng BCrypt xem flogin.auth.bcrypt.verify
+  @Timed(value = "flogin.auth.authenticate", histogram = true)
   public LoginResponse authenticate(LoginRequest req) {
     String violation = firstViolation(req);
     if (violation != null) {
       return new LoginResponse(false, violation, null, null);
     }
 
-    AuthUser user = repo.findByUsername(req.getUsername()).orElse(null);
+    long start = System.nanoTime();
+    // Bloom filter nói chắc chắn không có thì khỏi hỏi DB
+    boolean maybe = usernames.mightContain(req.getUsername());
+    AuthUser user = maybe ? repo.findByUsername(req.getUsername()).orElse(null) : null;
     if (user == null) {
+      if (maybe) usernames.recordFalsePositive();
+      usernames.padMiss(start);
       return new LoginResponse(false, "Username khong ton tai", null, null);
     }
 
@@ -59,7 +70,7 @@ public class AuthService {
       return new LoginResponse(false, "Sai mat khau", null, null);
     }
 
-    String token = UUID.randomUUID().toString();
+    String token = tokens.issue(user.getUsername());
     return new LoginResponse(true, "Dang nhap thanh cong", token, user.getUsername());
   }
 }
@@ -0,0 +1,30 @@
+package com.flogin.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.flogin.entity.AuthUser;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA listener của AuthUser: username mới (hoặc vừa đổi) được thêm vào UsernameBloomFilter ngay khi ghi.
+ * Hibernate lấy instance từ Spring (SpringBeanContainer) lúc dựng EntityManagerFactory, khi đó filter
+ * (phụ thuộc repository) chưa tạo được, nên chỉ lấy filter lúc có sự kiện.
+ * Transaction rollback thì username vẫn nằm trong filter: chỉ thêm một dương tính giả, không sai.
+ */
+@Component
+public class AuthUserListener {
+  private final ObjectProvider<UsernameBloomFilter> usernames;
+
+  public AuthUserListener(ObjectProvider<UsernameBloomFilter> usernames) {
+    this.usernames = usernames;
+  }
+
+  @PostPersist
+  @PostUpdate
+  void added(AuthUser user) {
+    usernames.ifAvailable(f -> f.add(user.getUsername()));
+  }
+}
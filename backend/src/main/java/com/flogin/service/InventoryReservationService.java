@@ -0,0 +1,380 @@
+package com.flogin.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.flogin.CacheConfig;
+import com.flogin.entity.Product;
+import com.flogin.repository.ProductBulkWriter;
+import com.flogin.repository.ProductStore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Giữ chỗ tồn kho trong bộ nhớ cho luồng checkout.
+ *
+ * Mỗi sản phẩm có một bộ đếm available (AtomicInteger, trừ bằng CAS, không khoá) = quantity trong DB
+ * + phần đã bán chưa ghi - phần đang giữ chỗ. reserve/confirm/release không chạm DB; phần đã confirm
+ * được cộng dồn theo sản phẩm và ghi xuống bảng products theo lô mỗi flush-interval (write-behind).
+ * Giữ chỗ quá TTL tự trả lại kho. PUT, PATCH /stock và bulk không được giảm quantity xuống dưới phần đang
+ * giữ chỗ và đã bán chưa ghi (409, kiểm tra trước khi ghi).
+ *
+ * Chỉ đúng khi một node giữ bộ đếm của sản phẩm; số đã confirm nhưng chưa flush sẽ mất nếu process chết.
+ */
+@Service
+public class InventoryReservationService implements MeterBinder, DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(InventoryReservationService.class);
+
+  // Ràng buộc của Product.quantity
+  static final int MAX_QUANTITY = 99_999;
+
+  public record Reservation(String id, long productId, int quantity, Instant expiresAt) {}
+
+  static final class Stock {
+    final AtomicInteger available;
+    // Đang giữ chỗ, chưa confirm/release/hết hạn
+    final AtomicInteger held = new AtomicInteger();
+    // Đã confirm nhưng chưa ghi xuống DB (âm = đã bán)
+    final AtomicInteger pending = new AtomicInteger();
+    // Không biết quantity trong DB đổi bao nhiêu: lần dùng sau đọc lại, giữ nguyên held và pending
+    volatile boolean stale;
+    Stock(int available) { this.available = new AtomicInteger(available); }
+  }
+
+  // Kết quả một lượt flush, áp vào bộ đếm sau khi transaction commit.
+  // oversold: phần đã bán không ghi được vì DB không đủ tồn kho; retry: phần chưa ghi, trả lại pending
+  private record Flushed(List<Long> written, List<Long> deleted, Map<Long, Integer> oversold, Map<Long, Integer> retry) {}
+
+  private final ProductStore repo;
+  private final ProductBulkWriter writer;
+  private final ApplicationEventPublisher events;
+  private final TransactionTemplate tx;
+  private final CacheManager cacheManager;
+  private final Duration ttl;
+  private final int batchSize;
+  private final Clock clock;
+
+  private final ConcurrentHashMap<Long, Stock> stocks = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Reservation> reservations = new ConcurrentHashMap<>();
+  // Giữ chỗ theo giây hết hạn: mỗi lượt quét chỉ duyệt các giây đã qua, không duyệt toàn bộ
+  private final ConcurrentSkipListMap<Long, ConcurrentLinkedQueue<Reservation>> expiry = new ConcurrentSkipListMap<>();
+
+  private volatile Counter rejected;
+  private volatile Counter expired;
+  private volatile Counter oversold;
+
+  @Autowired
+  public InventoryReservationService(ProductStore repo, ProductBulkWriter writer, ApplicationEventPublisher events,
+                                     PlatformTransactionManager txManager, CacheManager cacheManager,
+                                     @Value("${flogin.inventory.reservation-ttl:10m}") Duration ttl,
+                                     @Value("${flogin.products.bulk.batch-size:500}") int batchSize) {
+    this(repo, writer, events, txManager, cacheManager, ttl, batchSize, Clock.systemUTC());
+  }
+
+  InventoryReservationService(ProductStore repo, ProductBulkWriter writer, ApplicationEventPublisher events,
+                              PlatformTransactionManager txManager, CacheManager cacheManager,
+                              Duration ttl, int batchSize, Clock clock) {
+    this.repo = repo;
+    this.writer = writer;
+    this.events = events;
+    this.tx = new TransactionTemplate(txManager);
+    this.cacheManager = cacheManager;
+    this.ttl = ttl;
+    this.batchSize = batchSize;
+    this.clock = clock;
+  }
+
+  public Reservation reserve(long productId, int quantity) {
+    if (quantity < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Số lượng giữ chỗ phải lớn hơn 0");
+    }
+    Stock s = stock(productId);
+    // Tăng held trước khi trừ available: nạp lại (stale) chen giữa chỉ có thể tính thiếu, không tính dư
+    s.held.addAndGet(quantity);
+    if (!tryTake(s, quantity)) {
+      s.held.addAndGet(-quantity);
+      Counter c = rejected;
+      if (c != null) c.increment();
+      throw new ResponseStatusException(HttpStatus.CONFLICT, "Không đủ tồn kho");
+    }
+
+    Reservation r = new Reservation(newId(), productId, quantity, clock.instant().plus(ttl));
+    reservations.put(r.id(), r);
+    expiry.computeIfAbsent(r.expiresAt().getEpochSecond(), k -> new ConcurrentLinkedQueue<>()).add(r);
+    return r;
+  }
+
+  /** Chốt đơn: số lượng đã giữ trở thành đã bán, chờ flush xuống DB. */
+  public Reservation confirm(String reservationId) {
+    Reservation r = take(reservationId);
+    Stock s = stocks.get(r.productId());
+    // Bộ đếm chỉ bị bỏ khi sản phẩm đã bị xoá
+    if (s == null) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy sản phẩm");
+    }
+    s.pending.addAndGet(-r.quantity());
+    s.held.addAndGet(-r.quantity());
+    return r;
+  }
+
+  /** Huỷ giữ chỗ, trả lại kho ngay. */
+  public Reservation release(String reservationId) {
+    Reservation r = take(reservationId);
+    giveBack(r);
+    return r;
+  }
+
+  public int available(long productId) {
+    return stock(productId).available.get();
+  }
+
+  @Scheduled(fixedDelayString = "${flogin.inventory.expiry-interval:PT1S}")
+  public void expireReservations() {
+    long now = clock.instant().getEpochSecond();
+    Map.Entry<Long, ConcurrentLinkedQueue<Reservation>> bucket;
+    while ((bucket = expiry.firstEntry()) != null && bucket.getKey() < now) {
+      expiry.remove(bucket.getKey(), bucket.getValue());
+      for (Reservation r : bucket.getValue()) {
+        // Đã confirm/release thì không còn trong map, bỏ qua
+        if (reservations.remove(r.id(), r)) {
+          giveBack(r);
+          Counter c = expired;
+          if (c != null) c.increment();
+        }
+      }
+    }
+  }
+
+  /** Ghi dồn số lượng đã bán xuống bảng products, một batch UPDATE cho mọi sản phẩm có thay đổi. */
+  @Scheduled(fixedDelayString = "${flogin.inventory.flush-interval:PT1S}")
+  public void flush() {
+    Map<Long, Integer> deltas = new HashMap<>();
+    stocks.forEach((id, s) -> {
+      int d = s.pending.getAndSet(0);
+      if (d != 0) deltas.put(id, d);
+    });
+    if (deltas.isEmpty()) return;
+
+    Flushed flushed;
+    try {
+      flushed = tx.execute(status -> write(deltas));
+    } catch (RuntimeException ex) {
+      // Trả lại pending để lượt sau ghi tiếp
+      deltas.forEach((id, d) -> {
+        Stock s = stocks.get(id);
+        if (s != null) s.pending.addAndGet(d);
+      });
+      log.warn("Flush tồn kho thất bại cho {} sản phẩm, sẽ thử lại", deltas.size(), ex);
+      return;
+    }
+    flushed.deleted().forEach(stocks::remove);
+    flushed.retry().forEach((id, d) -> {
+      Stock s = stocks.get(id);
+      if (s != null) s.pending.addAndGet(d);
+    });
+    // DB đã đổi ngoài bộ đếm (ghi trực tiếp, node khác): lần dùng sau đọc lại quantity vừa ghi
+    flushed.oversold().forEach((id, units) -> {
+      Stock s = stocks.get(id);
+      if (s != null) s.stale = true;
+      Counter c = oversold;
+      if (c != null) c.increment(units);
+    });
+    Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+    if (cache != null) flushed.written().forEach(cache::evict);
+  }
+
+  private Flushed write(Map<Long, Integer> deltas) {
+    List<Long> ids = new ArrayList<>(deltas.keySet());
+    // Khoá các dòng trước khi ghi: biết quantity trước và sau, kẹp delta trong [0, 99999] và phát sự kiện
+    // đúng với giá trị đã ghi (listener như thống kê theo category không bị lệch)
+    Map<Long, Product> current = writer.lockAll(ids, batchSize);
+    List<Long> deleted = new ArrayList<>();
+    Map<Long, Integer> oversoldUnits = new HashMap<>();
+    List<Map.Entry<Long, Integer>> entries = new ArrayList<>(ids.size());
+    for (Long id : ids) {
+      Product p = current.get(id);
+      if (p == null) {
+        // Sản phẩm đã bị xoá: phần đã bán không còn chỗ ghi
+        deleted.add(id);
+        continue;
+      }
+      int delta = deltas.get(id);
+      int applied = Math.max(0, Math.min(MAX_QUANTITY, p.getQuantity() + delta)) - p.getQuantity();
+      if (applied != delta) {
+        log.warn("Bán vượt tồn kho sản phẩm {}: đã bán {} nhưng DB chỉ còn {}", id, -delta, p.getQuantity());
+        oversoldUnits.put(id, applied - delta);
+      }
+      if (applied != 0) entries.add(Map.entry(id, applied));
+    }
+
+    int[] counts = writer.adjustQuantities(entries, batchSize);
+    List<Long> written = new ArrayList<>(entries.size());
+    Map<Long, Integer> retry = new HashMap<>();
+    for (int i = 0; i < counts.length; i++) {
+      Map.Entry<Long, Integer> e = entries.get(i);
+      Long id = e.getKey();
+      if (counts[i] == 0) {
+        // Dòng đã khoá nên chỉ xảy ra khi backend không có khoá dòng (logstore): lượt sau ghi lại
+        retry.put(id, deltas.get(id));
+        oversoldUnits.remove(id);
+        continue;
+      }
+      written.add(id);
+      Product previous = current.get(id);
+      Product p = ProductChangedEvent.snapshot(previous);
+      p.setQuantity(previous.getQuantity() + e.getValue());
+      if (previous.getVersion() != null) p.setVersion(previous.getVersion() + 1);
+      events.publishEvent(ProductChangedEvent.stockFlushed(previous, p));
+    }
+    return new Flushed(written, deleted, oversoldUnits, retry);
+  }
+
+  /**
+   * Trong transaction của PUT, PATCH /stock, bulk, trước khi ghi: phần giảm quantity phải còn đủ cho phần
+   * đang giữ chỗ và đã bán chưa ghi, không thì 409 và không ghi gì (log store cũng vậy, dù không rollback được).
+   * Phần giảm được trừ vào available ngay (CAS) để giữ chỗ mới không lấy mất, lần ghi lỗi/rollback thì trả lại;
+   * phần tăng chỉ áp sau commit (onProductChanged).
+   */
+  @EventListener
+  public void onProductChanging(ProductChangingEvent e) {
+    Stock s = stocks.get(e.getId());
+    int diff = e.getQuantityDelta();
+    if (s == null || diff >= 0) return;
+    if (!tryTake(s, -diff)) {
+      throw new ResponseStatusException(HttpStatus.CONFLICT, "Tồn kho mới thấp hơn số lượng đang giữ chỗ hoặc đã bán");
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status != STATUS_COMMITTED) s.available.addAndGet(-diff);
+        }
+      });
+    }
+  }
+
+  // Sau commit: phần tăng quantity từ PUT, PATCH /stock, bulk; xoá sản phẩm thì bỏ bộ đếm
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductChanged(ProductChangedEvent e) {
+    if (e.isStockFlush()) return;
+    if (e.getType() == ProductChangedEvent.Type.DELETED) {
+      stocks.remove(e.getId());
+      return;
+    }
+    Stock s = stocks.get(e.getId());
+    if (s == null || e.getType() != ProductChangedEvent.Type.UPDATED) return;
+    if (e.getPrevious() == null) {
+      // Không biết chênh lệch: lần dùng sau đọc lại quantity từ DB, giữ phần đang giữ chỗ và đã bán chưa ghi
+      log.warn("Thiếu trạng thái cũ của sản phẩm {}, nạp lại tồn kho giữ chỗ", e.getId());
+      s.stale = true;
+      return;
+    }
+    int diff = e.getProduct().getQuantity() - e.getPrevious().getQuantity();
+    if (diff > 0) s.available.addAndGet(diff);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("flogin.inventory.reservations.active", reservations, Map::size)
+        .description("Giữ chỗ chưa confirm/release/hết hạn")
+        .register(registry);
+    rejected = Counter.builder("flogin.inventory.reserve.rejected")
+        .description("Giữ chỗ bị từ chối vì không đủ tồn kho")
+        .register(registry);
+    expired = Counter.builder("flogin.inventory.reservations.expired")
+        .description("Giữ chỗ quá TTL được trả lại kho")
+        .register(registry);
+    oversold = Counter.builder("flogin.inventory.oversold")
+        .description("Số lượng đã bán (confirm) không trừ được vào DB vì không đủ tồn kho")
+        .register(registry);
+  }
+
+  // Tắt ứng dụng: ghi nốt phần đã bán. Giữ chỗ chưa confirm chỉ nằm trong bộ nhớ nên tự mất
+  @Override
+  public void destroy() {
+    flush();
+  }
+
+  private Stock stock(long productId) {
+    Stock s = stocks.get(productId);
+    if (s != null && !s.stale) return s;
+    // Xoá cờ trước khi đọc: đánh dấu mới trong lúc đọc sẽ làm lần sau đọc lại
+    if (s != null) s.stale = false;
+    // Đọc ngoài computeIfAbsent để không giữ khoá bin của map trong lúc chờ DB
+    Integer found = repo.findById(productId).map(Product::getQuantity).orElse(null);
+    if (found == null) {
+      if (s != null) stocks.remove(productId, s);
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy sản phẩm");
+    }
+    int quantity = found;
+    if (s != null) {
+      s.available.set(quantity + s.pending.get() - s.held.get());
+      return s;
+    }
+    Stock loaded = new Stock(quantity);
+    s = stocks.putIfAbsent(productId, loaded);
+    return s != null ? s : loaded;
+  }
+
+  // Trừ quantity khỏi available nếu còn đủ (CAS, không khoá)
+  private static boolean tryTake(Stock s, int quantity) {
+    int current;
+    do {
+      current = s.available.get();
+      if (current < quantity) return false;
+    } while (!s.available.compareAndSet(current, current - quantity));
+    return true;
+  }
+
+  private Reservation take(String reservationId) {
+    Reservation r = reservationId == null ? null : reservations.remove(reservationId);
+    if (r == null) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Giữ chỗ không tồn tại hoặc đã hết hạn");
+    }
+    return r;
+  }
+
+  private void giveBack(Reservation r) {
+    Stock s = stocks.get(r.productId());
+    if (s == null) return;
+    s.held.addAndGet(-r.quantity());
+    s.available.addAndGet(r.quantity());
+  }
+
+  // Id là thứ duy nhất để confirm/huỷ nên phải khó đoán
+  private static String newId() {
+    return UUID.randomUUID().toString();
+  }
+}
@@ -0,0 +1,165 @@
+package com.flogin.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.flogin.CacheConfig;
+import com.flogin.dto.BulkItemResult;
+import com.flogin.dto.BulkResponse;
+import com.flogin.dto.ProductBulkItem;
+import com.flogin.entity.Product;
+import com.flogin.repository.ProductBulkWriter;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Tạo/cập nhật nhiều sản phẩm trong một request và một transaction.
+ * Toàn bộ danh sách được validate trước; có phần tử lỗi (kể cả id lặp lại) thì không ghi gì cả.
+ * Các dòng cần cập nhật bị khoá (SELECT ... FOR UPDATE) từ lúc đọc trạng thái cũ tới hết transaction.
+ */
+@Service
+public class ProductBulkService {
+  private final ProductBulkWriter writer;
+  private final Validator vali;
+  private final ApplicationEventPublisher events;
+  private final int batchSize;
+  private final int maxItems;
+
+  public ProductBulkService(ProductBulkWriter writer, Validator vali,
+                            ApplicationEventPublisher events,
+                            @Value("${flogin.products.bulk.batch-size:500}") int batchSize,
+                            @Value("${flogin.products.bulk.max-items:10000}") int maxItems) {
+    this.writer = writer;
+    this.vali = vali;
+    this.events = events;
+    this.batchSize = batchSize;
+    this.maxItems = maxItems;
+  }
+
+  @Transactional
+  @CacheEvict(cacheNames = CacheConfig.PRODUCTS, allEntries = true)
+  public BulkResponse upsert(List<ProductBulkItem> items) {
+    if (items == null || items.isEmpty()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Danh sách sản phẩm rỗng");
+    }
+    if (items.size() > maxItems) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tối đa " + maxItems + " sản phẩm mỗi request");
+    }
+
+    BulkItemResult[] results = new BulkItemResult[items.size()];
+    List<Product> inserts = new ArrayList<>();
+    List<Integer> insertIdx = new ArrayList<>();
+    List<Product> updates = new ArrayList<>();
+    List<Integer> updateIdx = new ArrayList<>();
+    Set<Long> seen = new HashSet<>();
+    boolean invalid = false;
+
+    for (int i = 0; i < items.size(); i++) {
+      ProductBulkItem item = items.get(i);
+      String violation = firstViolation(item);
+      if (violation != null) {
+        results[i] = new BulkItemResult(i, item == null ? null : item.getId(), BulkItemResult.Status.INVALID, violation);
+        invalid = true;
+        continue;
+      }
+      // Cùng id hai lần sẽ dùng chung một trạng thái cũ và bị tăng version hai lần
+      if (item.getId() != null && !seen.add(item.getId())) {
+        results[i] = new BulkItemResult(i, item.getId(), BulkItemResult.Status.INVALID, "Trùng id trong danh sách");
+        invalid = true;
+        continue;
+      }
+      Product p = toProduct(item);
+      if (item.getId() == null) {
+        inserts.add(p);
+        insertIdx.add(i);
+      } else {
+        updates.add(p);
+        updateIdx.add(i);
+      }
+    }
+    if (invalid) {
+      for (int i = 0; i < results.length; i++) {
+        if (results[i] == null) results[i] = new BulkItemResult(i, items.get(i).getId(), BulkItemResult.Status.INVALID, "Không được ghi do batch có phần tử lỗi");
+      }
+      return new BulkResponse(List.of(results));
+    }
+
+    // Khoá trước khi ghi: PUT, PATCH /stock hay flush tồn kho không chen được vào giữa lúc đọc và UPDATE,
+    // nên version và trạng thái cũ gửi cho listener (thống kê, giữ chỗ) đúng với dòng bị ghi đè
+    Map<Long, Product> previous = updates.isEmpty()
+        ? Map.of() : writer.lockAll(updates.stream().map(Product::getId).toList(), batchSize);
+    for (Product p : updates) {
+      Product before = previous.get(p.getId());
+      if (before == null) continue;
+      // Kiểm tra giữ chỗ trước mọi lần ghi, kể cả INSERT: log store không rollback được
+      events.publishEvent(new ProductChangingEvent(p.getId(), p.getQuantity() - before.getQuantity()));
+      // UPDATE tăng version = version + 1 trong SQL (log store tự gán version đang lưu + 1)
+      if (before.getVersion() != null) p.setVersion(before.getVersion() + 1);
+    }
+
+    if (!inserts.isEmpty()) {
+      List<Long> ids = writer.insertAll(inserts, batchSize);
+      for (int k = 0; k < insertIdx.size(); k++) {
+        int i = insertIdx.get(k);
+        Product p = inserts.get(k);
+        p.setId(ids.get(k));
+        p.setVersion(0L);
+        results[i] = new BulkItemResult(i, p.getId(), BulkItemResult.Status.CREATED, null);
+        events.publishEvent(ProductChangedEvent.created(p));
+      }
+    }
+    if (!updates.isEmpty()) {
+      int[] counts = writer.updateAll(updates, batchSize);
+      for (int k = 0; k < updateIdx.size(); k++) {
+        int i = updateIdx.get(k);
+        Product p = updates.get(k);
+        if (counts[k] > 0) {
+          Product before = previous.get(p.getId());
+          results[i] = new BulkItemResult(i, p.getId(), BulkItemResult.Status.UPDATED, null);
+          events.publishEvent(ProductChangedEvent.updated(before, p));
+        } else {
+          results[i] = new BulkItemResult(i, p.getId(), BulkItemResult.Status.NOT_FOUND, "Không tìm thấy sản phẩm");
+        }
+      }
+    }
+    return new BulkResponse(List.of(results));
+  }
+
+  private String firstViolation(ProductBulkItem item) {
+    if (item == null) return "Phần tử rỗng";
+    Set<ConstraintViolation<ProductBulkItem>> v = vali.validate(item);
+    if (!v.isEmpty()) {
+      ConstraintViolation<ProductBulkItem> first = v.iterator().next();
+      return first.getPropertyPath() + ": " + first.getMessage();
+    }
+    try {
+      ProductService.parseCategory(item.getCategory());
+    } catch (ResponseStatusException ex) {
+      return ex.getReason();
+    }
+    return null;
+  }
+
+  private static Product toProduct(ProductBulkItem item) {
+    Product p = new Product();
+    p.setId(item.getId());
+    p.setName(item.getName());
+    p.setPrice(item.getPrice());
+    p.setQuantity(item.getQuantity());
+    p.setDescription(item.getDescription());
+    p.setCategory(ProductService.parseCategory(item.getCategory()));
+    return p;
+  }
+}
@@ -0,0 +1,103 @@
+package com.flogin.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flogin.repository.ProductStore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Body của GET /api/products đã serialize sẵn (JSON và bản gzip), dựng lại lười lần đọc đầu tiên
+ * sau mỗi thay đổi. Request thường chỉ còn là copy một byte[] ra response, không query, không Jackson.
+ *
+ * Thay đổi trên node này làm snapshot hết hiệu lực ngay qua ProductChangedEvent; thay đổi từ node khác
+ * (hoặc sửa DB trực tiếp) chỉ được thấy sau tối đa max-age.
+ */
+@Service
+public class ProductCatalogSnapshot implements MeterBinder {
+  public record Snapshot(byte[] json, byte[] gzip, String etag, long generation, long builtAt) {}
+
+  private final ProductStore repo;
+  private final ProductReadCoalescer reads;
+  private final ObjectMapper mapper;
+  private final long maxAgeNanos;
+
+  // Tăng mỗi khi catalog đổi; snapshot dựng ở thế hệ cũ coi như hết hạn
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicReference<Snapshot> current = new AtomicReference<>();
+  // Nhiều request cùng thấy snapshot hết hạn chỉ một request dựng lại cho mỗi thế hệ. Có ghi trong lúc dựng thì
+  // request sau dựng bản mới ngay, không phải chờ bản cũ xong
+  private final SingleFlight<Long, Snapshot> rebuilds = new SingleFlight<>("products.snapshot");
+
+  public ProductCatalogSnapshot(ProductStore repo, ProductReadCoalescer reads, ObjectMapper mapper,
+                                @Value("${flogin.products.snapshot.max-age:30s}") Duration maxAge) {
+    this.repo = repo;
+    this.reads = reads;
+    this.mapper = mapper;
+    this.maxAgeNanos = maxAge.toNanos();
+  }
+
+  public Snapshot get() {
+    Snapshot s = current.get();
+    if (fresh(s)) return s;
+    long gen = generation.get();
+    return rebuilds.run(gen, () -> {
+      Snapshot latest = current.get();
+      if (fresh(latest)) return latest;
+      Snapshot built = build(gen);
+      // Bản dựng xong muộn không đè bản của thế hệ mới hơn
+      current.accumulateAndGet(built, (cur, b) -> cur == null || b.generation() >= cur.generation() ? b : cur);
+      return built;
+    });
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductChanged(ProductChangedEvent e) {
+    invalidate();
+  }
+
+  public void invalidate() {
+    generation.incrementAndGet();
+  }
+
+  private boolean fresh(Snapshot s) {
+    return s != null && s.generation() == generation.get() && System.nanoTime() - s.builtAt() < maxAgeNanos;
+  }
+
+  // ETag đọc trước danh sách: có ghi chen giữa thì ETag cũ hơn body, client chỉ tải lại thêm một lần
+  private Snapshot build(long gen) {
+    long builtAt = System.nanoTime();
+    String etag = reads.listETag();
+    try {
+      byte[] json = mapper.writeValueAsBytes(repo.findAll());
+      return new Snapshot(json, gzip(json), etag, gen, builtAt);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    rebuilds.bindTo(registry);
+  }
+
+  private static byte[] gzip(byte[] data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+    try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+      gz.write(data);
+    }
+    return out.toByteArray();
+  }
+}
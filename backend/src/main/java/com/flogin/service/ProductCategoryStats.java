@@ -0,0 +1,101 @@
+package com.flogin.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.flogin.dto.CategoryStats;
+import com.flogin.dto.CategoryTotals;
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+import com.flogin.repository.ProductStore;
+
+/**
+ * Số sản phẩm, tổng tồn kho và giá trị tồn kho (price × quantity) theo Category.
+ * Nạp bằng một câu GROUP BY khi khởi động, sau đó cộng/trừ theo ProductChangedEvent,
+ * nên đọc thống kê là O(số category) bất kể catalog lớn cỡ nào.
+ */
+@Service
+public class ProductCategoryStats implements SmartInitializingSingleton {
+  private static final Logger log = LoggerFactory.getLogger(ProductCategoryStats.class);
+
+  // Chỉ số trong mảng long[] của từng category
+  private static final int PRODUCTS = 0;
+  private static final int STOCK = 1;
+  private static final int VALUE = 2;
+
+  private final ProductStore repo;
+  private final EnumMap<Category, long[]> totals = new EnumMap<>(Category.class);
+  // ReentrantLock thay cho synchronized: reload() chờ JDBC trong khóa, monitor sẽ ghim carrier của virtual thread
+  private final ReentrantLock lock = new ReentrantLock();
+
+  public ProductCategoryStats(ProductStore repo) {
+    this.repo = repo;
+    for (Category c : Category.values()) totals.put(c, new long[3]);
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    reload();
+  }
+
+  public void reload() {
+    lock.lock();
+    try {
+      for (long[] t : totals.values()) Arrays.fill(t, 0);
+      for (CategoryTotals row : repo.sumByCategory()) {
+        long[] t = totals.get(row.getCategory());
+        t[PRODUCTS] = row.getProducts();
+        t[STOCK] = row.getStock();
+        t[VALUE] = row.getInventoryValue();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductChanged(ProductChangedEvent e) {
+    if (e.getType() != ProductChangedEvent.Type.CREATED && e.getPrevious() == null) {
+      // Không biết trạng thái cũ thì không cộng trừ được: đồng bộ lại từ DB
+      log.warn("Thiếu trạng thái cũ của sản phẩm {} ({}), nạp lại thống kê", e.getId(), e.getType());
+      reload();
+      return;
+    }
+    lock.lock();
+    try {
+      if (e.getPrevious() != null) apply(e.getPrevious(), -1);
+      if (e.getProduct() != null) apply(e.getProduct(), 1);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public List<CategoryStats> snapshot() {
+    lock.lock();
+    try {
+      List<CategoryStats> out = new ArrayList<>(totals.size());
+      totals.forEach((c, t) -> out.add(new CategoryStats(c, t[PRODUCTS], t[STOCK], t[VALUE])));
+      return out;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void apply(Product p, int sign) {
+    long[] t = totals.get(p.getCategory());
+    long qty = p.getQuantity() == null ? 0 : p.getQuantity();
+    long price = p.getPrice() == null ? 0 : p.getPrice();
+    t[PRODUCTS] += sign;
+    t[STOCK] += sign * qty;
+    t[VALUE] += sign * price * qty;
+  }
+}
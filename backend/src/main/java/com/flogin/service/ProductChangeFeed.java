@@ -0,0 +1,234 @@
+package com.flogin.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Đẩy thay đổi sản phẩm (GET /api/products/events, Server-Sent Events) sau khi transaction commit.
+ *
+ * Mỗi sự kiện được serialize một lần rồi dùng chung cho mọi subscriber. Mỗi subscriber có hàng đợi
+ * giới hạn buffer phần tử và một virtual thread ghi ra socket, nên client chậm không chặn thread ghi DB
+ * hay client khác. Hàng đợi đầy: bỏ phần còn lại, gửi "resync" rồi đóng kết nối; client kết nối lại
+ * và nạp lại danh sách. Không lưu lịch sử nên Last-Event-ID không được phát lại.
+ */
+@Component
+public class ProductChangeFeed implements MeterBinder, DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(ProductChangeFeed.class);
+
+  static final String EVENT_PRODUCT = "product";
+  static final String EVENT_READY = "ready";
+  static final String EVENT_RESYNC = "resync";
+
+  private final ObjectMapper mapper;
+  private final int bufferSize;
+  private final int maxSubscribers;
+  private final Duration timeout;
+  private final Executor executor;
+
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final AtomicLong seq = new AtomicLong();
+
+  private volatile Counter published;
+  private volatile Counter dropped;
+
+  @Autowired
+  public ProductChangeFeed(ObjectMapper mapper,
+                           @Value("${flogin.products.feed.buffer:256}") int bufferSize,
+                           @Value("${flogin.products.feed.max-subscribers:1000}") int maxSubscribers,
+                           @Value("${flogin.products.feed.timeout:30m}") Duration timeout) {
+    this(mapper, bufferSize, maxSubscribers, timeout, Executors.newVirtualThreadPerTaskExecutor());
+  }
+
+  ProductChangeFeed(ObjectMapper mapper, int bufferSize, int maxSubscribers, Duration timeout, Executor executor) {
+    this.mapper = mapper;
+    this.bufferSize = bufferSize;
+    this.maxSubscribers = maxSubscribers;
+    this.timeout = timeout;
+    this.executor = executor;
+  }
+
+  public SseEmitter subscribe() {
+    return subscribe(new SseEmitter(timeout.toMillis()));
+  }
+
+  SseEmitter subscribe(SseEmitter emitter) {
+    // Kiểm tra rồi thêm không nguyên tử: có thể vượt vài kết nối khi nhiều request đến cùng lúc
+    if (subscribers.size() >= maxSubscribers) {
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Quá nhiều kết nối theo dõi sản phẩm");
+    }
+    Subscriber s = new Subscriber(emitter, bufferSize);
+    subscribers.add(s);
+    emitter.onCompletion(s::close);
+    emitter.onError(ex -> s.close());
+    emitter.onTimeout(() -> {
+      s.close();
+      emitter.complete();
+    });
+    // Sự kiện đầu tiên: header được gửi ngay, client biết đã kết nối và nạp lại danh sách một lần
+    s.offer(SseEmitter.event().name(EVENT_READY).id(Long.toString(seq.get())).data("{}").build());
+    return emitter;
+  }
+
+  // Cả write-behind của giữ chỗ cũng gửi: client cần thấy quantity mới
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductChanged(ProductChangedEvent e) {
+    if (subscribers.isEmpty()) return;
+    Map<String, Object> payload = new LinkedHashMap<>(4);
+    payload.put("type", e.getType());
+    payload.put("id", e.getId());
+    payload.put("product", e.getProduct());
+    String json;
+    try {
+      json = mapper.writeValueAsString(payload);
+    } catch (JsonProcessingException ex) {
+      log.warn("Không serialize được thay đổi sản phẩm {}, bỏ qua", e.getId(), ex);
+      return;
+    }
+    broadcast(SseEmitter.event().name(EVENT_PRODUCT).id(Long.toString(seq.incrementAndGet())).data(json).build());
+    Counter c = published;
+    if (c != null) c.increment();
+  }
+
+  // Comment SSE giữ kết nối qua proxy và phát hiện client đã đi mà không đóng kết nối
+  @Scheduled(fixedDelayString = "${flogin.products.feed.heartbeat:PT15S}")
+  public void heartbeat() {
+    if (!subscribers.isEmpty()) broadcast(SseEmitter.event().comment("ping").build());
+  }
+
+  int subscriberCount() {
+    return subscribers.size();
+  }
+
+  private void broadcast(Set<DataWithMediaType> frame) {
+    for (Subscriber s : subscribers) s.offer(frame);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("flogin.products.feed.subscribers", subscribers, Set::size)
+        .description("Kết nối SSE đang theo dõi thay đổi sản phẩm")
+        .register(registry);
+    published = Counter.builder("flogin.products.feed.events")
+        .description("Thay đổi sản phẩm đã phát tới các subscriber")
+        .register(registry);
+    dropped = Counter.builder("flogin.products.feed.dropped")
+        .description("Subscriber bị ngắt vì đầy hàng đợi (client đọc chậm)")
+        .register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    for (Subscriber s : subscribers) {
+      s.close();
+      s.emitter.complete();
+    }
+    if (executor instanceof ExecutorService es) es.shutdownNow();
+  }
+
+  final class Subscriber implements Runnable {
+    final SseEmitter emitter;
+    private final ArrayBlockingQueue<Set<DataWithMediaType>> queue;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile boolean overflowed;
+
+    Subscriber(SseEmitter emitter, int capacity) {
+      this.emitter = emitter;
+      this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    void offer(Set<DataWithMediaType> frame) {
+      if (closed || overflowed) return;
+      if (!queue.offer(frame)) {
+        overflow();
+        return;
+      }
+      schedule();
+    }
+
+    // Thread phát sự kiện không gửi trực tiếp (có thể đang bị chặn bởi socket); việc gửi resync
+    // và đóng kết nối để thread drain làm
+    private void overflow() {
+      if (!subscribers.remove(this)) return;
+      overflowed = true;
+      Counter c = dropped;
+      if (c != null) c.increment();
+      log.debug("Subscriber SSE đọc chậm, đầy {} sự kiện: ngắt kết nối", queue.size());
+      schedule();
+    }
+
+    private void schedule() {
+      if (draining.compareAndSet(false, true)) executor.execute(this);
+    }
+
+    @Override
+    public void run() {
+      do {
+        drain();
+        draining.set(false);
+      } while (!closed && (overflowed || !queue.isEmpty()) && draining.compareAndSet(false, true));
+    }
+
+    private void drain() {
+      Set<DataWithMediaType> frame;
+      while (!closed) {
+        if (overflowed) {
+          // Sự kiện còn trong hàng đợi đã cũ với client, resync đi trước và client nạp lại toàn bộ
+          queue.clear();
+          closed = true;
+          try {
+            emitter.send(SseEmitter.event().name(EVENT_RESYNC).data("{}").build());
+            emitter.complete();
+          } catch (IOException | IllegalStateException ex) {
+            // Kết nối đã hỏng: servlet container tự kết thúc request
+          }
+          return;
+        }
+        if ((frame = queue.poll()) == null) return;
+        try {
+          emitter.send(frame);
+        } catch (IOException | IllegalStateException ex) {
+          close();
+          return;
+        }
+      }
+    }
+
+    void close() {
+      closed = true;
+      subscribers.remove(this);
+      queue.clear();
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package com.flogin.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.flogin.dto.ProductChanges;
+import com.flogin.entity.Product;
+import com.flogin.repository.ProductChangeRepository;
+import com.flogin.repository.ProductChangeRepository.Changed;
+import com.flogin.repository.ProductChangeRepository.Counter;
+import com.flogin.repository.ProductChangeRepository.Deleted;
+import com.flogin.repository.ReplicaRoutingDataSource;
+
+/**
+ * Đồng bộ tăng dần: trả các sản phẩm đã đổi và id đã xoá sau mốc since, theo thứ tự change_seq.
+ * Chi phí theo số thay đổi (range scan trên index change_seq), không theo kích thước catalog.
+ *
+ * change_seq được cấp sau khi lần ghi commit (assignPending, mỗi flogin.products.changes.sequence-interval),
+ * nên thay đổi xuất hiện ở đây chậm tối đa một chu kỳ đó.
+ */
+@Service
+public class ProductChangeService {
+  private static final Logger log = LoggerFactory.getLogger(ProductChangeService.class);
+
+  public static final int MAX_LIMIT = 1000;
+  // Số dòng (và số tombstone) đánh số mỗi transaction
+  static final int SEQUENCE_BATCH = 1000;
+
+  private final ProductChangeRepository changes;
+  private final TransactionTemplate tx;
+  private final TransactionTemplate sequencer;
+  private final Duration tombstoneRetention;
+  private final Clock clock;
+
+  @Autowired
+  public ProductChangeService(ObjectProvider<ProductChangeRepository> changes, PlatformTransactionManager txManager,
+                              @Value("${flogin.products.tombstones.retention:30d}") Duration tombstoneRetention) {
+    this(changes.getIfAvailable(), txManager, tombstoneRetention, Clock.systemUTC());
+  }
+
+  ProductChangeService(ProductChangeRepository changes, PlatformTransactionManager txManager,
+                       Duration tombstoneRetention, Clock clock) {
+    this.changes = changes;
+    this.tx = new TransactionTemplate(txManager);
+    // Luôn trên primary (không readOnly); READ COMMITTED để SELECT ... FOR UPDATE không khoá gap của index change_seq
+    this.sequencer = new TransactionTemplate(txManager);
+    this.sequencer.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    this.tombstoneRetention = tombstoneRetention;
+    this.clock = clock;
+  }
+
+  /**
+   * Các thay đổi có change_seq trong (since, watermark]. since = 0 là đồng bộ từ đầu (toàn bộ sản phẩm còn lại).
+   * Sản phẩm đổi nhiều lần chỉ xuất hiện một lần với trạng thái mới nhất.
+   */
+  @Transactional(readOnly = true, label = ReplicaRoutingDataSource.REPLICA)
+  public ProductChanges changesSince(long since, int limit) {
+    if (changes == null) {
+      throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "Profile logstore không hỗ trợ đồng bộ thay đổi");
+    }
+    if (since < 0) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "since không được âm");
+    }
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit phải từ 1 đến " + MAX_LIMIT);
+    }
+    // Đọc bộ đếm trước: các câu sau cùng snapshot nên không thấy thay đổi nào lớn hơn counter.seq
+    Counter counter = changes.counter();
+    if (since > 0 && since < counter.purgedSeq()) {
+      throw new ResponseStatusException(HttpStatus.GONE, "Mốc đồng bộ quá cũ, cần tải lại toàn bộ danh sách");
+    }
+    // since lớn hơn bộ đếm: đọc từ replica còn trễ, chưa có gì mới
+    if (since >= counter.seq()) return new ProductChanges(List.of(), List.of(), since, false);
+
+    List<Changed> changed = changes.findChanged(since, counter.seq(), limit + 1);
+    List<Deleted> deleted = changes.findDeleted(since, counter.seq(), limit + 1);
+    return merge(changed, deleted, limit, counter.seq());
+  }
+
+  // Trộn hai danh sách đã sắp theo seq, lấy limit phần tử nhỏ nhất. Hết thay đổi thì watermark là bộ đếm
+  // (bỏ qua cả các số của lần ghi đã bị ghi đè), còn thì là seq của phần tử cuối đã trả
+  static ProductChanges merge(List<Changed> changed, List<Deleted> deleted, int limit, long until) {
+    List<Product> products = new ArrayList<>();
+    List<Long> ids = new ArrayList<>();
+    int c = 0;
+    int d = 0;
+    long last = 0;
+    while (products.size() + ids.size() < limit && (c < changed.size() || d < deleted.size())) {
+      if (d == deleted.size() || (c < changed.size() && changed.get(c).seq() < deleted.get(d).seq())) {
+        Changed next = changed.get(c++);
+        products.add(next.product());
+        last = next.seq();
+      } else {
+        Deleted next = deleted.get(d++);
+        ids.add(next.id());
+        last = next.seq();
+      }
+    }
+    boolean hasMore = c < changed.size() || d < deleted.size();
+    return new ProductChanges(products, ids, hasMore ? last : until, hasMore);
+  }
+
+  /** Đánh số các thay đổi đã commit, từng lô SEQUENCE_BATCH tới khi hết. Trả về tổng số dòng đã đánh số. */
+  @Scheduled(fixedDelayString = "${flogin.products.changes.sequence-interval:PT1S}")
+  public int assignSeqs() {
+    if (changes == null) return 0;
+    int total = 0;
+    Integer n;
+    do {
+      n = sequencer.execute(s -> changes.assignPending(SEQUENCE_BATCH));
+      total += n == null ? 0 : n;
+    } while (n != null && n >= SEQUENCE_BATCH);
+    return total;
+  }
+
+  @Scheduled(fixedDelayString = "${flogin.products.tombstones.purge-interval:PT1H}")
+  public void purgeTombstones() {
+    if (changes == null) return;
+    Integer purged = tx.execute(s -> changes.purgeTombstones(clock.instant().minus(tombstoneRetention)));
+    if (purged != null && purged > 0) log.info("Đã dọn {} tombstone sản phẩm cũ hơn {}", purged, tombstoneRetention);
+  }
+}
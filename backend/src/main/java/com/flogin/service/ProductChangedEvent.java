@@ -0,0 +1,58 @@
+package com.flogin.service;
+
+import com.flogin.entity.Product;
+
+/**
+ * Phát ra sau mỗi thao tác ghi sản phẩm. Listener nên dùng @TransactionalEventListener
+ * để chỉ nhận sự kiện khi transaction đã commit.
+ */
+public final class ProductChangedEvent {
+  public enum Type { CREATED, UPDATED, DELETED }
+
+  private final Type type;
+  private final long id;
+  private final Product previous;
+  private final Product product;
+  private final boolean stockFlush;
+
+  public ProductChangedEvent(Type type, long id, Product previous, Product product) {
+    this(type, id, previous, product, false);
+  }
+
+  private ProductChangedEvent(Type type, long id, Product previous, Product product, boolean stockFlush) {
+    this.type = type;
+    this.id = id;
+    this.previous = previous;
+    this.product = product;
+    this.stockFlush = stockFlush;
+  }
+
+  public static ProductChangedEvent created(Product p) { return new ProductChangedEvent(Type.CREATED, p.getId(), null, p); }
+  public static ProductChangedEvent updated(Product previous, Product p) { return new ProductChangedEvent(Type.UPDATED, p.getId(), previous, p); }
+  public static ProductChangedEvent deleted(long id, Product previous) { return new ProductChangedEvent(Type.DELETED, id, previous, null); }
+  /** UPDATED do InventoryReservationService ghi dồn số lượng đã bán xuống DB. */
+  public static ProductChangedEvent stockFlushed(Product previous, Product p) { return new ProductChangedEvent(Type.UPDATED, p.getId(), previous, p, true); }
+
+  /** Bản sao trạng thái hiện tại, dùng làm previous trước khi entity bị sửa. */
+  public static Product snapshot(Product p) {
+    if (p == null) return null;
+    Product copy = new Product();
+    copy.setId(p.getId());
+    copy.setName(p.getName());
+    copy.setPrice(p.getPrice());
+    copy.setQuantity(p.getQuantity());
+    copy.setDescription(p.getDescription());
+    copy.setCategory(p.getCategory());
+    copy.setVersion(p.getVersion());
+    return copy;
+  }
+
+  public Type getType() { return type; }
+  public long getId() { return id; }
+  /** Trạng thái trước khi ghi; null với CREATED hoặc khi không biết. */
+  public Product getPrevious() { return previous; }
+  /** Trạng thái sau khi ghi; null với DELETED. */
+  public Product getProduct() { return product; }
+  /** true khi thay đổi quantity đến từ write-behind của giữ chỗ, đã được tính trong bộ nhớ. */
+  public boolean isStockFlush() { return stockFlush; }
+}
@@ -0,0 +1,20 @@
+package com.flogin.service;
+
+/**
+ * Phát ra trong transaction ghi, trước khi PUT, PATCH /stock hoặc bulk ghi quantity mới của một sản phẩm đã có.
+ * Listener (@EventListener) ném exception để chặn lần ghi; với log store (profile logstore) ghi xong thì không
+ * rollback được, nên kiểm tra phải nằm ở đây chứ không ở ProductChangedEvent.
+ */
+public final class ProductChangingEvent {
+  private final long id;
+  private final int quantityDelta;
+
+  public ProductChangingEvent(long id, int quantityDelta) {
+    this.id = id;
+    this.quantityDelta = quantityDelta;
+  }
+
+  public long getId() { return id; }
+  /** quantity mới - quantity hiện tại. */
+  public int getQuantityDelta() { return quantityDelta; }
+}
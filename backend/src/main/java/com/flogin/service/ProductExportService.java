@@ -0,0 +1,59 @@
+package com.flogin.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.flogin.entity.Product;
+import com.flogin.repository.ProductStore;
+import com.flogin.repository.ReplicaRoutingDataSource;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Xuất toàn bộ catalog dạng NDJSON (mỗi dòng một Product) với bộ nhớ hằng số:
+ * đọc bằng server-side cursor, ghi thẳng ra response, detach từng entity sau khi ghi.
+ */
+@Service
+public class ProductExportService {
+  static final int FLUSH_EVERY = 1_000;
+
+  private final ProductStore repo;
+  private final EntityManager em;
+  private final ObjectWriter writer;
+
+  public ProductExportService(ProductStore repo, EntityManager em, ObjectMapper mapper) {
+    this.repo = repo;
+    this.em = em;
+    this.writer = mapper.writerFor(Product.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+  }
+
+  @Transactional(readOnly = true, label = ReplicaRoutingDataSource.REPLICA)
+  public long exportNdjson(OutputStream out) throws IOException {
+    long count = 0;
+    try (Stream<Product> rows = repo.streamAllOrderById();
+         JsonGenerator gen = writer.getFactory().createGenerator(out)) {
+      // Không đóng response stream khi đóng generator; tự ghi '\n' sau mỗi bản ghi
+      gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      gen.setRootValueSeparator(null);
+      Iterator<Product> it = rows.iterator();
+      while (it.hasNext()) {
+        Product p = it.next();
+        writer.writeValue(gen, p);
+        gen.writeRaw('\n');
+        em.detach(p);
+        if (++count % FLUSH_EVERY == 0) gen.flush();
+      }
+      gen.flush();
+    }
+    return count;
+  }
+}
@@ -0,0 +1,37 @@
+package com.flogin.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Các lần ProductService.getProduct thực sự đọc repository (cache miss): id đang được nạp và tổng số lần nạp.
+ * ProductReadCoalescer dùng để đo tỉ lệ gộp GET /{id}. Nằm ngoài ProductService để các lời gọi đo đạc
+ * (mỗi GET /{id}, mỗi lần scrape metrics) không bị @Timed của service tính vào latency.
+ */
+@Component
+public class ProductLoadTracker {
+  // id -> số lần nạp đang chạy
+  private final ConcurrentHashMap<Long, Integer> loading = new ConcurrentHashMap<>();
+  private final LongAdder loads = new LongAdder();
+
+  void started(long id) {
+    loads.increment();
+    loading.merge(id, 1, Integer::sum);
+  }
+
+  void finished(long id) {
+    loading.computeIfPresent(id, (k, n) -> n == 1 ? null : n - 1);
+  }
+
+  /** Có lần nạp id này vào cache đang chạy: lời gọi getProduct lúc này sẽ chờ lần nạp đó (trừ khi vừa bị evict). */
+  public boolean isLoading(long id) {
+    return loading.containsKey(id);
+  }
+
+  /** Tổng số lần nạp từ lúc khởi động. */
+  public long loadCount() {
+    return loads.sum();
+  }
+}
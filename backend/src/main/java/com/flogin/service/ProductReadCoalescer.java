@@ -0,0 +1,86 @@
+package com.flogin.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.flogin.dto.ProductField;
+import com.flogin.entity.Product;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Đường đọc sản phẩm: nhiều request giống nhau cùng lúc chỉ chạy một lần ProductService.
+ *
+ * GET /{id} không có cơ chế gộp riêng: chính cache products (@Cacheable sync = true) gộp các lần miss cùng id,
+ * evict khi ghi bỏ lần nạp cũ. Lời gọi chờ lần nạp nằm trong Caffeine, ngoài tầm quan sát của ứng dụng (Caffeine
+ * đếm chúng là hit), nên ở đây chỉ có số lần nạp thật (flogin.product.cache.loads, chính xác) và số lời gọi gộp
+ * ƯỚC LƯỢNG (flogin.product.cache.coalesced.estimate): lời gọi đến lúc id đang được nạp. Kiểm tra và lần gọi
+ * getProduct không nguyên tử nên có thể đếm dư (lần nạp vừa xong, lời gọi thành hit) hoặc thiếu.
+ *
+ * Danh sách ?fields= và ETag danh sách (aggregate trên cả bảng) không có cache nên gộp bằng SingleFlight.
+ * forgetAll chạy ở AFTER_COMMIT, nên giữa lúc ghi commit và lúc listener chạy vẫn có một khoảng ngắn lời gọi
+ * mới có thể nhận kết quả của truy vấn bắt đầu trước khi ghi (cũ hơn thay đổi vừa commit). Sau forgetAll thì
+ * không còn.
+ */
+@Service
+public class ProductReadCoalescer implements MeterBinder {
+  private final ProductService service;
+  private final ProductLoadTracker loads;
+
+  private final LongAdder byIdCoalescedEstimate = new LongAdder();
+  private final SingleFlight<Set<ProductField>, List<?>> fields = new SingleFlight<>("products.fields");
+  private final SingleFlight<Boolean, String> listETag = new SingleFlight<>("products.list-etag");
+
+  public ProductReadCoalescer(ProductService service, ProductLoadTracker loads) {
+    this.service = service;
+    this.loads = loads;
+  }
+
+  public Product getProduct(long id) {
+    // Ước lượng: lần nạp có thể xong ngay sau khi kiểm tra, khi đó lời gọi này là cache hit chứ không chờ
+    if (loads.isLoading(id)) byIdCoalescedEstimate.increment();
+    return service.getProduct(id);
+  }
+
+  public List<?> listFields(Set<ProductField> selected) {
+    return fields.run(selected, () -> service.listFields(selected));
+  }
+
+  public String listETag() {
+    return listETag.run(Boolean.TRUE, service::listETag);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductChanged(ProductChangedEvent e) {
+    fields.forgetAll();
+    listETag.forgetAll();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("flogin.product.cache.loads", loads, ProductLoadTracker::loadCount)
+        .description("Số lần GET /{id} thực sự đọc repository (cache miss)")
+        .register(registry);
+    FunctionCounter.builder("flogin.product.cache.coalesced.estimate", byIdCoalescedEstimate, LongAdder::sum)
+        .description("Ước lượng số lời gọi GET /{id} chờ lần nạp đang chạy (không chính xác)")
+        .register(registry);
+    Gauge.builder("flogin.product.cache.coalescing.ratio.estimate", this, ProductReadCoalescer::byIdRatio)
+        .description("Ước lượng tỉ lệ lời gọi GET /{id} được gộp từ lúc khởi động")
+        .register(registry);
+    fields.bindTo(registry);
+    listETag.bindTo(registry);
+  }
+
+  private double byIdRatio() {
+    long f = byIdCoalescedEstimate.sum();
+    long total = loads.loadCount() + f;
+    return total == 0 ? 0.0 : (double) f / total;
+  }
+}
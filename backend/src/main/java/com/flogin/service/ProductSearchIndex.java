@@ -0,0 +1,138 @@
+package com.flogin.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index trong bộ nhớ cho name/description của sản phẩm.
+ * Token được bỏ dấu tiếng Việt và viết thường, nên "banh uot" khớp "Bánh ướt lòng gà".
+ * Mỗi từ khoá khớp theo tiền tố; sản phẩm phải khớp tất cả từ khoá (AND).
+ */
+public class ProductSearchIndex {
+  static final int NAME_WEIGHT = 3;
+  static final int DESCRIPTION_WEIGHT = 1;
+  static final int EXACT_BOOST = 2;
+  static final int PREFIX_BOOST = 1;
+
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  // term -> (product id -> trọng số theo field)
+  private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+  // product id -> các term đã index, để xoá khi cập nhật/xoá sản phẩm
+  private final Map<Long, Set<String>> terms = new HashMap<>();
+
+  public void put(long id, String name, String description) {
+    Map<String, Integer> weights = new HashMap<>();
+    for (String t : tokenize(name)) weights.merge(t, NAME_WEIGHT, Integer::sum);
+    for (String t : tokenize(description)) weights.merge(t, DESCRIPTION_WEIGHT, Integer::sum);
+
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+      weights.forEach((t, w) -> postings.computeIfAbsent(t, k -> new HashMap<>()).put(id, w));
+      terms.put(id, weights.keySet());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(long id) {
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      postings.clear();
+      terms.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return terms.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Trả về id sản phẩm theo điểm giảm dần (cùng điểm thì id tăng dần). */
+  public List<Long> search(String query, int limit) {
+    List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+    if (queryTerms.isEmpty() || limit <= 0) return List.of();
+
+    Map<Long, Integer> scores = null;
+    lock.readLock().lock();
+    try {
+      for (String q : queryTerms) {
+        Map<Long, Integer> matched = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Integer>> e : postings.subMap(q, true, q + Character.MAX_VALUE, false).entrySet()) {
+          int boost = e.getKey().length() == q.length() ? EXACT_BOOST : PREFIX_BOOST;
+          e.getValue().forEach((id, w) -> matched.merge(id, w * boost, Math::max));
+        }
+        if (scores == null) {
+          scores = matched;
+        } else {
+          scores.keySet().retainAll(matched.keySet());
+          scores.replaceAll((id, s) -> s + matched.get(id));
+        }
+        if (scores.isEmpty()) return List.of();
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    return scores.entrySet().stream()
+        .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+        .limit(limit)
+        .map(Map.Entry::getKey)
+        .toList();
+  }
+
+  private void removeLocked(long id) {
+    Set<String> old = terms.remove(id);
+    if (old == null) return;
+    for (String t : old) {
+      Map<Long, Integer> ids = postings.get(t);
+      if (ids == null) continue;
+      ids.remove(id);
+      if (ids.isEmpty()) postings.remove(t);
+    }
+  }
+
+  static String normalize(String text) {
+    String s = Normalizer.normalize(text, Normalizer.Form.NFD);
+    s = MARKS.matcher(s).replaceAll("");
+    return s.replace('đ', 'd').replace('Đ', 'D').toLowerCase(Locale.ROOT);
+  }
+
+  static List<String> tokenize(String text) {
+    if (text == null || text.isBlank()) return List.of();
+    List<String> out = new ArrayList<>();
+    for (String t : SEPARATORS.split(normalize(text))) {
+      if (!t.isEmpty()) out.add(t);
+    }
+    return out;
+  }
+}
@@ -0,0 +1,87 @@
+package com.flogin.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.flogin.entity.Product;
+import com.flogin.repository.ProductStore;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Tìm kiếm sản phẩm bằng ProductSearchIndex: index được dựng một lần khi khởi động
+ * và cập nhật theo ProductChangedEvent sau mỗi commit, không cần LIKE '%..%' trên bảng.
+ */
+@Service
+public class ProductSearchService implements SmartInitializingSingleton {
+  private static final Logger log = LoggerFactory.getLogger(ProductSearchService.class);
+
+  private final ProductStore repo;
+  private final EntityManager em;
+  private final TransactionTemplate readTx;
+  private final ProductSearchIndex index = new ProductSearchIndex();
+
+  public ProductSearchService(ProductStore repo, EntityManager em, PlatformTransactionManager txManager) {
+    this.repo = repo;
+    this.em = em;
+    this.readTx = new TransactionTemplate(txManager);
+    this.readTx.setReadOnly(true);
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    rebuild();
+  }
+
+  public void rebuild() {
+    long start = System.nanoTime();
+    index.clear();
+    readTx.executeWithoutResult(status -> {
+      try (Stream<Product> rows = repo.streamAllOrderById()) {
+        rows.forEach(p -> {
+          index.put(p.getId(), p.getName(), p.getDescription());
+          em.detach(p);
+        });
+      }
+    });
+    log.info("Product search index: {} sản phẩm, {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductChanged(ProductChangedEvent e) {
+    if (e.getType() == ProductChangedEvent.Type.DELETED) {
+      index.remove(e.getId());
+    } else {
+      index.put(e.getId(), e.getProduct().getName(), e.getProduct().getDescription());
+    }
+  }
+
+  public List<Product> search(String q, int limit) {
+    if (q == null || q.isBlank()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Từ khoá tìm kiếm là bắt buộc");
+    }
+    if (limit < 1 || limit > ProductService.MAX_PAGE_SIZE) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit phải từ 1 đến " + ProductService.MAX_PAGE_SIZE);
+    }
+    List<Long> ids = index.search(q, limit);
+    if (ids.isEmpty()) return List.of();
+    // Lấy theo PK (IN (...)) rồi giữ nguyên thứ tự xếp hạng
+    Map<Long, Product> byId = repo.findAllById(ids).stream()
+        .collect(Collectors.toMap(Product::getId, Function.identity()));
+    return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+  }
+}
@@ -1,8 +1,21 @@
 package com.flogin.service;
 
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -10,51 +23,272 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.flogin.CacheConfig;
+import com.flogin.dto.CursorPage;
+import com.flogin.dto.ProductField;
+import com.flogin.dto.ProductListVersion;
 import com.flogin.dto.ProductRequest;
+import com.flogin.dto.ProductSummary;
 import com.flogin.entity.Category;
 import com.flogin.entity.Product;
-import com.flogin.repository.ProductRepository;
+import com.flogin.repository.ProductStore;
+import com.flogin.repository.ReplicaRoutingDataSource;
 
+import io.micrometer.core.annotation.Timed;
+
+// Timer theo method (tag class, method, exception). Cache đứng ngoài nên cache hit không được đếm
 @Service
+@Timed(value = "flogin.product.service", histogram = true)
 @SuppressWarnings("null")
 public class ProductService {
-  private final ProductRepository repo;
-  public ProductService(ProductRepository repo) { this.repo = repo; }
+  public static final int MAX_PAGE_SIZE = 100;
+
+  private final ProductStore repo;
+  private final ApplicationEventPublisher events;
+  private final ProductLoadTracker loads;
+
+  @Autowired
+  public ProductService(ProductStore repo, ApplicationEventPublisher events, ProductLoadTracker loads) {
+    this.repo = repo;
+    this.events = events;
+    this.loads = loads;
+  }
+
+  ProductService(ProductStore repo, ApplicationEventPublisher events) {
+    this(repo, events, new ProductLoadTracker());
+  }
 
   @Transactional
+  @CachePut(cacheNames = CacheConfig.PRODUCTS, key = "#result.id")
   public Product createProduct(ProductRequest req) {
     Product p = new Product();
     fill(p, req);
-    return repo.save(p);
+    Product saved = repo.save(p);
+    events.publishEvent(ProductChangedEvent.created(saved));
+    return saved;
   }
 
+  // sync = true: nhiều request cùng miss một id chỉ chạy một findById, các request còn lại chờ kết quả đó.
+  // Thân method chỉ chạy khi cache miss nên mỗi lần chạy là một lần nạp
   @Transactional(readOnly = true)
+  @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id", sync = true)
   public Product getProduct(long id) {
-    return repo.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy sản phẩm"));
+    loads.started(id);
+    try {
+      return repo.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy sản phẩm"));
+    } finally {
+      loads.finished(id);
+    }
   }
 
   @Transactional
+  @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
   public Product updateProduct(long id, ProductRequest req) {
+    return updateProduct(id, req, null);
+  }
+
+  /**
+   * ifMatch: các version lấy từ header If-Match (null = không điều kiện).
+   * Ghi đè đồng thời giữa lúc kiểm tra và commit vẫn bị @Version chặn (ObjectOptimisticLockingFailureException).
+   */
+  @Transactional
+  @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+  public Product updateProduct(long id, ProductRequest req, Set<Long> ifMatch) {
     Product existing = repo.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy sản phẩm"));
+    checkVersion(existing, ifMatch);
+    // Trước khi ghi: log store không rollback được lần ghi đã xong. Thiếu quantity ở một phía thì coi như
+    // không đổi tồn kho (quantity mới null sẽ bị validate của entity chặn khi ghi)
+    Integer before = existing.getQuantity();
+    Integer after = req.getQuantity();
+    if (before != null && after != null && !before.equals(after)) {
+      events.publishEvent(new ProductChangingEvent(id, after - before));
+    }
+    Product previous = ProductChangedEvent.snapshot(existing);
     fill(existing, req);
-    return repo.save(existing);
+    Product saved = repo.save(existing);
+    events.publishEvent(ProductChangedEvent.updated(previous, saved));
+    return saved;
   }
 
   @Transactional
+  @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
   public void deleteProduct(long id) {
+    deleteProduct(id, null);
+  }
+
+  @Transactional
+  @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+  public void deleteProduct(long id, Set<Long> ifMatch) {
     if (!repo.existsById(id)) {
       throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy sản phẩm");
     }
+    // Cùng transaction nên deleteById dùng lại entity này từ persistence context, không SELECT thêm
+    Product previous = ProductChangedEvent.snapshot(repo.findById(id).orElse(null));
+    if (previous != null) checkVersion(previous, ifMatch);
     repo.deleteById(id);
+    events.publishEvent(ProductChangedEvent.deleted(id, previous));
   }
 
-  @Transactional(readOnly = true)
+  @Transactional(readOnly = true, label = ReplicaRoutingDataSource.REPLICA)
   public Page<Product> getAll(Pageable pageable) {
     Objects.requireNonNull(pageable, "pageable không được null");
     return repo.findAll(pageable);
   }
 
-  private void fill(Product p, ProductRequest req) {
+  /**
+   * Keyset pagination theo id: chi phí mỗi trang không phụ thuộc vị trí trang,
+   * không chạy COUNT(*). Cursor là id cuối cùng của trang trước, mã hoá base64url.
+   */
+  @Transactional(readOnly = true, label = ReplicaRoutingDataSource.REPLICA)
+  public CursorPage<Product> getPage(String cursor, int limit) {
+    checkLimit(limit);
+    // Lấy dư 1 dòng để biết còn trang sau hay không
+    return page(repo.findByIdGreaterThanOrderByIdAsc(afterId(cursor), Limit.of(limit + 1)), limit, Product::getId);
+  }
+
+  /** Như getPage(cursor, limit) nhưng chỉ SELECT các cột trong fields; fields null là entity đầy đủ. */
+  @Transactional(readOnly = true, label = ReplicaRoutingDataSource.REPLICA)
+  public CursorPage<?> getPage(String cursor, int limit, Set<ProductField> fields) {
+    if (fields == null) return getPage(cursor, limit);
+    checkLimit(limit);
+    long afterId = afterId(cursor);
+    if (fields.equals(ProductField.SUMMARY)) {
+      return page(repo.findSummariesAfter(afterId, Limit.of(limit + 1)), limit, ProductSummary::getId);
+    }
+    return page(repo.findFieldsAfter(fields, afterId, limit + 1), limit, row -> (Long) row.get("id"));
+  }
+
+  /** Toàn bộ danh sách, chỉ các cột trong fields (xem parseFields). */
+  @Transactional(readOnly = true)
+  public List<?> listFields(Set<ProductField> fields) {
+    if (fields.equals(ProductField.SUMMARY)) return repo.findSummariesAfter(0L, Limit.unlimited());
+    return repo.findFieldsAfter(fields, 0L, 0);
+  }
+
+  /**
+   * Đọc ?fields=name,price,... (không phân biệt hoa thường; "summary" = các cột của lưới).
+   * null khi không có tham số; id luôn được chọn vì cần cho cursor và để client nhận diện dòng.
+   */
+  public static Set<ProductField> parseFields(String raw) {
+    if (raw == null || raw.isBlank()) return null;
+    Set<ProductField> fields = EnumSet.of(ProductField.ID);
+    for (String name : raw.split(",")) {
+      name = name.trim();
+      if (name.isEmpty()) continue;
+      if (name.equalsIgnoreCase("summary")) {
+        fields.addAll(ProductField.SUMMARY);
+        continue;
+      }
+      try {
+        fields.add(ProductField.valueOf(name.toUpperCase(Locale.ROOT)));
+      } catch (IllegalArgumentException ex) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Trường không hợp lệ: " + name);
+      }
+    }
+    return fields;
+  }
+
+  /** ETag của danh sách theo tập cột: cùng dữ liệu nhưng khác cột thì khác ETag. */
+  public static String fieldsETag(String listETag, Set<ProductField> fields) {
+    int mask = 0;
+    for (ProductField f : fields) mask |= 1 << f.ordinal();
+    return listETag.substring(0, listETag.length() - 1) + "-f" + mask + "\"";
+  }
+
+  private static void checkLimit(int limit) {
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit phải từ 1 đến " + MAX_PAGE_SIZE);
+    }
+  }
+
+  private static long afterId(String cursor) {
+    return cursor == null || cursor.isBlank() ? 0L : decodeCursor(cursor);
+  }
+
+  private static <T> CursorPage<T> page(List<T> rows, int limit, Function<T, Long> id) {
+    boolean hasMore = rows.size() > limit;
+    List<T> items = hasMore ? rows.subList(0, limit) : rows;
+    String next = hasMore ? encodeCursor(id.apply(items.get(items.size() - 1))) : null;
+    return new CursorPage<>(items, next, hasMore);
+  }
+
+  static String encodeCursor(long lastId) {
+    byte[] raw = ByteBuffer.allocate(Long.BYTES).putLong(lastId).array();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+  }
+
+  static long decodeCursor(String cursor) {
+    try {
+      byte[] raw = Base64.getUrlDecoder().decode(cursor);
+      if (raw.length != Long.BYTES) throw new IllegalArgumentException();
+      long id = ByteBuffer.wrap(raw).getLong();
+      if (id < 0) throw new IllegalArgumentException();
+      return id;
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor không hợp lệ");
+    }
+  }
+
+  /**
+   * Cộng delta vào tồn kho bằng một UPDATE có điều kiện (không đọc trước, không mất cập nhật khi chạy song song).
+   * Thành công: UPDATE rồi đọc lại dòng theo khoá chính trong cùng transaction (2 round trip), vì response và
+   * các listener ProductChangedEvent (snapshot, search, change feed) luôn cần cả sản phẩm, UPDATE không trả về nó.
+   * Thất bại: UPDATE rồi existsById để phân biệt 404 với 409 (không đủ hàng / vượt tối đa).
+   */
+  @Transactional
+  @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+  public Product adjustStock(long id, int delta) {
+    events.publishEvent(new ProductChangingEvent(id, delta));
+    if (repo.adjustQuantity(id, delta) == 0) {
+      if (!repo.existsById(id)) {
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy sản phẩm");
+      }
+      throw new ResponseStatusException(HttpStatus.CONFLICT, delta < 0 ? "Không đủ tồn kho" : "Tồn kho vượt quá 99999");
+    }
+    // Dòng đang bị khoá bởi UPDATE nên đọc lại trong cùng transaction là đúng trạng thái vừa ghi
+    Product saved = repo.findById(id).orElseThrow();
+    Product previous = ProductChangedEvent.snapshot(saved);
+    previous.setQuantity(saved.getQuantity() - delta);
+    previous.setVersion(saved.getVersion() - 1);
+    events.publishEvent(ProductChangedEvent.updated(previous, saved));
+    return saved;
+  }
+
+  // ETag của danh sách, tính từ version các dòng (xem ProductRepository.listVersion)
+  @Transactional(readOnly = true)
+  public String listETag() {
+    ProductListVersion v = repo.listVersion();
+    return "\"" + v.getProducts() + "-" + v.getVersionSum() + "-" + v.getMaxId() + "\"";
+  }
+
+  // Strong ETag của một sản phẩm: chính là version
+  public static String eTag(Product p) {
+    return "\"" + Objects.requireNonNullElse(p.getVersion(), 0L) + "\"";
+  }
+
+  /** Đọc header If-Match thành tập version; null khi không có header hoặc "*". ETag yếu (W/) không bao giờ khớp. */
+  public static Set<Long> parseIfMatch(String header) {
+    if (header == null || header.isBlank() || header.trim().equals("*")) return null;
+    Set<Long> versions = new HashSet<>();
+    for (String tag : header.split(",")) {
+      tag = tag.trim();
+      if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) continue;
+      try {
+        versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+      } catch (NumberFormatException ignored) {
+        // ETag không phải của mình: không khớp
+      }
+    }
+    return versions;
+  }
+
+  private static void checkVersion(Product p, Set<Long> ifMatch) {
+    if (ifMatch != null && !ifMatch.contains(Objects.requireNonNullElse(p.getVersion(), 0L))) {
+      throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Sản phẩm đã bị thay đổi, vui lòng tải lại");
+    }
+  }
+
+  static void fill(Product p, ProductRequest req) {
     p.setName(req.getName());
     p.setPrice(req.getPrice());
     p.setQuantity(req.getQuantity());
@@ -62,7 +296,7 @@ public class ProductService {
     p.setCategory(parseCategory(req.getCategory()));
   }
 
-  private Category parseCategory(String raw) {
+  static Category parseCategory(String raw) {
     if (raw == null) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Category là bắt buộc");
     }
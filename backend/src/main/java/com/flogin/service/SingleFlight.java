@@ -0,0 +1,103 @@
+package com.flogin.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Gộp các lần đọc giống nhau đang chạy đồng thời: lời gọi đầu tiên với một key (leader) chạy loader,
+ * các lời gọi cùng key đến trong lúc đó (follower) chờ và nhận cùng kết quả hoặc cùng exception.
+ * Không giữ kết quả sau khi xong; đó là việc của cache.
+ *
+ * Follower chờ trên CompletableFuture (park), không giữ monitor nên không ghim virtual thread.
+ * Gọi forget/forgetAll sau khi ghi commit để lời gọi đến sau đó chạy truy vấn mới. Lời gọi đến giữa lúc commit
+ * và lúc forget (vd. trước khi listener AFTER_COMMIT chạy) vẫn có thể nhận kết quả của truy vấn bắt đầu trước khi ghi.
+ */
+public final class SingleFlight<K, V> implements MeterBinder {
+  private final String name;
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder leaders = new LongAdder();
+  private final LongAdder followers = new LongAdder();
+
+  public SingleFlight(String name) {
+    this.name = name;
+  }
+
+  public V run(K key, Supplier<V> loader) {
+    CompletableFuture<V> mine = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      followers.increment();
+      return await(running);
+    }
+    leaders.increment();
+    try {
+      V value = loader.get();
+      mine.complete(value);
+      return value;
+    } catch (Throwable ex) {
+      mine.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  /** Lời gọi sau với key này chạy loader mới; follower đang chờ vẫn nhận kết quả cũ. */
+  public void forget(K key) {
+    inFlight.remove(key);
+  }
+
+  public void forgetAll() {
+    inFlight.clear();
+  }
+
+  long leaderCount() { return leaders.sum(); }
+  long followerCount() { return followers.sum(); }
+
+  // Exception của leader ném lại nguyên vẹn (vd. ResponseStatusException 404) cho mọi follower
+  private static <V> V await(CompletableFuture<V> running) {
+    try {
+      return running.join();
+    } catch (CompletionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException re) throw re;
+      if (cause instanceof Error err) throw err;
+      throw ex;
+    }
+  }
+
+  // Tỉ lệ gộp = follower / (leader + follower); Prometheus: rate theo role rồi chia
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("flogin.singleflight.calls", leaders, LongAdder::sum)
+        .tags("flight", name, "role", "leader")
+        .description("Lời gọi tự chạy truy vấn")
+        .register(registry);
+    FunctionCounter.builder("flogin.singleflight.calls", followers, LongAdder::sum)
+        .tags("flight", name, "role", "follower")
+        .description("Lời gọi dùng chung kết quả của truy vấn đang chạy")
+        .register(registry);
+    Gauge.builder("flogin.singleflight.coalescing.ratio", this, SingleFlight::ratio)
+        .tag("flight", name)
+        .description("Tỉ lệ lời gọi được gộp từ lúc khởi động")
+        .register(registry);
+    Gauge.builder("flogin.singleflight.in.flight", inFlight, ConcurrentHashMap::size)
+        .tag("flight", name)
+        .description("Key đang có truy vấn chạy")
+        .register(registry);
+  }
+
+  private double ratio() {
+    long f = followers.sum();
+    long total = leaders.sum() + f;
+    return total == 0 ? 0.0 : (double) f / total;
+  }
+}
@@ -0,0 +1,243 @@
+package com.flogin.service;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.flogin.repository.AuthUserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Bloom filter của mọi auth.username: "không có" là chắc chắn, "có thể có" thì mới hỏi DB.
+ * Nạp từ DB khi khởi động và định kỳ (rebuild-interval), thêm dần qua AuthUserListener khi lưu AuthUser.
+ * Chưa nạp xong thì luôn trả "có thể có", tức hành vi cũ.
+ *
+ * User thêm thẳng vào DB (SQL tay, node khác) chỉ được thấy sau lần rebuild kế tiếp.
+ */
+@Service
+public class UsernameBloomFilter implements SmartInitializingSingleton, MeterBinder {
+  private static final Logger log = LoggerFactory.getLogger(UsernameBloomFilter.class);
+
+  /** Mảng bit bất biến về kích thước; bit chỉ được bật, không bao giờ tắt. */
+  static final class Bits {
+    final AtomicLongArray words;
+    final long size;
+    final int hashes;
+    final AtomicLong set = new AtomicLong();
+
+    Bits(long expected, double fpp) {
+      long n = Math.max(1, expected);
+      long m = Math.max(64, (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+      this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, (m + 63) >>> 6));
+      this.size = (long) words.length() << 6;
+      this.hashes = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+    }
+
+    void put(String key) {
+      long h1 = hash(key), h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+      for (int i = 0; i < hashes; i++) {
+        long bit = Math.floorMod(h1 + i * h2, size);
+        long mask = 1L << bit;
+        long prev = words.getAndAccumulate((int) (bit >>> 6), mask, (a, b) -> a | b);
+        if ((prev & mask) == 0) set.incrementAndGet();
+      }
+    }
+
+    boolean mightContain(String key) {
+      long h1 = hash(key), h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+      for (int i = 0; i < hashes; i++) {
+        long bit = Math.floorMod(h1 + i * h2, size);
+        if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+      }
+      return true;
+    }
+
+    // Xác suất dương tính giả với số bit đang bật: (tỉ lệ bit bật)^k
+    double expectedFpp() {
+      return Math.pow((double) set.get() / size, hashes);
+    }
+  }
+
+  private final AuthUserRepository repo;
+  private final long expectedUsers;
+  private final double fpp;
+  private final long missPaddingNanos;
+
+  private volatile Bits bits;
+  // Giữ khi thêm username và khi thay mảng bit, để username thêm trong lúc rebuild không bị mất
+  private final ReentrantLock lock = new ReentrantLock();
+  private List<String> addedDuringRebuild;
+
+  private final AtomicLong maybe = new AtomicLong();
+  private final AtomicLong falsePositives = new AtomicLong();
+  private volatile Counter misses;
+
+  public UsernameBloomFilter(AuthUserRepository repo,
+                             @Value("${flogin.auth.username-filter.expected-users:100000}") long expectedUsers,
+                             @Value("${flogin.auth.username-filter.fpp:0.01}") double fpp,
+                             @Value("${flogin.auth.username-filter.miss-padding:0ms}") Duration missPadding) {
+    this.repo = repo;
+    this.expectedUsers = expectedUsers;
+    this.fpp = fpp;
+    this.missPaddingNanos = missPadding.toNanos();
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    try {
+      rebuild();
+    } catch (RuntimeException ex) {
+      // Không có filter vẫn đăng nhập được, chỉ mất phần tối ưu
+      log.warn("Không nạp được danh sách username, bỏ qua Bloom filter", ex);
+    }
+  }
+
+  /** Dựng lại từ DB; kích thước theo max(expected-users, 2 × số user hiện có). */
+  @Scheduled(fixedDelayString = "${flogin.auth.username-filter.rebuild-interval:PT10M}",
+             initialDelayString = "${flogin.auth.username-filter.rebuild-interval:PT10M}")
+  public void rebuild() {
+    lock.lock();
+    try {
+      addedDuringRebuild = new ArrayList<>();
+    } finally {
+      lock.unlock();
+    }
+    List<String> usernames;
+    try {
+      usernames = repo.findAllUsernames();
+    } catch (RuntimeException ex) {
+      lock.lock();
+      try {
+        addedDuringRebuild = null;
+      } finally {
+        lock.unlock();
+      }
+      throw ex;
+    }
+    Bits next = new Bits(Math.max(expectedUsers, 2L * usernames.size()), fpp);
+    for (String u : usernames) next.put(normalize(u));
+    lock.lock();
+    try {
+      for (String u : addedDuringRebuild) next.put(u);
+      addedDuringRebuild = null;
+      bits = next;
+    } finally {
+      lock.unlock();
+    }
+    log.debug("Bloom filter username: {} user, {} bit, {} hash", usernames.size(), next.size, next.hashes);
+  }
+
+  public void add(String username) {
+    if (username == null) return;
+    String key = normalize(username);
+    lock.lock();
+    try {
+      Bits b = bits;
+      if (b != null) b.put(key);
+      if (addedDuringRebuild != null) addedDuringRebuild.add(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** false nghĩa là chắc chắn không có user này. */
+  public boolean mightContain(String username) {
+    Bits b = bits;
+    if (b == null || username == null) return true;
+    if (b.mightContain(normalize(username))) {
+      maybe.incrementAndGet();
+      return true;
+    }
+    Counter c = misses;
+    if (c != null) c.increment();
+    return false;
+  }
+
+  /** Filter nói "có thể có" nhưng DB không có. */
+  public void recordFalsePositive() {
+    if (bits != null) falsePositives.incrementAndGet();
+  }
+
+  /**
+   * Kéo dài nhánh "username không tồn tại" tới ít nhất miss-padding kể từ startNanos,
+   * để thời gian trả lời không cho biết request có chạm DB hay không. 0 là tắt.
+   */
+  public void padMiss(long startNanos) {
+    if (missPaddingNanos <= 0) return;
+    long remaining;
+    while ((remaining = startNanos + missPaddingNanos - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(remaining);
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    misses = Counter.builder("flogin.auth.username_filter.misses")
+        .description("Username bị loại bởi Bloom filter, không truy vấn DB")
+        .register(registry);
+    FunctionCounter.builder("flogin.auth.username_filter.maybe", maybe, AtomicLong::get)
+        .description("Lần filter trả 'có thể có' (phải hỏi DB)")
+        .register(registry);
+    FunctionCounter.builder("flogin.auth.username_filter.false_positives", falsePositives, AtomicLong::get)
+        .description("Lần filter trả 'có thể có' nhưng DB không có username")
+        .register(registry);
+    Gauge.builder("flogin.auth.username_filter.false_positive_rate", this, UsernameBloomFilter::observedFpp)
+        .description("false_positives / số username không tồn tại đã kiểm tra")
+        .register(registry);
+    Gauge.builder("flogin.auth.username_filter.expected_fpp", this, f -> f.bits == null ? Double.NaN : f.bits.expectedFpp())
+        .description("Xác suất dương tính giả ước tính từ số bit đang bật")
+        .register(registry);
+  }
+
+  // Trên tập username không tồn tại: bị filter loại (misses) hoặc lọt qua (false positive)
+  double observedFpp() {
+    Counter c = misses;
+    double negatives = falsePositives.get() + (c == null ? 0 : c.count());
+    return negatives == 0 ? 0 : falsePositives.get() / negatives;
+  }
+
+  // Khớp collation *_ci của MySQL với username ASCII (LoginRequest chỉ cho A-Z a-z 0-9 . _ -)
+  static String normalize(String username) {
+    String s = Normalizer.normalize(username.strip(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    return s.toLowerCase(Locale.ROOT);
+  }
+
+  static long hash(String key) {
+    // FNV-1a 64 bit rồi trộn lại cho đều bit
+    long h = 0xcbf29ce484222325L;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b;
+      h *= 0x100000001b3L;
+    }
+    return mix(h);
+  }
+
+  // fmix64 của MurmurHash3
+  static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb93fe53a87fbL;
+    h ^= h >>> 33;
+    return h;
+  }
+}
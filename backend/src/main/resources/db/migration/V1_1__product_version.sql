@@ -0,0 +1,4 @@
+-- Cột version cho @Version và ETag của sản phẩm. Tách khỏi V1: DB cũ baseline ở V1 chưa có cột này.
+-- Chạy trước V2 vì dữ liệu mẫu ghi cả version
+ALTER TABLE products
+  ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,18 @@
+-- Schema ban đầu, giống bảng ddl-auto=update đã tạo trước khi chuyển sang Flyway
+CREATE TABLE auth (
+  id            BIGINT       NOT NULL AUTO_INCREMENT,
+  username      VARCHAR(50)  NOT NULL,
+  password_hash VARCHAR(100) NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT uk_auth_username UNIQUE (username)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE products (
+  id          BIGINT       NOT NULL AUTO_INCREMENT,
+  name        VARCHAR(100) NOT NULL,
+  price       INT          NOT NULL,
+  quantity    INT          NOT NULL,
+  description VARCHAR(500),
+  category    ENUM ('ELECTRONICS', 'FASHION', 'FOOD', 'HOME', 'OTHER') NOT NULL,
+  PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
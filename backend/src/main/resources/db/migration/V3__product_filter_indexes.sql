@@ -0,0 +1,7 @@
+-- updated_at do DB đặt (kể cả UPDATE qua JDBC của ProductBulkWriter, vì mọi câu ghi đều tăng version)
+-- Index phụ InnoDB chứa sẵn id, nên lọc theo (category, price) hay name rồi lấy id / keyset theo id không phải đọc lại dòng
+ALTER TABLE products
+  ADD COLUMN updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+  ADD INDEX idx_products_category_price (category, price),
+  ADD INDEX idx_products_name (name),
+  ADD INDEX idx_products_updated_at (updated_at);
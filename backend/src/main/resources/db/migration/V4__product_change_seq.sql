@@ -0,0 +1,49 @@
+-- Đồng bộ tăng dần (GET /api/products/changes): mỗi dòng products đã đổi và mỗi tombstone mang một change_seq
+-- tăng dần theo thứ tự được đánh số; bộ đếm là số lớn nhất đã cấp.
+--
+-- Trigger không đụng tới bộ đếm: ghi/xoá chỉ đánh dấu dòng là "chờ đánh số" (change_seq = 0) trong chính
+-- transaction ghi, nên cả JDBC batch của JdbcProductBulkWriter và write-behind tồn kho đều được tính, mà các
+-- transaction ghi products không tranh nhau một khoá chung (trước đây khoá dòng bộ đếm giữ tới commit gây
+-- deadlock với ProductBulkService và InventoryReservationService.flush).
+-- ProductChangeRepository.assignPending đánh số các dòng chờ ĐÃ commit (FOR UPDATE SKIP LOCKED bỏ qua dòng
+-- của transaction ghi còn đang chạy) và nâng bộ đếm trong cùng transaction: mọi số <= bộ đếm đã nằm trên dòng
+-- đã commit, client đọc tới bộ đếm không bỏ sót thay đổi.
+CREATE TABLE product_change_counter (
+  id         TINYINT NOT NULL,
+  seq        BIGINT  NOT NULL,
+  -- Tombstone có change_seq <= purged_seq đã bị dọn: client có mốc cũ hơn phải tải lại toàn bộ
+  purged_seq BIGINT  NOT NULL DEFAULT 0,
+  PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- id IDENTITY không dùng lại nên mỗi sản phẩm có tối đa một tombstone
+CREATE TABLE product_tombstones (
+  id         BIGINT       NOT NULL,
+  change_seq BIGINT       NOT NULL DEFAULT 0,
+  deleted_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+  PRIMARY KEY (id),
+  INDEX idx_product_tombstones_change_seq (change_seq),
+  INDEX idx_product_tombstones_deleted_at (deleted_at)
+) ENGINE = InnoDB;
+
+-- Dòng có sẵn: id tăng dần nên dùng luôn làm change_seq. Giữ nguyên updated_at (cột ON UPDATE CURRENT_TIMESTAMP)
+ALTER TABLE products
+  ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0,
+  ADD INDEX idx_products_change_seq (change_seq);
+UPDATE products SET change_seq = id, updated_at = updated_at;
+INSERT INTO product_change_counter (id, seq) SELECT 1, COALESCE(MAX(id), 0) FROM products;
+
+CREATE TRIGGER trg_products_change_seq_insert BEFORE INSERT ON products FOR EACH ROW
+  SET NEW.change_seq = 0;
+
+-- Câu UPDATE của assignPending đổi change_seq sang số mới: giữ số đó. Mọi câu ghi khác: chờ đánh số lại
+CREATE TRIGGER trg_products_change_seq_update BEFORE UPDATE ON products FOR EACH ROW
+BEGIN
+  IF NEW.change_seq = OLD.change_seq THEN
+    SET NEW.change_seq = 0;
+  END IF;
+END;
+
+CREATE TRIGGER trg_products_tombstone AFTER DELETE ON products FOR EACH ROW
+  INSERT INTO product_tombstones (id, change_seq) VALUES (OLD.id, 0)
+  ON DUPLICATE KEY UPDATE change_seq = 0, deleted_at = CURRENT_TIMESTAMP(6);
@@ -0,0 +1,48 @@
+package com.flogin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+@DisplayName("CacheConfig Tests")
+class CacheConfigTest {
+  final ApplicationContextRunner runner = new ApplicationContextRunner()
+      .withConfiguration(AutoConfigurations.of(CacheAutoConfiguration.class))
+      .withUserConfiguration(CacheConfig.class)
+      .withPropertyValues("spring.cache.type=caffeine", "spring.cache.cache-names=" + CacheConfig.PRODUCTS,
+          "spring.cache.caffeine.spec=maximumSize=10000,expireAfterWrite=5m,recordStats");
+
+  static CaffeineCache products(CacheManager manager) {
+    return (CaffeineCache) manager.getCache(CacheConfig.PRODUCTS);
+  }
+
+  @Test
+  @DisplayName("TC1: platform thread -> cache đồng bộ, loader chạy trên thread gọi")
+  void platformThreadsUseSyncCache() {
+    runner.run(ctx -> {
+      CaffeineCache cache = products(ctx.getBean(CacheManager.class));
+      Thread caller = Thread.currentThread();
+      assertTrue(cache.get(1L, () -> Thread.currentThread() == caller));
+    });
+  }
+
+  @Test
+  @DisplayName("TC2: virtual thread -> cache async, loader chạy trên virtual thread (không phải commonPool), giữ spec")
+  void virtualThreadsLoadOnVirtualThreads() {
+    runner.withPropertyValues("spring.threads.virtual.enabled=true").run(ctx -> {
+      CaffeineCache cache = products(ctx.getBean(CacheManager.class));
+      assertNotNull(cache.getAsyncCache());
+      assertTrue(cache.get(1L, () -> Thread.currentThread().isVirtual()));
+      assertFalse(cache.get(2L, () -> Thread.currentThread().getName().startsWith("ForkJoinPool.commonPool")));
+      assertEquals(10_000L, cache.getNativeCache().policy().eviction().orElseThrow().getMaximum());
+    });
+  }
+}
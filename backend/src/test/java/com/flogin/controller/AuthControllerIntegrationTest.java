@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -25,10 +26,12 @@ import com.flogin.WebConfig;
 import com.flogin.dto.LoginRequest;
 import com.flogin.dto.LoginResponse;
 import com.flogin.repository.AuthUserRepository;
+import com.flogin.security.LoginThrottle;
+import com.flogin.security.TokenService;
 import com.flogin.service.AuthService;
 
 @WebMvcTest(AuthController.class)
-@Import(WebConfig.class)
+@Import({WebConfig.class, TokenService.class, LoginThrottle.class})
 @DisplayName("Login API Integration Tests (a,b,c)")
 class AuthControllerIntegrationTest {
 
@@ -195,4 +198,26 @@ class AuthControllerIntegrationTest {
             .andExpect(status().isOk())
             .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "http://localhost:5173"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("TC11: Sai qua 5 lan cung username - 429, khong goi AuthService")
+    void testLoginThrottled() throws Exception {
+        LoginRequest request = new LoginRequest("throttled", "Wrong123");
+        when(authService.authenticate(any(LoginRequest.class)))
+            .thenReturn(new LoginResponse(false, "Sai mat khau", null, null));
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/auth/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnauthorized());
+        }
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+            .andExpect(jsonPath("$.success").value(false));
+        verify(authService, times(5)).authenticate(any(LoginRequest.class));
+    }
+}
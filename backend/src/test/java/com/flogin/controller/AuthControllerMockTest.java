@@ -3,6 +3,8 @@ package com.flogin.controller;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -14,6 +16,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -21,6 +24,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flogin.dto.LoginRequest;
 import com.flogin.dto.LoginResponse;
 import com.flogin.repository.AuthUserRepository;
+import com.flogin.security.LoginThrottle;
+import com.flogin.security.LoginThrottledException;
+import com.flogin.security.PasswordVerifierBusyException;
 import com.flogin.service.AuthService;
 
 @WebMvcTest(AuthController.class)
@@ -39,6 +45,9 @@ public class AuthControllerMockTest {
     @MockBean
     private AuthUserRepository authUserRepository;
 
+    @MockBean
+    private LoginThrottle throttle;
+
     @Test
     @DisplayName("TC1: Login thanh cong")
     void testLoginSuccess() throws Exception {
@@ -115,4 +124,34 @@ public class AuthControllerMockTest {
             .andExpect(status().isBadRequest());
         verifyNoInteractions(authService);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("TC6: Pool BCrypt day - 503 kem Retry-After")
+    void testLoginBusy() throws Exception {
+        LoginRequest loginData = new LoginRequest("testuser", "Test1234");
+        when(authService.authenticate(any(LoginRequest.class))).thenThrow(new PasswordVerifierBusyException(2));
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginData)))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "2"))
+            .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    @DisplayName("TC7: Het luot dang nhap - 429 kem Retry-After, khong kiem tra mat khau")
+    void testLoginThrottled() throws Exception {
+        LoginRequest loginData = new LoginRequest("testuser", "Test1234");
+        doThrow(new LoginThrottledException(12)).when(throttle).acquire(anyString(), anyString());
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginData)))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string("Retry-After", "12"))
+            .andExpect(jsonPath("$.success").value(false));
+
+        verifyNoInteractions(authService);
+    }
+}
@@ -1,38 +1,77 @@
 package com.flogin.controller;
 
+import com.flogin.dto.CategoryStats;
+import com.flogin.dto.ProductField;
+import com.flogin.dto.ProductListVersion;
+import com.flogin.dto.ProductBulkItem;
+import com.flogin.entity.Category;
 import com.flogin.dto.ProductRequest;
+import com.flogin.dto.StockAdjustment;
 import com.flogin.entity.Product;
-import com.flogin.repository.ProductRepository;
+import com.flogin.repository.ProductStore;
 import com.flogin.repository.AuthUserRepository;
+import com.flogin.repository.ProductBulkWriter;
+import com.flogin.service.ProductBulkService;
+import com.flogin.service.ProductCatalogSnapshot;
+import com.flogin.service.ProductCategoryStats;
+import com.flogin.service.ProductExportService;
+import com.flogin.service.ProductLoadTracker;
+import com.flogin.service.ProductReadCoalescer;
+import com.flogin.service.ProductSearchService;
+import com.flogin.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.times;
 
 @WebMvcTest(ProductController.class) 
 @AutoConfigureMockMvc(addFilters = false) 
+@Import({ProductService.class, ProductBulkService.class, ProductCatalogSnapshot.class, ProductReadCoalescer.class,
+    ProductLoadTracker.class})
 public class ProductControllerIntegrationTest { 
 
     @Autowired
@@ -42,11 +81,32 @@ public class ProductControllerIntegrationTest {
     private ObjectMapper objectMapper; 
 
     @MockBean
-    private ProductRepository productRepository;
+    private ProductStore productRepository;
 
     @MockBean
     private AuthUserRepository authUserRepository;
 
+    @MockBean
+    private ProductExportService exportService;
+
+    @MockBean
+    private ProductBulkWriter bulkWriter;
+
+    @MockBean
+    private ProductSearchService searchService;
+
+    @MockBean
+    private ProductCategoryStats categoryStats;
+
+    @Autowired
+    private ProductCatalogSnapshot catalog;
+
+    // Snapshot danh sách sống cùng context test, dựng lại theo stub của từng test
+    @BeforeEach
+    void resetCatalog() {
+        catalog.invalidate();
+    }
+
     @Test
     @DisplayName("TC1: GET /api/products - Lay danh sach san pham") 
     void testGetAllProducts() throws Exception {
@@ -60,9 +120,11 @@ public class ProductControllerIntegrationTest {
 
         List<Product> listGia = Arrays.asList(laptop, mouse);
         when(productRepository.findAll()).thenReturn(listGia); 
+        when(productRepository.listVersion()).thenReturn(listVersion(2, 0, 2));
 
         mockMvc.perform(get("/api/products")) 
             .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"2-0-2\""))
             .andExpect(jsonPath("$", hasSize(2))) 
             .andExpect(jsonPath("$[0].name", is("Laptop"))); 
 
@@ -155,4 +217,293 @@ public class ProductControllerIntegrationTest {
         verify(productRepository, times(1)).existsById(1L);
         verify(productRepository, times(1)).deleteById(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("TC6: GET /api/products/page - Phan trang theo cursor")
+    void testGetPageByCursor() throws Exception {
+        Product p1 = new Product();
+        p1.setId(1L);
+        p1.setName("Laptop");
+        Product p2 = new Product();
+        p2.setId(2L);
+        p2.setName("Mouse");
+        Product p3 = new Product();
+        p3.setId(3L);
+        p3.setName("Keyboard");
+
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(3))))
+            .thenReturn(Arrays.asList(p1, p2, p3));
+
+        mockMvc.perform(get("/api/products/page").param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items", hasSize(2)))
+            .andExpect(jsonPath("$.items[1].name", is("Mouse")))
+            .andExpect(jsonPath("$.hasMore", is(true)))
+            .andExpect(jsonPath("$.nextCursor", notNullValue()));
+    }
+
+    @Test
+    @DisplayName("TC7: GET /api/products/page - Cursor khong hop le")
+    void testGetPageInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/products/page").param("cursor", "%%%"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("TC8: GET /api/products/export - Stream NDJSON")
+    void testExportNdjson() throws Exception {
+        doAnswer(inv -> {
+            OutputStream out = inv.getArgument(0);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(exportService).exportNdjson(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/products/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+            .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    private ProductBulkItem bulkItem(Long id, String name) {
+        ProductBulkItem item = new ProductBulkItem();
+        item.setId(id);
+        item.setName(name);
+        item.setPrice(1000);
+        item.setQuantity(3);
+        item.setCategory("FOOD");
+        return item;
+    }
+
+    @Test
+    @DisplayName("TC9: POST /api/products/bulk - Tao va cap nhat hang loat")
+    void testBulkUpsert() throws Exception {
+        List<ProductBulkItem> items = Arrays.asList(
+            bulkItem(null, "Banh mi"), bulkItem(7L, "Pho bo"), bulkItem(8L, "Bun cha"), bulkItem(null, "Com tam"));
+
+        when(bulkWriter.insertAll(anyList(), anyInt())).thenReturn(Arrays.asList(100L, 101L));
+        when(bulkWriter.updateAll(anyList(), anyInt())).thenReturn(new int[] {1, 0});
+
+        mockMvc.perform(post("/api/products/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(items)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created", is(2)))
+            .andExpect(jsonPath("$.updated", is(1)))
+            .andExpect(jsonPath("$.failed", is(1)))
+            .andExpect(jsonPath("$.items[0].id", is(100)))
+            .andExpect(jsonPath("$.items[1].status", is("UPDATED")))
+            .andExpect(jsonPath("$.items[2].status", is("NOT_FOUND")))
+            .andExpect(jsonPath("$.items[3].id", is(101)));
+    }
+
+    @Test
+    @DisplayName("TC10: POST /api/products/bulk - Co phan tu loi thi khong ghi gi")
+    void testBulkRejectsInvalid() throws Exception {
+        ProductBulkItem bad = bulkItem(null, "x");
+        bad.setCategory("KHONG_CO");
+        List<ProductBulkItem> items = Arrays.asList(bulkItem(null, "Banh mi"), bad);
+
+        mockMvc.perform(post("/api/products/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(items)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.items[1].status", is("INVALID")))
+            .andExpect(jsonPath("$.created", is(0)));
+
+        verify(bulkWriter, never()).insertAll(anyList(), anyInt());
+        verify(bulkWriter, never()).updateAll(anyList(), anyInt());
+    }
+
+    @Test
+    @DisplayName("TC11: GET /api/products/search - Tim kiem theo tu khoa")
+    void testSearch() throws Exception {
+        Product banh = new Product();
+        banh.setId(1L);
+        banh.setName("Bánh ướt lòng gà");
+        when(searchService.search("banh uot", 20)).thenReturn(List.of(banh));
+
+        mockMvc.perform(get("/api/products/search").param("q", "banh uot"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].name", is("Bánh ướt lòng gà")));
+    }
+
+    @Test
+    @DisplayName("TC12: GET /api/products/stats - Thong ke theo category")
+    void testCategoryStats() throws Exception {
+        when(categoryStats.snapshot()).thenReturn(List.of(
+            new CategoryStats(Category.ELECTRONICS, 3, 65, 1_500_000L),
+            new CategoryStats(Category.FOOD, 1, 4, 140_000L)));
+
+        mockMvc.perform(get("/api/products/stats"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].category", is("ELECTRONICS")))
+            .andExpect(jsonPath("$[1].inventoryValue", is(140000)));
+    }
+
+    @Test
+    @DisplayName("TC13: GET /api/products - If-None-Match khop thi 304, snapshot chi doc DB mot lan")
+    void testListNotModified() throws Exception {
+        when(productRepository.listVersion()).thenReturn(listVersion(5, 7, 9));
+        when(productRepository.findAll()).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/products").header("If-None-Match", "\"5-7-9\""))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+        mockMvc.perform(get("/api/products").header("If-None-Match", "\"5-7-9\""))
+            .andExpect(status().isNotModified());
+
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("TC14: GET /api/products/{id} - ETag theo version, 304 khi khop")
+    void testGetProductNotModified() throws Exception {
+        Product laptop = new Product();
+        laptop.setId(1L);
+        laptop.setName("Laptop Dell");
+        laptop.setVersion(3L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(laptop));
+
+        mockMvc.perform(get("/api/products/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"3\""));
+
+        mockMvc.perform(get("/api/products/1").header("If-None-Match", "\"3\""))
+            .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/api/products/1").header("If-None-Match", "\"2\""))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("TC15: PUT/DELETE /api/products/{id} - If-Match cu thi 412")
+    void testIfMatchPreconditionFailed() throws Exception {
+        ProductRequest requestData = new ProductRequest();
+        requestData.setName("Laptop Updated");
+        requestData.setPrice(2000);
+        requestData.setCategory("ELECTRONICS");
+        requestData.setQuantity(5);
+
+        Product current = new Product();
+        current.setId(1L);
+        current.setName("Laptop");
+        current.setVersion(4L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(current));
+        when(productRepository.existsById(1L)).thenReturn(true);
+
+        mockMvc.perform(put("/api/products/1")
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestData)))
+            .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(delete("/api/products/1").header("If-Match", "\"3\""))
+            .andExpect(status().isPreconditionFailed());
+
+        verify(productRepository, never()).save(any(Product.class));
+        verify(productRepository, never()).deleteById(1L);
+    }
+
+    @Test
+    @DisplayName("TC16: GET /api/products - Tra ban gzip san, snapshot het han sau khi ghi")
+    void testListGzipSnapshot() throws Exception {
+        Product laptop = new Product();
+        laptop.setId(1L);
+        laptop.setName("Laptop");
+        when(productRepository.listVersion()).thenReturn(listVersion(1, 0, 1));
+        when(productRepository.findAll()).thenReturn(List.of(laptop));
+
+        MvcResult res = mockMvc.perform(get("/api/products").header("Accept-Encoding", "gzip, deflate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Encoding", "gzip"))
+            .andExpect(header().string("ETag", "\"1-0-1-gzip\""))
+            .andReturn();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(res.getResponse().getContentAsByteArray()))) {
+            List<?> body = objectMapper.readValue(in, List.class);
+            assertEquals(1, body.size());
+        }
+
+        mockMvc.perform(get("/api/products"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("Content-Encoding"))
+            .andExpect(jsonPath("$[0].name", is("Laptop")));
+        verify(productRepository, times(1)).findAll();
+
+        // Xoá sản phẩm -> ProductChangedEvent -> lần đọc sau dựng lại snapshot
+        when(productRepository.existsById(1L)).thenReturn(true);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(laptop));
+        mockMvc.perform(delete("/api/products/1")).andExpect(status().isNoContent());
+        when(productRepository.findAll()).thenReturn(List.of());
+        mockMvc.perform(get("/api/products"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(0)));
+        verify(productRepository, times(2)).findAll();
+    }
+
+    @Test
+    @DisplayName("TC18: GET /api/products?fields= - Chi tra cac cot duoc chon")
+    void testListSparseFields() throws Exception {
+        when(productRepository.listVersion()).thenReturn(listVersion(1, 0, 1));
+        when(productRepository.findFieldsAfter(EnumSet.of(ProductField.ID, ProductField.NAME), 0L, 0))
+            .thenReturn(List.of(Map.of("id", 1L, "name", "Laptop")));
+
+        MvcResult res = mockMvc.perform(get("/api/products").param("fields", "name"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].name", is("Laptop")))
+            .andExpect(jsonPath("$[0].description").doesNotExist())
+            .andReturn();
+        String etag = res.getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/products").param("fields", "name").header("If-None-Match", etag))
+            .andExpect(status().isNotModified());
+        verify(productRepository, never()).findAll();
+
+        mockMvc.perform(get("/api/products").param("fields", "password"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("TC17: PATCH /api/products/{id}/stock - Dieu chinh ton kho")
+    void testAdjustStock() throws Exception {
+        Product laptop = new Product();
+        laptop.setId(1L);
+        laptop.setName("Laptop");
+        laptop.setQuantity(7);
+        laptop.setVersion(2L);
+        when(productRepository.adjustQuantity(1L, -3)).thenReturn(1);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(laptop));
+
+        mockMvc.perform(patch("/api/products/1/stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new StockAdjustment(-3))))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"2\""))
+            .andExpect(jsonPath("$.quantity", is(7)));
+
+        when(productRepository.adjustQuantity(1L, -100)).thenReturn(0);
+        when(productRepository.existsById(1L)).thenReturn(true);
+        mockMvc.perform(patch("/api/products/1/stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new StockAdjustment(-100))))
+            .andExpect(status().isConflict());
+
+        mockMvc.perform(patch("/api/products/1/stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+            .andExpect(status().isBadRequest());
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    private static ProductListVersion listVersion(long products, long versionSum, long maxId) {
+        return new ProductListVersion() {
+            public long getProducts() { return products; }
+            public long getVersionSum() { return versionSum; }
+            public long getMaxId() { return maxId; }
+        };
+    }
+}
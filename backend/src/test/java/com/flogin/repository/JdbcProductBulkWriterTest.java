@@ -0,0 +1,67 @@
+package com.flogin.repository;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("JdbcProductBulkWriter Unit Tests")
+class JdbcProductBulkWriterTest {
+  @Mock JdbcTemplate jdbc;
+
+  static Product product(long id) {
+    Product p = new Product();
+    p.setId(id);
+    p.setName("Sản phẩm " + id);
+    p.setPrice(1000);
+    p.setQuantity(1);
+    p.setCategory(Category.FOOD);
+    return p;
+  }
+
+  @Test
+  @DisplayName("TC1: SUCCESS_NO_INFO không coi là đã ghi: kiểm tra lại id, id không còn -> 0")
+  @SuppressWarnings("unchecked")
+  void resolvesUnknownCounts() {
+    when(jdbc.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+        .thenReturn(new int[][] { { Statement.SUCCESS_NO_INFO, 0 }, { Statement.SUCCESS_NO_INFO } });
+    when(jdbc.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(3L));
+
+    int[] counts = new JdbcProductBulkWriter(jdbc).updateAll(List.of(product(1), product(2), product(3)), 2);
+
+    assertArrayEquals(new int[] { 0, 0, 1 }, counts);
+  }
+
+  @Test
+  @DisplayName("TC2: driver trả số dòng cụ thể -> dùng luôn, không truy vấn thêm")
+  @SuppressWarnings("unchecked")
+  void keepsKnownCounts() {
+    when(jdbc.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+        .thenReturn(new int[][] { { 1, 0 } });
+
+    int[] counts = new JdbcProductBulkWriter(jdbc).adjustQuantities(List.of(Map.entry(1L, -1), Map.entry(2L, 5)), 500);
+
+    assertArrayEquals(new int[] { 1, 0 }, counts);
+    verify(jdbc, never()).queryForList(anyString(), eq(Long.class), any(Object[].class));
+  }
+}
@@ -0,0 +1,127 @@
+package com.flogin.repository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.flogin.dto.CategoryTotals;
+import com.flogin.dto.ProductField;
+import com.flogin.dto.ProductListVersion;
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+
+@DisplayName("LogProductRepository Tests")
+class LogProductRepositoryTest {
+  @TempDir
+  Path dir;
+
+  ProductLogStore store;
+  LogProductRepository repo;
+
+  @BeforeEach
+  void setUp() {
+    store = new ProductLogStore(dir, 4096, false, 0, 0.5);
+    repo = new LogProductRepository(store);
+    repo.save(product("Laptop Dell", 15000000, 10, Category.ELECTRONICS));
+    repo.save(product("Áo thun", 150000, 100, Category.FASHION));
+    repo.save(product("Mouse", 200000, 50, Category.ELECTRONICS));
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    store.close();
+  }
+
+  static Product product(String name, int price, int quantity, Category category) {
+    Product p = new Product();
+    p.setName(name);
+    p.setPrice(price);
+    p.setQuantity(quantity);
+    p.setCategory(category);
+    return p;
+  }
+
+  @Test
+  @DisplayName("save: id null là thêm mới; bản cũ (version lệch) hoặc đã bị xoá -> ObjectOptimisticLockingFailureException")
+  void saveLikeJpa() {
+    Product p = repo.findById(1L).orElseThrow();
+    Product stale = repo.findById(1L).orElseThrow();
+    p.setQuantity(9);
+    assertEquals(1L, repo.save(p).getVersion());
+
+    assertThrows(ObjectOptimisticLockingFailureException.class, () -> repo.save(stale));
+    Product gone = repo.findById(2L).orElseThrow();
+    repo.deleteById(2L);
+    assertThrows(ObjectOptimisticLockingFailureException.class, () -> repo.save(gone));
+  }
+
+  @Test
+  @DisplayName("findByIdGreaterThanOrderByIdAsc / findSummariesAfter / findFieldsAfter: keyset theo id")
+  void keysetQueries() {
+    assertEquals(List.of(2L, 3L), repo.findByIdGreaterThanOrderByIdAsc(1L, Limit.unlimited()).stream()
+        .map(Product::getId).toList());
+    assertEquals("Áo thun", repo.findSummariesAfter(1L, Limit.of(1)).get(0).getName());
+    assertEquals(List.of(Map.of("id", 3L, "price", 200000)),
+        repo.findFieldsAfter(EnumSet.of(ProductField.ID, ProductField.PRICE), 2L, 0));
+  }
+
+  @Test
+  @DisplayName("findAll(Pageable) không sắp hoặc sắp theo id: đi theo index, bỏ qua dòng đã xoá, total đúng")
+  void pagingById() {
+    repo.save(product("Bàn phím", 500000, 20, Category.ELECTRONICS));
+    repo.deleteById(2L);
+
+    Page<Product> second = repo.findAll(PageRequest.of(1, 2));
+    assertEquals(List.of(4L), second.getContent().stream().map(Product::getId).toList());
+    assertEquals(3L, second.getTotalElements());
+    assertEquals(List.of(4L, 3L), repo.findAll(PageRequest.of(0, 2, Sort.by("id").descending())).getContent().stream()
+        .map(Product::getId).toList());
+    assertEquals(List.of(), repo.findAll(PageRequest.of(5, 2)).getContent());
+  }
+
+  @Test
+  @DisplayName("findAll(Pageable) sắp theo thuộc tính; streamAllOrderById đi hết theo id")
+  void pagingAndStreaming() {
+    assertEquals(List.of("Laptop Dell", "Mouse"),
+        repo.findAll(PageRequest.of(0, 2, Sort.by("price").descending())).getContent().stream()
+            .map(Product::getName).toList());
+    assertEquals(3L, repo.findAll(PageRequest.of(1, 2)).getTotalElements());
+    try (Stream<Product> rows = repo.streamAllOrderById()) {
+      assertEquals(List.of(1L, 2L, 3L), rows.map(Product::getId).toList());
+    }
+  }
+
+  @Test
+  @DisplayName("sumByCategory, listVersion và adjustQuantity có điều kiện như câu SQL của ProductRepository")
+  void aggregatesAndStock() {
+    CategoryTotals electronics = repo.sumByCategory().stream()
+        .filter(t -> t.getCategory() == Category.ELECTRONICS).findFirst().orElseThrow();
+    assertEquals(2L, electronics.getProducts());
+    assertEquals(60L, electronics.getStock());
+    assertEquals(15000000L * 10 + 200000L * 50, electronics.getInventoryValue());
+
+    assertEquals(0, repo.adjustQuantity(1L, -11));
+    assertEquals(1, repo.adjustQuantity(1L, -10));
+    repo.deleteById(3L);
+    ProductListVersion v = repo.listVersion();
+    assertEquals(2L, v.getProducts());
+    assertEquals(1L, v.getVersionSum());
+    assertEquals(2L, v.getMaxId());
+  }
+}
@@ -0,0 +1,246 @@
+package com.flogin.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+
+@DisplayName("ProductLogStore Tests")
+class ProductLogStoreTest {
+  @TempDir
+  Path dir;
+
+  ProductLogStore store;
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (store != null) store.close();
+  }
+
+  ProductLogStore open() throws IOException {
+    if (store != null) store.close();
+    store = new ProductLogStore(dir, 4096, false, 0, 0.5);
+    return store;
+  }
+
+  static Product product(String name, int price, int quantity) {
+    Product p = new Product();
+    p.setName(name);
+    p.setPrice(price);
+    p.setQuantity(quantity);
+    p.setCategory(Category.FOOD);
+    p.setDescription("Mô tả " + name);
+    return p;
+  }
+
+  List<Path> logFiles() throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.filter(f -> f.getFileName().toString().endsWith(".log")).sorted().toList();
+    }
+  }
+
+  @Test
+  @DisplayName("TC1: insert cấp id tăng dần, version 0; get đọc lại đúng kể cả chuỗi tiếng Việt và description null")
+  void insertAndGet() throws IOException {
+    open();
+    Product a = store.insert(product("Bánh ướt lòng gà", 35000, 4));
+    Product b = product("Mouse", 200000, 50);
+    b.setDescription(null);
+    store.insert(b);
+
+    assertEquals(1L, a.getId());
+    assertEquals(2L, b.getId());
+    assertEquals(0L, a.getVersion());
+    Product read = store.get(1L);
+    assertEquals("Bánh ướt lòng gà", read.getName());
+    assertEquals("Mô tả Bánh ướt lòng gà", read.getDescription());
+    assertEquals(Category.FOOD, read.getCategory());
+    assertNull(store.get(2L).getDescription());
+    assertNull(store.get(3L));
+    assertEquals(2L, store.count());
+  }
+
+  @Test
+  @DisplayName("TC2: update tăng version; version cũ -> ObjectOptimisticLockingFailureException; id không tồn tại -> null")
+  void updateChecksVersion() throws IOException {
+    open();
+    Product p = store.insert(product("Áo thun", 150000, 100));
+    Product stale = store.get(p.getId());
+
+    p.setPrice(160000);
+    assertEquals(1L, store.update(p, true).getVersion());
+    assertEquals(160000, store.get(p.getId()).getPrice());
+
+    assertThrows(ObjectOptimisticLockingFailureException.class, () -> store.update(stale, true));
+    Product missing = product("Không có", 1, 1);
+    missing.setId(99L);
+    assertNull(store.update(missing, false));
+    assertEquals(1L, store.versionSum());
+  }
+
+  @Test
+  @DisplayName("TC3: delete bỏ khỏi index; findAfter theo thứ tự id và bỏ qua dòng đã xoá; maxId là id lớn nhất còn lại")
+  void deleteAndScan() throws IOException {
+    open();
+    for (int i = 1; i <= 5; i++) store.insert(product("Sản phẩm " + i, i, i));
+
+    assertTrue(store.delete(2L));
+    assertFalse(store.delete(2L));
+    assertTrue(store.delete(5L));
+
+    assertEquals(List.of(1L, 3L, 4L), store.findAfter(0L, 0).stream().map(Product::getId).toList());
+    assertEquals(List.of(3L), store.findAfter(1L, 1).stream().map(Product::getId).toList());
+    assertEquals(3L, store.count());
+    assertEquals(4L, store.maxId());
+  }
+
+  @Test
+  @DisplayName("TC4: adjustQuantities: clamp kẹp trong [0, 99999]; không clamp thì bỏ qua khi vượt khoảng")
+  void adjustQuantities() throws IOException {
+    open();
+    store.insert(product("Laptop", 15000000, 10));
+
+    assertArrayEquals(new int[] { 0, 0 },
+        store.adjustQuantities(List.of(Map.entry(1L, -11), Map.entry(9L, 1)), false));
+    assertEquals(10, store.get(1L).getQuantity());
+    assertArrayEquals(new int[] { 1 }, store.adjustQuantities(List.of(Map.entry(1L, -11)), true));
+    assertEquals(0, store.get(1L).getQuantity());
+    assertEquals(1L, store.get(1L).getVersion());
+  }
+
+  @Test
+  @DisplayName("TC5: mở lại dựng index từ log: giữ dữ liệu, update, delete và không cấp lại id đã dùng")
+  void recoversOnReopen() throws IOException {
+    open();
+    store.insert(product("A", 1, 1));
+    Product b = store.insert(product("B", 2, 2));
+    store.insert(product("C", 3, 3));
+    b.setName("B2");
+    store.update(b, true);
+    store.delete(3L);
+
+    open();
+    assertEquals(2L, store.count());
+    assertEquals("B2", store.get(2L).getName());
+    assertEquals(1L, store.get(2L).getVersion());
+    assertNull(store.get(3L));
+    assertEquals(4L, store.insert(product("D", 4, 4)).getId());
+  }
+
+  @Test
+  @DisplayName("TC6: bản ghi cuối ghi dở (sai CRC) bị bỏ khi mở lại, ghi tiếp không dính rác cũ")
+  void dropsTornTail() throws IOException {
+    open();
+    store.insert(product("A", 1, 1));
+    store.insert(product("B", 2, 2));
+    store.close();
+    store = null;
+
+    // Hỏng 1 byte trong body của bản ghi thứ hai
+    Path file = logFiles().get(0);
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ByteBuffer len = ByteBuffer.allocate(4);
+      ch.read(len, ProductLogStore.HEADER);
+      int second = ProductLogStore.HEADER + ProductLogStore.RECORD_HEADER + len.getInt(0);
+      ch.write(ByteBuffer.wrap(new byte[] { 0x7f }), second + ProductLogStore.RECORD_HEADER + 20);
+    }
+
+    open();
+    assertEquals(1L, store.count());
+    assertNull(store.get(2L));
+    store.insert(product("C", 3, 3));
+    open();
+    assertEquals(List.of("A", "C"), store.findAfter(0L, 0).stream().map(Product::getName).toList());
+  }
+
+  @Test
+  @DisplayName("TC7: compact chỉ giữ bản ghi còn sống, sang file thế hệ mới; mở lại vẫn đúng và không dùng lại id")
+  void compacts() throws IOException {
+    open();
+    Product p = store.insert(product("Nồi cơm", 500000, 5));
+    for (int i = 0; i < 50; i++) {
+      p.setQuantity(i);
+      store.update(p, true);
+    }
+    store.insert(product("Xoá", 1, 1));
+    store.delete(2L);
+    long before = store.garbageBytes();
+
+    store.compactIfNeeded();
+    assertTrue(before > 0);
+    assertEquals(0L, store.garbageBytes());
+    assertEquals(List.of(dir.resolve("products-000002.log")), logFiles());
+    assertEquals(49, store.get(1L).getQuantity());
+
+    open();
+    assertEquals(1L, store.count());
+    assertEquals(50L, store.get(1L).getVersion());
+    assertEquals(3L, store.insert(product("Mới", 1, 1)).getId());
+  }
+
+  @Test
+  @DisplayName("TC8: file compact dở (chưa có magic) bị bỏ, dùng file cũ")
+  void ignoresUnfinishedCompaction() throws IOException {
+    open();
+    store.insert(product("A", 1, 1));
+    store.close();
+    store = null;
+    Files.write(dir.resolve("products-000002.log"), new byte[64]);
+
+    open();
+    assertEquals(1L, store.count());
+    assertEquals(List.of(dir.resolve("products-000001.log")), logFiles());
+  }
+
+  @Test
+  @DisplayName("TC9: ghi vượt kích thước map ban đầu thì tự mở rộng")
+  void growsMapping() throws IOException {
+    open();
+    List<Product> batch = new ArrayList<>();
+    for (int i = 0; i < 500; i++) batch.add(product("Sản phẩm số " + i, i + 1, i));
+    List<Long> ids = store.insertAll(batch);
+
+    assertEquals(500, ids.size());
+    assertTrue(Files.size(logFiles().get(0)) > 4096);
+    open();
+    assertEquals(500L, store.count());
+    assertEquals("Sản phẩm số 499", store.get(500L).getName());
+  }
+
+  @Test
+  @DisplayName("TC10: thư mục đang được mở -> mở lần hai báo lỗi ngay, không đụng vào log; close rồi mở lại được")
+  void rejectsSecondOpen() throws IOException {
+    open();
+    store.insert(product("A", 1, 1));
+
+    IllegalStateException ex = assertThrows(IllegalStateException.class,
+        () -> new ProductLogStore(dir, 4096, false, 0, 0.5));
+    assertTrue(ex.getMessage().contains("đang được tiến trình khác mở"));
+    assertEquals(List.of(dir.resolve("products-000001.log")), logFiles());
+    assertEquals("A", store.get(1L).getName());
+
+    open();
+    assertEquals(1L, store.count());
+  }
+}
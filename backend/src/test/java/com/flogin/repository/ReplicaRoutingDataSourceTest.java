@@ -0,0 +1,198 @@
+package com.flogin.repository;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+
+import com.flogin.repository.ReplicaRoutingDataSource.Selection;
+import com.zaxxer.hikari.HikariDataSource;
+
+@DisplayName("ReplicaRoutingDataSource Tests (H2 nhúng)")
+class ReplicaRoutingDataSourceTest {
+  static final String LAG_QUERY = "select Seconds_Behind_Source from replica_status";
+
+  ReplicaRoutingDataSource routing;
+
+  // Mỗi CSDL có bảng whoami để biết câu SELECT chạy ở đâu, replica có thêm replica_status để giả lập độ trễ
+  static DataSource database(String name) {
+    DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate jdbc = new JdbcTemplate(ds);
+    jdbc.execute("create table if not exists whoami (name varchar(20))");
+    jdbc.execute("delete from whoami");
+    jdbc.update("insert into whoami values (?)", name);
+    jdbc.execute("create table if not exists replica_status (Seconds_Behind_Source int)");
+    jdbc.execute("delete from replica_status");
+    jdbc.execute("insert into replica_status values (0)");
+    return ds;
+  }
+
+  static Map<String, DataSource> replicas(DataSource... ds) {
+    Map<String, DataSource> map = new LinkedHashMap<>();
+    for (int i = 0; i < ds.length; i++) map.put("replica-" + i, ds[i]);
+    return map;
+  }
+
+  // Như ReplicaDataSourceConfig.ReplicaLabelTransactionManager nhưng trên JDBC thuần
+  static final class LabelTransactionManager extends DataSourceTransactionManager {
+    LabelTransactionManager(DataSource ds) { super(ds); }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+      ReplicaRoutingDataSource.begin(definition);
+      super.doBegin(transaction, definition);
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+      super.doCleanupAfterCompletion(transaction);
+      ReplicaRoutingDataSource.end();
+    }
+  }
+
+  // readOnly = true: transaction có nhãn REPLICA như các đường đọc trả thẳng cho client
+  String read(DataSource proxy, boolean readOnly) {
+    return read(proxy, readOnly, readOnly ? List.of(ReplicaRoutingDataSource.REPLICA) : List.of());
+  }
+
+  String read(DataSource proxy, boolean readOnly, List<String> labels) {
+    DefaultTransactionAttribute def = new DefaultTransactionAttribute();
+    def.setReadOnly(readOnly);
+    def.setLabels(labels);
+    PlatformTransactionManager tm = new LabelTransactionManager(proxy);
+    TransactionStatus status = tm.getTransaction(def);
+    try {
+      return new JdbcTemplate(proxy).queryForObject("select name from whoami", String.class);
+    } finally {
+      tm.commit(status);
+    }
+  }
+
+  DataSource proxy(DataSource primary, Map<String, DataSource> replicas, Selection selection) {
+    routing = new ReplicaRoutingDataSource(primary, replicas, selection, Duration.ofSeconds(5), LAG_QUERY,
+        "Seconds_Behind_Source");
+    LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+    proxy.setReadOnlyDataSource(routing);
+    return proxy;
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (routing != null) routing.close();
+  }
+
+  @Test @DisplayName("TC1: readOnly doc tu replica, con lai ghi/doc tu primary")
+  void testReadOnlyGoesToReplica() {
+    DataSource proxy = proxy(database("primary"), replicas(database("replica1")), Selection.ROUND_ROBIN);
+
+    assertEquals("replica1", read(proxy, true));
+    assertEquals("primary", read(proxy, false));
+    assertEquals("primary", new JdbcTemplate(proxy).queryForObject("select name from whoami", String.class));
+  }
+
+  @Test @DisplayName("TC6: readOnly khong co nhan REPLICA (nap cache, snapshot...) doc tu primary")
+  void testUnlabeledReadOnlyStaysOnPrimary() {
+    DataSource proxy = proxy(database("primary"), replicas(database("replica1")), Selection.ROUND_ROBIN);
+
+    assertEquals("primary", read(proxy, true, List.of()));
+    assertEquals("replica1", read(proxy, true));
+    // Nhãn chỉ có hiệu lực trong transaction của nó
+    assertEquals("primary", read(proxy, true, List.of()));
+  }
+
+  @Test @DisplayName("TC7: getConnection(username, password) chuyen cho replica da chon")
+  void testConnectionWithCredentials() throws Exception {
+    DataSource proxy = proxy(database("primary"), replicas(database("replica1")), Selection.ROUND_ROBIN);
+    ReplicaRoutingDataSource.begin(replicaRead());
+    try (Connection con = routing.getConnection("sa", "")) {
+      assertEquals("replica1", new JdbcTemplate(new SingleConnectionDataSource(con, true))
+          .queryForObject("select name from whoami", String.class));
+    } finally {
+      ReplicaRoutingDataSource.end();
+    }
+    try (Connection con = routing.getConnection("sa", "")) {
+      assertEquals("primary", new JdbcTemplate(new SingleConnectionDataSource(con, true))
+          .queryForObject("select name from whoami", String.class));
+    }
+    assertEquals("primary", read(proxy, false));
+  }
+
+  static DefaultTransactionAttribute replicaRead() {
+    DefaultTransactionAttribute def = new DefaultTransactionAttribute();
+    def.setReadOnly(true);
+    def.setLabels(List.of(ReplicaRoutingDataSource.REPLICA));
+    return def;
+  }
+
+  @Test @DisplayName("TC2: Round-robin giua cac replica")
+  void testRoundRobin() {
+    DataSource proxy = proxy(database("primary"), replicas(database("rr1"), database("rr2")), Selection.ROUND_ROBIN);
+
+    assertEquals(List.of("rr1", "rr2", "rr1"), List.of(read(proxy, true), read(proxy, true), read(proxy, true)));
+  }
+
+  @Test @DisplayName("TC3: Replica tre qua max-lag thi doc tu primary, het tre thi dung lai")
+  void testLagFallback() {
+    DataSource replica = database("lagging");
+    DataSource proxy = proxy(database("primary"), replicas(replica), Selection.ROUND_ROBIN);
+
+    new JdbcTemplate(replica).update("update replica_status set Seconds_Behind_Source = 30");
+    routing.checkLag();
+    assertEquals("primary", read(proxy, true));
+
+    new JdbcTemplate(replica).update("update replica_status set Seconds_Behind_Source = 1");
+    routing.checkLag();
+    assertEquals("lagging", read(proxy, true));
+  }
+
+  @Test @DisplayName("TC4: Replica khong ket noi duoc thi doc tu primary")
+  void testUnreachableReplica() {
+    DataSource broken = new DriverManagerDataSource("jdbc:h2:mem:missing;IFEXISTS=TRUE", "sa", "");
+    DataSource proxy = proxy(database("primary"), replicas(broken), Selection.ROUND_ROBIN);
+
+    assertEquals("primary", read(proxy, true));
+    routing.checkLag();
+    assertEquals("primary", read(proxy, true));
+  }
+
+  @Test @DisplayName("TC5: Least-connections chon replica dang it ket noi nhat")
+  void testLeastConnections() throws Exception {
+    database("lc1");
+    database("lc2");
+    try (HikariDataSource lc1 = hikari("lc1"); HikariDataSource lc2 = hikari("lc2")) {
+      DataSource proxy = proxy(database("primary"), replicas(lc1, lc2), Selection.LEAST_CONNECTIONS);
+      try (Connection busy = lc1.getConnection()) {
+        assertEquals("lc2", read(proxy, true));
+      }
+      try (Connection busy = lc2.getConnection()) {
+        assertEquals("lc1", read(proxy, true));
+      }
+    }
+  }
+
+  static HikariDataSource hikari(String name) {
+    HikariDataSource ds = new HikariDataSource();
+    ds.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+    ds.setUsername("sa");
+    ds.setPoolName(name);
+    ds.setMaximumPoolSize(2);
+    return ds;
+  }
+}
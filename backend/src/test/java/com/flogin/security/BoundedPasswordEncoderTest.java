@@ -0,0 +1,87 @@
+package com.flogin.security;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("BoundedPasswordEncoder Unit Tests")
+class BoundedPasswordEncoderTest {
+  BoundedPasswordEncoder encoder;
+  ExecutorService callers = Executors.newFixedThreadPool(4);
+
+  @AfterEach
+  void tearDown() {
+    callers.shutdownNow();
+    if (encoder != null) encoder.destroy();
+  }
+
+  /** Delegate chặn cho tới khi latch được mở, để lấp đầy pool và hàng đợi. */
+  private static PasswordEncoder blocking(CountDownLatch release) {
+    return new PasswordEncoder() {
+      public String encode(CharSequence raw) { return raw.toString(); }
+      public boolean matches(CharSequence raw, String encoded) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return raw.toString().equals(encoded);
+      }
+    };
+  }
+
+  @Test @DisplayName("TC1: Ket qua matches giong BCrypt goc, ghi nhan latency")
+  void testDelegatesAndRecordsLatency() {
+    BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+    encoder = new BoundedPasswordEncoder(bcrypt, 1, 4, Duration.ofSeconds(5), 1);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    encoder.bindTo(registry);
+
+    String hash = bcrypt.encode("Test123");
+    assertTrue(encoder.matches("Test123", hash));
+    assertFalse(encoder.matches("Wrong123", hash));
+    assertEquals(2, registry.get("flogin.auth.bcrypt.verify").timer().count());
+  }
+
+  @Test @DisplayName("TC2: Pool va hang doi day thi tu choi ngay")
+  void testRejectsWhenSaturated() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    encoder = new BoundedPasswordEncoder(blocking(release), 1, 1, Duration.ofSeconds(5), 3);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    encoder.bindTo(registry);
+
+    callers.submit(() -> encoder.matches("a", "a")); // đang chạy
+    callers.submit(() -> encoder.matches("b", "b")); // nằm trong hàng đợi
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (encoder.getQueueDepth() < 1 && System.nanoTime() < deadline) Thread.sleep(10);
+    assertEquals(1, encoder.getQueueDepth());
+
+    PasswordVerifierBusyException ex = assertThrows(PasswordVerifierBusyException.class, () -> encoder.matches("c", "c"));
+    assertEquals(3, ex.getRetryAfterSeconds());
+    assertEquals(1.0, registry.get("flogin.auth.bcrypt.rejected").counter().count());
+    assertEquals(1.0, registry.get("flogin.auth.bcrypt.queue.depth").gauge().value());
+    release.countDown();
+  }
+
+  @Test @DisplayName("TC3: Cho qua timeout thi bao ban")
+  void testTimeout() {
+    CountDownLatch release = new CountDownLatch(1);
+    encoder = new BoundedPasswordEncoder(blocking(release), 1, 1, Duration.ofMillis(50), 1);
+    assertThrows(PasswordVerifierBusyException.class, () -> encoder.matches("a", "a"));
+    release.countDown();
+  }
+}
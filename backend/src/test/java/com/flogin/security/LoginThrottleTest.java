@@ -0,0 +1,69 @@
+package com.flogin.security;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("LoginThrottle Unit Tests")
+class LoginThrottleTest {
+  final AtomicLong now = new AtomicLong();
+
+  LoginThrottle throttle() {
+    return new LoginThrottle(3, Duration.ofSeconds(10), 5, Duration.ofSeconds(1), 1000, now::get);
+  }
+
+  @Test @DisplayName("TC1: Het token cua username thi 429, hoi lai theo thoi gian")
+  void testUsernameBucket() {
+    LoginThrottle t = throttle();
+    for (int i = 0; i < 3; i++) t.acquire("Admin", "10.0.0." + i);
+    LoginThrottledException ex = assertThrows(LoginThrottledException.class, () -> t.acquire(" admin ", "10.0.0.9"));
+    assertEquals(10, ex.getRetryAfterSeconds());
+
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    assertDoesNotThrow(() -> t.acquire("admin", "10.0.0.9"));
+    assertThrows(LoginThrottledException.class, () -> t.acquire("admin", "10.0.0.9"));
+  }
+
+  @Test @DisplayName("TC2: Mot IP thu nhieu username van bi chan")
+  void testIpBucket() {
+    LoginThrottle t = throttle();
+    for (int i = 0; i < 5; i++) t.acquire("user" + i, "10.0.0.1");
+    assertThrows(LoginThrottledException.class, () -> t.acquire("other", "10.0.0.1"));
+    assertDoesNotThrow(() -> t.acquire("other", "10.0.0.2"));
+  }
+
+  @Test @DisplayName("TC3: Dang nhap dung thi reset bucket cua username")
+  void testReset() {
+    LoginThrottle t = throttle();
+    for (int i = 0; i < 3; i++) t.acquire("admin", null);
+    t.reset("ADMIN");
+    assertDoesNotThrow(() -> t.acquire("admin", null));
+  }
+
+  @Test @DisplayName("TC4: Goi dong thoi khong cap qua capacity")
+  void testConcurrent() throws Exception {
+    LoginThrottle t = throttle();
+    AtomicInteger allowed = new AtomicInteger();
+    try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+      for (int i = 0; i < 200; i++) {
+        pool.submit(() -> {
+          try {
+            t.acquire("admin", null);
+            allowed.incrementAndGet();
+          } catch (LoginThrottledException ignored) {
+            // bi chan
+          }
+        });
+      }
+    }
+    assertEquals(3, allowed.get());
+  }
+}
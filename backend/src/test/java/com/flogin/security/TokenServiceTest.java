@@ -0,0 +1,74 @@
+package com.flogin.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+@DisplayName("TokenService Unit Tests")
+class TokenServiceTest {
+  static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+  TokenService at(Instant now) {
+    return new TokenService("test-secret", Duration.ofHours(1), Clock.fixed(now, ZoneOffset.UTC));
+  }
+
+  @Test @DisplayName("TC1: Token hop le tra ve username")
+  void testRoundTrip() {
+    TokenService tokens = at(NOW);
+    assertEquals("admin", tokens.verify(tokens.issue("admin")));
+    assertEquals("a|b", tokens.verify(tokens.issue("a|b")));
+  }
+
+  @Test @DisplayName("TC2: Token bi sua, sai secret hoac sai dinh dang thi tu choi")
+  void testTampered() {
+    TokenService tokens = at(NOW);
+    String token = tokens.issue("admin");
+    String forged = at(NOW).issue("root").split("\\.")[0] + "." + token.split("\\.")[1];
+
+    assertNull(tokens.verify(forged));
+    assertNull(new TokenService("other-secret", Duration.ofHours(1)).verify(token));
+    assertNull(tokens.verify("abc"));
+    assertNull(tokens.verify("a.b.c"));
+    assertNull(tokens.verify("%%%.###"));
+    assertNull(tokens.verify(null));
+  }
+
+  @Test @DisplayName("TC3: Token het han thi tu choi")
+  void testExpired() {
+    String token = at(NOW).issue("admin");
+    assertEquals("admin", at(NOW.plusSeconds(3599)).verify(token));
+    assertNull(at(NOW.plusSeconds(3600)).verify(token));
+  }
+
+  @Test @DisplayName("TC4: Filter tra 401 khi thieu token, cho qua khi token hop le")
+  void testFilter() throws Exception {
+    TokenService tokens = at(NOW);
+    TokenAuthenticationFilter filter = new TokenAuthenticationFilter(tokens);
+
+    MockHttpServletResponse denied = new MockHttpServletResponse();
+    MockFilterChain deniedChain = new MockFilterChain();
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/products"), denied, deniedChain);
+    assertEquals(401, denied.getStatus());
+    assertNull(deniedChain.getRequest());
+
+    MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/products");
+    req.addHeader("Authorization", "Bearer " + tokens.issue("admin"));
+    MockFilterChain chain = new MockFilterChain();
+    filter.doFilter(req, new MockHttpServletResponse(), chain);
+    assertEquals(req, chain.getRequest());
+    assertEquals("admin", req.getAttribute(TokenAuthenticationFilter.USERNAME_ATTRIBUTE));
+
+    MockFilterChain preflight = new MockFilterChain();
+    filter.doFilter(new MockHttpServletRequest("OPTIONS", "/api/products"), new MockHttpServletResponse(), preflight);
+    assertEquals(200, ((MockHttpServletResponse) preflight.getResponse()).getStatus());
+  }
+}
@@ -1,5 +1,6 @@
 package com.flogin.service;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.Set;
 
@@ -15,7 +16,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
@@ -26,6 +31,7 @@ import com.flogin.dto.LoginRequest;
 import com.flogin.dto.LoginResponse;
 import com.flogin.entity.AuthUser;
 import com.flogin.repository.AuthUserRepository;
+import com.flogin.security.TokenService;
 
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
@@ -37,6 +43,9 @@ public class AuthServiceTest {
     @Mock AuthUserRepository repo;
     @Mock PasswordEncoder encoder;
     @Mock Validator vali;
+    @Spy TokenService tokens = new TokenService("test-secret", Duration.ofHours(1));
+    // Chưa nạp nên luôn trả "có thể có": các TC cũ vẫn đi qua repo
+    @Spy UsernameBloomFilter usernames = new UsernameBloomFilter(null, 100, 0.01, Duration.ZERO);
 
     //framework của Mock sẽ tự động tạo new AuthService rồi nó tự truyền 3 tham số là repo,encoder,vali
     @InjectMocks AuthService authService;
@@ -59,6 +68,7 @@ public class AuthServiceTest {
         assertEquals("Dang nhap thanh cong", res.getMessage());
         assertEquals("testuser", res.getUsername());
         assertNotNull(res.getToken());
+        assertEquals("testuser", tokens.verify(res.getToken()));
     }
 
     @Test
@@ -146,4 +156,18 @@ public class AuthServiceTest {
         assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
         assertEquals("Khong duoc de trong username", ex.getReason());
     }
+
+    @Test
+    @DisplayName("TC8: Bloom filter loai username - khong truy van DB")
+    void testUnknownUsernameSkipsRepository() {
+        LoginRequest req = new LoginRequest("ghost", "Test123");
+        when(vali.validate(req)).thenReturn(Set.of());
+        doReturn(false).when(usernames).mightContain("ghost");
+
+        LoginResponse res = authService.authenticate(req);
+
+        assertFalse(res.isSuccess());
+        assertEquals("Username khong ton tai", res.getMessage());
+        verify(repo, never()).findByUsername("ghost");
+    }
 }
@@ -0,0 +1,308 @@
+package com.flogin.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.flogin.dto.ProductRequest;
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+import com.flogin.repository.LogProductBulkWriter;
+import com.flogin.repository.LogProductRepository;
+import com.flogin.repository.ProductBulkWriter;
+import com.flogin.repository.ProductLogStore;
+import com.flogin.repository.ProductStore;
+import com.flogin.service.InventoryReservationService.Reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("InventoryReservationService Unit Tests")
+class InventoryReservationServiceTest {
+  @Mock ProductStore repo;
+  @Mock ProductBulkWriter writer;
+  @Mock ApplicationEventPublisher events;
+  @Mock PlatformTransactionManager txManager;
+  @Mock CacheManager cacheManager;
+
+  MutableClock clock;
+  InventoryReservationService service;
+
+  static final class MutableClock extends Clock {
+    Instant now = Instant.parse("2026-01-01T00:00:00Z");
+    @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+    @Override public Clock withZone(ZoneId zone) { return this; }
+    @Override public Instant instant() { return now; }
+  }
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock();
+    service = new InventoryReservationService(repo, writer, events, txManager, cacheManager,
+        Duration.ofMinutes(10), 500, clock);
+  }
+
+  private Product product(long id, int quantity) {
+    Product p = new Product();
+    p.setId(id);
+    p.setName("Laptop Dell");
+    p.setPrice(15000000);
+    p.setQuantity(quantity);
+    p.setCategory(Category.ELECTRONICS);
+    p.setVersion(3L);
+    return p;
+  }
+
+  @Test @DisplayName("reserve: trừ tồn kho khả dụng, vượt quá thì 409")
+  void testReserveAndReject() {
+    when(repo.findById(1L)).thenReturn(Optional.of(product(1L, 5)));
+
+    Reservation r = service.reserve(1L, 3);
+    assertEquals(3, r.quantity());
+    assertEquals(2, service.available(1L));
+
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.reserve(1L, 3));
+    assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+    assertEquals(2, service.available(1L));
+  }
+
+  @Test @DisplayName("reserve: sản phẩm không tồn tại -> 404")
+  void testReserveNotFound() {
+    when(repo.findById(9L)).thenReturn(Optional.empty());
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.reserve(9L, 1));
+    assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+  }
+
+  @Test @DisplayName("release: trả lại kho, release lần hai -> 404")
+  void testRelease() {
+    when(repo.findById(1L)).thenReturn(Optional.of(product(1L, 5)));
+    Reservation r = service.reserve(1L, 4);
+
+    service.release(r.id());
+    assertEquals(5, service.available(1L));
+
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.release(r.id()));
+    assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+  }
+
+  @Test @DisplayName("confirm + flush: ghi dồn một batch UPDATE và phát sự kiện stockFlush")
+  void testConfirmThenFlush() {
+    when(repo.findById(1L)).thenReturn(Optional.of(product(1L, 5)));
+    service.confirm(service.reserve(1L, 2).id());
+    service.confirm(service.reserve(1L, 1).id());
+    assertEquals(2, service.available(1L));
+
+    when(writer.lockAll(List.of(1L), 500)).thenReturn(Map.of(1L, product(1L, 5)));
+    when(writer.adjustQuantities(argThat(l -> l.equals(List.of(Map.entry(1L, -3)))), anyInt())).thenReturn(new int[] {1});
+
+    service.flush();
+
+    verify(events).publishEvent(argThat((Object e) -> e instanceof ProductChangedEvent ev
+        && ev.isStockFlush() && ev.getPrevious().getQuantity() == 5 && ev.getProduct().getQuantity() == 2));
+    // Không còn gì để ghi
+    service.flush();
+    verify(writer).adjustQuantities(any(), anyInt());
+  }
+
+  @Test @DisplayName("flush lỗi: giữ lại phần đã bán cho lượt sau")
+  void testFlushFailureRetries() {
+    when(repo.findById(1L)).thenReturn(Optional.of(product(1L, 5)));
+    service.confirm(service.reserve(1L, 2).id());
+
+    when(writer.adjustQuantities(any(), anyInt()))
+        .thenThrow(new IllegalStateException("db down"))
+        .thenReturn(new int[] {1});
+    when(writer.lockAll(List.of(1L), 500)).thenReturn(Map.of(1L, product(1L, 5)));
+
+    service.flush();
+    verify(events, never()).publishEvent(any(Object.class));
+    service.flush();
+    verify(writer, times(2))
+        .adjustQuantities(argThat(l -> l.equals(List.of(Map.entry(1L, -2)))), anyInt());
+  }
+
+  @Test @DisplayName("expireReservations: quá TTL thì trả kho, confirm sau đó -> 404")
+  void testExpiry() {
+    when(repo.findById(1L)).thenReturn(Optional.of(product(1L, 5)));
+    Reservation r = service.reserve(1L, 5);
+
+    clock.now = clock.now.plus(Duration.ofMinutes(5));
+    service.expireReservations();
+    assertEquals(0, service.available(1L));
+
+    clock.now = clock.now.plus(Duration.ofMinutes(6));
+    service.expireReservations();
+    assertEquals(5, service.available(1L));
+    assertThrows(ResponseStatusException.class, () -> service.confirm(r.id()));
+  }
+
+  @Test @DisplayName("onProductChanged: PUT đổi quantity thì cộng phần chênh lệch, bỏ qua sự kiện của flush")
+  void testExternalUpdate() {
+    when(repo.findById(1L)).thenReturn(Optional.of(product(1L, 5)));
+    service.reserve(1L, 2);
+
+    service.onProductChanged(ProductChangedEvent.updated(product(1L, 5), product(1L, 8)));
+    assertEquals(6, service.available(1L));
+
+    service.onProductChanged(ProductChangedEvent.stockFlushed(product(1L, 8), product(1L, 1)));
+    assertEquals(6, service.available(1L));
+  }
+
+  @Test @DisplayName("flush: DB không đủ tồn kho cho phần đã bán -> chỉ ghi phần còn lại, sự kiện theo giá trị đã ghi, đếm bán vượt")
+  void testFlushReportsOversell() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    service.bindTo(registry);
+    when(repo.findById(1L)).thenReturn(Optional.of(product(1L, 5)));
+    service.confirm(service.reserve(1L, 5).id());
+    assertEquals(0, service.available(1L));
+
+    // Ghi trực tiếp vào DB (ngoài ứng dụng) làm quantity chỉ còn 3
+    when(writer.lockAll(List.of(1L), 500)).thenReturn(Map.of(1L, product(1L, 3)));
+    when(writer.adjustQuantities(argThat(l -> l.equals(List.of(Map.entry(1L, -3)))), anyInt())).thenReturn(new int[] {1});
+
+    service.flush();
+
+    verify(events).publishEvent(argThat((Object e) -> e instanceof ProductChangedEvent ev
+        && ev.getPrevious().getQuantity() == 3 && ev.getProduct().getQuantity() == 0 && ev.getProduct().getVersion() == 4L));
+    assertEquals(2.0, registry.get("flogin.inventory.oversold").counter().count());
+    // Bộ đếm đọc lại quantity đã ghi
+    when(repo.findById(1L)).thenReturn(Optional.of(product(1L, 0)));
+    assertEquals(0, service.available(1L));
+  }
+
+  @Test @DisplayName("onProductChanging: giảm quantity dưới phần đang giữ chỗ + đã bán -> 409; rollback thì trả lại phần đã trừ")
+  void testExternalDecreaseChecksReservations() {
+    when(repo.findById(1L)).thenReturn(Optional.of(product(1L, 10)));
+    service.confirm(service.reserve(1L, 3).id());
+    service.reserve(1L, 4);
+    assertEquals(3, service.available(1L));
+
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+        () -> service.onProductChanging(new ProductChangingEvent(1L, -4)));
+    assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+    assertEquals(3, service.available(1L));
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      service.onProductChanging(new ProductChangingEvent(1L, -2));
+      assertEquals(1, service.available(1L));
+      // Sau commit không trừ thêm lần nữa
+      service.onProductChanged(ProductChangedEvent.updated(product(1L, 10), product(1L, 8)));
+      assertEquals(1, service.available(1L));
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+      assertEquals(3, service.available(1L));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test @DisplayName("logstore: PUT, PATCH /stock giảm dưới phần đang giữ chỗ -> 409 trước khi ghi, log giữ nguyên")
+  void testLogStoreDecreaseRejectedBeforeWrite(@TempDir Path dir) throws IOException {
+    try (ProductLogStore store = new ProductLogStore(dir, 4096, false, 0, 0.5)) {
+      LogProductRepository logRepo = new LogProductRepository(store);
+      Product p = product(1L, 10);
+      p.setId(null);
+      p.setVersion(null);
+      long id = logRepo.save(p).getId();
+      InventoryReservationService reservations = new InventoryReservationService(logRepo,
+          new LogProductBulkWriter(store), events, txManager, cacheManager, Duration.ofMinutes(10), 500, clock);
+      ProductService products = new ProductService(logRepo, e -> {
+        if (e instanceof ProductChangingEvent changing) reservations.onProductChanging(changing);
+      });
+      reservations.reserve(id, 7);
+
+      ProductRequest req = new ProductRequest();
+      req.setName("Laptop Dell");
+      req.setPrice(15000000);
+      req.setQuantity(5);
+      req.setCategory("ELECTRONICS");
+      ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> products.updateProduct(id, req));
+      assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+      ex = assertThrows(ResponseStatusException.class, () -> products.adjustStock(id, -4));
+      assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+      assertEquals(10, logRepo.findById(id).orElseThrow().getQuantity());
+      assertEquals(0L, logRepo.findById(id).orElseThrow().getVersion());
+      assertEquals(3, reservations.available(id));
+
+      // Giảm vừa đủ phần chưa giữ chỗ thì được ghi
+      assertEquals(7, products.adjustStock(id, -3).getQuantity());
+      assertEquals(0, reservations.available(id));
+    }
+  }
+
+  @Test @DisplayName("onProductChanged thiếu trạng thái cũ: nạp lại quantity nhưng giữ phần đang giữ chỗ và đã bán chưa ghi")
+  void testReloadKeepsPendingSales() {
+    when(repo.findById(1L)).thenReturn(Optional.of(product(1L, 10)));
+    service.confirm(service.reserve(1L, 2).id());
+    Reservation held = service.reserve(1L, 3);
+
+    service.onProductChanged(ProductChangedEvent.updated(null, product(1L, 20)));
+    when(repo.findById(1L)).thenReturn(Optional.of(product(1L, 20)));
+    assertEquals(15, service.available(1L));
+
+    service.confirm(held.id());
+    when(writer.lockAll(List.of(1L), 500)).thenReturn(Map.of(1L, product(1L, 20)));
+    when(writer.adjustQuantities(argThat(l -> l.equals(List.of(Map.entry(1L, -5)))), anyInt())).thenReturn(new int[] {1});
+    service.flush();
+    verify(writer).adjustQuantities(argThat(l -> l.equals(List.of(Map.entry(1L, -5)))), anyInt());
+  }
+
+  @Test @DisplayName("reserve đồng thời: không bán vượt tồn kho")
+  void testConcurrentReserveDoesNotOversell() throws Exception {
+    when(repo.findById(1L)).thenReturn(Optional.of(product(1L, 100)));
+    AtomicInteger ok = new AtomicInteger();
+    List<Future<?>> futures = new ArrayList<>();
+    try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+      for (int i = 0; i < 400; i++) {
+        futures.add(pool.submit(() -> {
+          try {
+            service.reserve(1L, 1);
+            ok.incrementAndGet();
+          } catch (ResponseStatusException ignored) {
+            // hết hàng
+          }
+        }));
+      }
+      for (Future<?> f : futures) f.get();
+    }
+    assertEquals(100, ok.get());
+    assertEquals(0, service.available(1L));
+  }
+}
@@ -0,0 +1,134 @@
+package com.flogin.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.flogin.dto.BulkItemResult;
+import com.flogin.dto.BulkResponse;
+import com.flogin.dto.ProductBulkItem;
+import com.flogin.entity.Product;
+import com.flogin.repository.JdbcProductBulkWriter;
+import com.flogin.repository.ProductBulkWriter;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+
+@DisplayName("ProductBulkService Tests (H2 nhúng)")
+class ProductBulkServiceTest {
+  static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+  // LOCK_TIMEOUT đủ dài để câu ghi đồng thời chờ được tới khi bulk commit
+  final DriverManagerDataSource ds =
+      new DriverManagerDataSource("jdbc:h2:mem:bulk;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+  final JdbcTemplate jdbc = new JdbcTemplate(ds);
+  final TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+  final List<ProductChangedEvent> events = new CopyOnWriteArrayList<>();
+  final ExecutorService pool = Executors.newSingleThreadExecutor();
+
+  @BeforeEach
+  void schema() {
+    jdbc.execute("drop table if exists products");
+    jdbc.execute("create table products (id bigint auto_increment primary key, name varchar(100) not null, "
+        + "price int not null, quantity int not null, description varchar(500), category varchar(50) not null, "
+        + "version bigint not null default 0)");
+    jdbc.update("insert into products (id, name, price, quantity, category, version) values (1, 'Pho bo', 1000, 10, 'FOOD', 0)");
+  }
+
+  @AfterEach
+  void tearDown() {
+    pool.shutdownNow();
+  }
+
+  static ProductBulkItem item(Long id, String name, int quantity) {
+    ProductBulkItem item = new ProductBulkItem();
+    item.setId(id);
+    item.setName(name);
+    item.setPrice(1000);
+    item.setQuantity(quantity);
+    item.setCategory("FOOD");
+    return item;
+  }
+
+  // Như @Transactional của upsert khi chạy qua proxy
+  BulkResponse upsert(ProductBulkWriter writer, List<ProductBulkItem> items) {
+    ProductBulkService service =
+        new ProductBulkService(writer, VALIDATOR, e -> {
+          if (e instanceof ProductChangedEvent changed) events.add(changed);
+        }, 500, 10_000);
+    return tx.execute(status -> service.upsert(items));
+  }
+
+  int quantity() {
+    return jdbc.queryForObject("select quantity from products where id = 1", Integer.class);
+  }
+
+  long version() {
+    return jdbc.queryForObject("select version from products where id = 1", Long.class);
+  }
+
+  @Test
+  @DisplayName("TC1: Cùng id hai lần trong một request -> INVALID, không ghi gì")
+  void rejectsDuplicateIds() {
+    BulkResponse res = upsert(new JdbcProductBulkWriter(jdbc),
+        List.of(item(1L, "Pho ga", 8), item(null, "Bun cha", 3), item(1L, "Pho tai", 6)));
+
+    assertEquals(BulkItemResult.Status.INVALID, res.getItems().get(2).getStatus());
+    assertEquals(0, res.getCreated());
+    assertEquals(0, res.getUpdated());
+    assertTrue(events.isEmpty());
+    assertEquals(1, jdbc.queryForObject("select count(*) from products", Integer.class));
+    assertEquals(10, quantity());
+    assertEquals(0L, version());
+  }
+
+  @Test
+  @DisplayName("TC2: Ghi đồng thời sau khi bulk đọc trạng thái cũ phải chờ bulk commit, không bị ghi đè")
+  void concurrentWriteWaitsForBulk() throws Exception {
+    JdbcTemplate other = new JdbcTemplate(ds);
+    AtomicReference<Future<Integer>> concurrent = new AtomicReference<>();
+    ProductBulkWriter writer = new JdbcProductBulkWriter(jdbc) {
+      @Override
+      public Map<Long, Product> lockAll(List<Long> ids, int batchSize) {
+        Map<Long, Product> rows = super.lockAll(ids, batchSize);
+        // Như PATCH /stock -2 trên kết nối khác, chen vào giữa lúc đọc trạng thái cũ và batch UPDATE
+        concurrent.set(pool.submit(() -> other.update(
+            "update products set quantity = quantity - 2, version = version + 1 where id = 1")));
+        assertThrows(TimeoutException.class, () -> concurrent.get().get(300, TimeUnit.MILLISECONDS));
+        return rows;
+      }
+    };
+
+    BulkResponse res = upsert(writer, List.of(item(1L, "Pho ga", 8)));
+
+    assertEquals(1, concurrent.get().get(5, TimeUnit.SECONDS));
+    assertEquals(BulkItemResult.Status.UPDATED, res.getItems().get(0).getStatus());
+    assertEquals(1, events.size());
+    ProductChangedEvent e = events.get(0);
+    assertEquals(10, e.getPrevious().getQuantity());
+    assertEquals(0L, e.getPrevious().getVersion());
+    assertEquals(8, e.getProduct().getQuantity());
+    assertEquals(1L, e.getProduct().getVersion());
+    // Bulk ghi trước (8), câu ghi đồng thời áp lên sau: 8 - 2
+    assertEquals(6, quantity());
+    assertEquals(2L, version());
+  }
+}
@@ -0,0 +1,89 @@
+package com.flogin.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.flogin.dto.CategoryStats;
+import com.flogin.dto.CategoryTotals;
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+import com.flogin.repository.ProductStore;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProductCategoryStats Unit Tests")
+class ProductCategoryStatsTest {
+  @Mock ProductStore repo;
+  ProductCategoryStats stats;
+
+  private static CategoryTotals totals(Category c, long products, long stock, long value) {
+    return new CategoryTotals() {
+      public Category getCategory() { return c; }
+      public long getProducts() { return products; }
+      public long getStock() { return stock; }
+      public long getInventoryValue() { return value; }
+    };
+  }
+
+  private static Product product(long id, Category c, int price, int qty) {
+    Product p = new Product();
+    p.setId(id);
+    p.setName("San pham " + id);
+    p.setPrice(price);
+    p.setQuantity(qty);
+    p.setCategory(c);
+    return p;
+  }
+
+  private CategoryStats of(Category c) {
+    return stats.snapshot().stream().filter(s -> s.getCategory() == c).findFirst().orElseThrow();
+  }
+
+  @BeforeEach
+  void setUp() {
+    when(repo.sumByCategory()).thenReturn(List.of(totals(Category.FOOD, 1, 4, 140_000)));
+    stats = new ProductCategoryStats(repo);
+    stats.afterSingletonsInstantiated();
+  }
+
+  @Test @DisplayName("TC1: Nap tu GROUP BY, category khong co san pham bang 0")
+  void testInitialLoad() {
+    assertEquals(Category.values().length, stats.snapshot().size());
+    assertEquals(140_000, of(Category.FOOD).getInventoryValue());
+    assertEquals(0, of(Category.HOME).getProducts());
+  }
+
+  @Test @DisplayName("TC2: Tao, cap nhat doi category, xoa")
+  void testIncrementalUpdates() {
+    Product created = product(7L, Category.HOME, 1000, 5);
+    stats.onProductChanged(ProductChangedEvent.created(created));
+    assertEquals(1, of(Category.HOME).getProducts());
+    assertEquals(5_000, of(Category.HOME).getInventoryValue());
+
+    Product moved = product(7L, Category.FOOD, 2000, 3);
+    stats.onProductChanged(ProductChangedEvent.updated(created, moved));
+    assertEquals(0, of(Category.HOME).getProducts());
+    assertEquals(2, of(Category.FOOD).getProducts());
+    assertEquals(7, of(Category.FOOD).getStock());
+    assertEquals(146_000, of(Category.FOOD).getInventoryValue());
+
+    stats.onProductChanged(ProductChangedEvent.deleted(7L, moved));
+    assertEquals(1, of(Category.FOOD).getProducts());
+    assertEquals(140_000, of(Category.FOOD).getInventoryValue());
+  }
+
+  @Test @DisplayName("TC3: Thieu trang thai cu thi nap lai tu DB")
+  void testReloadWhenPreviousUnknown() {
+    stats.onProductChanged(ProductChangedEvent.deleted(99L, null));
+    verify(repo, times(2)).sumByCategory();
+  }
+}
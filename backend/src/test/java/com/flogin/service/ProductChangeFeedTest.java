@@ -0,0 +1,144 @@
+package com.flogin.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("ProductChangeFeed Unit Tests")
+class ProductChangeFeedTest {
+  final ObjectMapper mapper = new ObjectMapper();
+
+  // Ghi lại các frame thay vì ghi ra response
+  static final class RecordingEmitter extends SseEmitter {
+    final List<Set<DataWithMediaType>> frames = new ArrayList<>();
+    boolean completed;
+    boolean failing;
+
+    @Override
+    public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+      if (failing) throw new IOException("Broken pipe");
+      frames.add(items);
+    }
+
+    @Override
+    public synchronized void complete() {
+      completed = true;
+    }
+
+    List<String> texts() {
+      return frames.stream().map(ProductChangeFeedTest::text).toList();
+    }
+  }
+
+  // Giữ task lại, chỉ chạy khi gọi runAll: giả lập client chưa đọc kịp
+  static final class ManualExecutor implements Executor {
+    final List<Runnable> tasks = new ArrayList<>();
+    @Override public void execute(Runnable r) { tasks.add(r); }
+    void runAll() {
+      while (!tasks.isEmpty()) tasks.remove(0).run();
+    }
+  }
+
+  static String text(Set<DataWithMediaType> frame) {
+    return frame.stream().map(d -> d.getData().toString()).collect(Collectors.joining());
+  }
+
+  static Product product(long id, String name) {
+    Product p = new Product();
+    p.setId(id);
+    p.setName(name);
+    p.setPrice(150000);
+    p.setQuantity(10);
+    p.setCategory(Category.FASHION);
+    p.setVersion(0L);
+    return p;
+  }
+
+  @Test
+  @DisplayName("TC1: subscribe nhận ready; thay đổi được serialize một lần và gửi cùng một frame cho mọi subscriber")
+  void broadcastsSerializedOnce() {
+    ProductChangeFeed feed = new ProductChangeFeed(mapper, 8, 10, Duration.ofMinutes(1), Runnable::run);
+    RecordingEmitter a = new RecordingEmitter();
+    RecordingEmitter b = new RecordingEmitter();
+    feed.subscribe(a);
+    feed.subscribe(b);
+
+    feed.onProductChanged(ProductChangedEvent.created(product(7L, "Áo thun")));
+    feed.onProductChanged(ProductChangedEvent.deleted(7L, product(7L, "Áo thun")));
+
+    assertTrue(a.texts().get(0).startsWith("event:ready\nid:0\n"));
+    assertEquals(3, a.frames.size());
+    assertSame(a.frames.get(1), b.frames.get(1));
+    String created = a.texts().get(1);
+    assertTrue(created.startsWith("event:product\nid:1\ndata:{\"type\":\"CREATED\",\"id\":7,\"product\":{"));
+    assertTrue(created.contains("\"name\":\"Áo thun\""));
+    assertTrue(a.texts().get(2).contains("data:{\"type\":\"DELETED\",\"id\":7,\"product\":null}"));
+  }
+
+  @Test
+  @DisplayName("TC2: client chậm làm đầy hàng đợi -> bị bỏ, nhận resync thay cho sự kiện cũ rồi đóng; client khác không ảnh hưởng")
+  void dropsSlowConsumer() {
+    ManualExecutor executor = new ManualExecutor();
+    ProductChangeFeed feed = new ProductChangeFeed(mapper, 2, 10, Duration.ofMinutes(1), executor);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    feed.bindTo(registry);
+    RecordingEmitter slow = new RecordingEmitter();
+    feed.subscribe(slow);
+
+    // ready + 1 sự kiện lấp đầy hàng đợi 2 phần tử, sự kiện thứ hai tràn
+    feed.onProductChanged(ProductChangedEvent.created(product(1L, "A")));
+    feed.onProductChanged(ProductChangedEvent.created(product(2L, "B")));
+    RecordingEmitter fast = new RecordingEmitter();
+    feed.subscribe(fast);
+    feed.onProductChanged(ProductChangedEvent.created(product(3L, "C")));
+    executor.runAll();
+
+    assertEquals(1, feed.subscriberCount());
+    assertEquals(1, slow.frames.size());
+    assertTrue(slow.texts().get(0).startsWith("event:resync\n"));
+    assertTrue(slow.completed);
+    assertEquals(2, fast.frames.size());
+    assertTrue(fast.texts().get(1).contains("\"id\":3"));
+    assertEquals(1.0, registry.get("flogin.products.feed.dropped").counter().count());
+    assertEquals(1.0, registry.get("flogin.products.feed.subscribers").gauge().value());
+  }
+
+  @Test
+  @DisplayName("TC3: gửi lỗi (client đã ngắt) -> bỏ subscriber; vượt max-subscribers -> 503")
+  void removesBrokenAndLimitsSubscribers() {
+    ProductChangeFeed feed = new ProductChangeFeed(mapper, 8, 1, Duration.ofMinutes(1), Runnable::run);
+    RecordingEmitter broken = new RecordingEmitter();
+    feed.subscribe(broken);
+
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+        () -> feed.subscribe(new RecordingEmitter()));
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatusCode());
+
+    broken.failing = true;
+    feed.heartbeat();
+    assertEquals(0, feed.subscriberCount());
+    feed.subscribe(new RecordingEmitter());
+    assertEquals(1, feed.subscriberCount());
+  }
+}
@@ -0,0 +1,216 @@
+package com.flogin.service;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.flogin.dto.ProductChanges;
+import com.flogin.entity.Product;
+import com.flogin.repository.ProductChangeRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Chạy trigger của V4__product_change_seq.sql trên MySQL/MariaDB thật. Cần một database trống dành riêng cho test
+ * (bị flyway clean mỗi lần chạy), vd:
+ * FLOGIN_TEST_MYSQL_URL=jdbc:mysql://localhost:3306/flogin_it?createDatabaseIfNotExist=true&rewriteBatchedStatements=true
+ * (FLOGIN_TEST_MYSQL_USER/FLOGIN_TEST_MYSQL_PASSWORD, mặc định root và rỗng).
+ */
+@EnabledIfEnvironmentVariable(named = "FLOGIN_TEST_MYSQL_URL", matches = ".+")
+@DisplayName("ProductChangeService MySQL Tests")
+class ProductChangeServiceMySqlTest {
+  static HikariDataSource ds;
+
+  final JdbcTemplate jdbc = new JdbcTemplate(ds);
+  final DataSourceTransactionManager txManager = new DataSourceTransactionManager(ds);
+  final ProductChangeService service = new ProductChangeService(
+      new ProductChangeRepository(jdbc), txManager, Duration.ofDays(30), Clock.systemUTC());
+
+  @BeforeAll
+  static void connect() {
+    ds = new HikariDataSource();
+    ds.setJdbcUrl(System.getenv("FLOGIN_TEST_MYSQL_URL"));
+    ds.setUsername(System.getenv().getOrDefault("FLOGIN_TEST_MYSQL_USER", "root"));
+    ds.setPassword(System.getenv().getOrDefault("FLOGIN_TEST_MYSQL_PASSWORD", ""));
+    ds.setMaximumPoolSize(24);
+  }
+
+  @AfterAll
+  static void close() {
+    ds.close();
+  }
+
+  static void migrate(String target) {
+    Flyway.configure().dataSource(ds).target(target).cleanDisabled(false).load().migrate();
+  }
+
+  static void clean() {
+    Flyway.configure().dataSource(ds).cleanDisabled(false).load().clean();
+  }
+
+  ProductChanges changesSince(long since) {
+    TransactionTemplate read = new TransactionTemplate(txManager);
+    read.setReadOnly(true);
+    return read.execute(s -> service.changesSince(since, ProductChangeService.MAX_LIMIT));
+  }
+
+  long insert(String name) {
+    jdbc.update("INSERT INTO products (name, price, quantity, category, version) VALUES (?, 1000, 10, 'FOOD', 0)", name);
+    return jdbc.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+  }
+
+  @Test
+  @DisplayName("TC1: V4 đánh số dòng có sẵn bằng id và giữ updated_at; đánh số thay đổi mới cũng không đổi updated_at")
+  void backfillKeepsUpdatedAt() {
+    clean();
+    migrate("3");
+    jdbc.update("UPDATE products SET updated_at = '2020-01-02 03:04:05.123456'");
+    Map<Long, Timestamp> before = updatedAt();
+
+    migrate("latest");
+    assertEquals(before, updatedAt());
+    assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM products WHERE change_seq <> id", Integer.class));
+    long max = jdbc.queryForObject("SELECT MAX(id) FROM products", Long.class);
+    assertEquals(max, changesSince(0).getWatermark());
+
+    // Ghi mới: chờ đánh số (không thấy ngay), đánh số xong mới thấy, updated_at do lần ghi đặt thì giữ nguyên
+    long id = before.keySet().iterator().next();
+    jdbc.update("UPDATE products SET price = price + 1, version = version + 1, updated_at = '2021-01-01 00:00:00' WHERE id = ?", id);
+    assertTrue(changesSince(max).getChanged().isEmpty());
+    assertEquals(1, service.assignSeqs());
+    ProductChanges res = changesSince(max);
+    assertEquals(List.of(id), res.getChanged().stream().map(Product::getId).toList());
+    assertEquals(max + 1, res.getWatermark());
+    assertEquals(Timestamp.valueOf("2021-01-01 00:00:00"), updatedAt().get(id));
+  }
+
+  @Test
+  @DisplayName("TC2: ghi nhiều dòng (như bulk/flush), một dòng, thêm và xoá song song với đánh số: không deadlock, "
+      + "client theo watermark không bỏ sót thay đổi nào")
+  void concurrentWritersNeverDeadlockOrSkip() throws Exception {
+    clean();
+    migrate("latest");
+    // Chỉ thêm, không bớt: id đã xoá thì UPDATE/DELETE khớp 0 dòng
+    List<Long> ids = new CopyOnWriteArrayList<>();
+    for (int i = 0; i < 40; i++) ids.add(insert("Sản phẩm " + i));
+    service.assignSeqs();
+
+    ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    AtomicBoolean running = new AtomicBoolean(true);
+    ExecutorService pool = Executors.newFixedThreadPool(12);
+    List<Future<?>> writers = new ArrayList<>();
+    for (int w = 0; w < 12; w++) {
+      int kind = w % 4;
+      writers.add(pool.submit(() -> {
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        while (System.nanoTime() < deadline) {
+          List<Long> sorted = random.ints(5, 0, ids.size()).mapToObj(ids::get).distinct().sorted().toList();
+          try {
+            switch (kind) {
+              // Như ProductBulkService: UPDATE lần lượt từng dòng trong một transaction
+              case 0 -> tx.executeWithoutResult(s -> jdbc.batchUpdate(
+                  "UPDATE products SET name = CONCAT('Sửa ', id), version = version + 1 WHERE id = ?",
+                  sorted.stream().map(id -> new Object[] { id }).toList()));
+              // Như InventoryReservationService.flush: lockAll rồi điều chỉnh tồn kho
+              case 1 -> tx.executeWithoutResult(s -> {
+                String in = String.join(", ", Collections.nCopies(sorted.size(), "?"));
+                jdbc.queryForList("SELECT id FROM products WHERE id IN (" + in + ") FOR UPDATE", Long.class, sorted.toArray());
+                for (Long id : sorted) {
+                  jdbc.update("UPDATE products SET quantity = quantity + 1, version = version + 1 WHERE id = ?", id);
+                }
+              });
+              // Một dòng, autocommit
+              case 2 -> jdbc.update("UPDATE products SET price = price + 1, version = version + 1 WHERE id = ?",
+                  ids.get(random.nextInt(ids.size())));
+              // Thêm và xoá
+              default -> {
+                long id = ids.get(random.nextInt(ids.size()));
+                jdbc.update("DELETE FROM products WHERE id = ?", id);
+                ids.add(insert("Mới"));
+              }
+            }
+          } catch (Throwable ex) {
+            failures.add(ex);
+          }
+        }
+      }));
+    }
+    Future<?> sequencer = pool.submit(() -> {
+      while (running.get()) {
+        try {
+          service.assignSeqs();
+        } catch (Throwable ex) {
+          failures.add(ex);
+        }
+      }
+    });
+
+    // Client đồng bộ tăng dần trong lúc đang ghi
+    Map<Long, Long> client = new HashMap<>();
+    long watermark = 0;
+    long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+    while (System.nanoTime() < until) watermark = apply(client, watermark);
+    for (Future<?> f : writers) f.get(30, TimeUnit.SECONDS);
+    running.set(false);
+    sequencer.get(30, TimeUnit.SECONDS);
+    pool.shutdown();
+
+    assertTrue(failures.isEmpty(), () -> "Lỗi khi ghi song song: " + failures.peek());
+    service.assignSeqs();
+    assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM products WHERE change_seq = 0", Integer.class));
+    apply(client, watermark);
+
+    Map<Long, Long> actual = new HashMap<>();
+    jdbc.query("SELECT id, version FROM products", rs -> {
+      actual.put(rs.getLong(1), rs.getLong(2));
+    });
+    assertEquals(actual, client);
+  }
+
+  // Đọc hết các trang từ watermark, áp vào bản sao id -> version của client
+  long apply(Map<Long, Long> client, long watermark) {
+    ProductChanges res;
+    do {
+      res = changesSince(watermark);
+      assertTrue(res.getWatermark() >= watermark, "watermark lùi");
+      for (Product p : res.getChanged()) client.put(p.getId(), p.getVersion());
+      for (Long id : res.getDeleted()) client.remove(id);
+      watermark = res.getWatermark();
+    } while (res.isHasMore());
+    return watermark;
+  }
+
+  Map<Long, Timestamp> updatedAt() {
+    Map<Long, Timestamp> rows = new HashMap<>();
+    jdbc.query("SELECT id, updated_at FROM products", rs -> {
+      rows.put(rs.getLong(1), rs.getTimestamp(2));
+    });
+    return rows;
+  }
+}
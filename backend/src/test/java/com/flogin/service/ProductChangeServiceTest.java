@@ -0,0 +1,137 @@
+package com.flogin.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.flogin.dto.ProductChanges;
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+import com.flogin.repository.ProductChangeRepository;
+import com.flogin.repository.ProductChangeRepository.Changed;
+import com.flogin.repository.ProductChangeRepository.Counter;
+import com.flogin.repository.ProductChangeRepository.Deleted;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProductChangeService Unit Tests")
+class ProductChangeServiceTest {
+  @Mock ProductChangeRepository repo;
+  @Mock PlatformTransactionManager txManager;
+
+  static final Instant NOW = Instant.parse("2026-01-31T00:00:00Z");
+
+  ProductChangeService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new ProductChangeService(repo, txManager, Duration.ofDays(30), Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  static Changed changed(long seq, long id) {
+    Product p = new Product();
+    p.setId(id);
+    p.setName("Sản phẩm " + id);
+    p.setPrice(1000);
+    p.setQuantity(1);
+    p.setCategory(Category.FOOD);
+    p.setVersion(0L);
+    return new Changed(seq, p);
+  }
+
+  @Test
+  @DisplayName("changesSince: trộn thay đổi và tombstone theo seq; hết thay đổi thì watermark là bộ đếm")
+  void mergesUpToCounter() {
+    when(repo.counter()).thenReturn(new Counter(20, 0));
+    when(repo.findChanged(10, 20, 4)).thenReturn(List.of(changed(11, 3), changed(15, 1)));
+    when(repo.findDeleted(10, 20, 4)).thenReturn(List.of(new Deleted(12, 7)));
+
+    ProductChanges res = service.changesSince(10, 3);
+
+    assertEquals(List.of(3L, 1L), res.getChanged().stream().map(Product::getId).toList());
+    assertEquals(List.of(7L), res.getDeleted());
+    assertEquals(20L, res.getWatermark());
+    assertFalse(res.isHasMore());
+  }
+
+  @Test
+  @DisplayName("changesSince: nhiều hơn limit -> hasMore, watermark là seq của phần tử cuối đã trả")
+  void pagesByLimit() {
+    when(repo.counter()).thenReturn(new Counter(50, 0));
+    when(repo.findChanged(0, 50, 3)).thenReturn(List.of(changed(1, 1), changed(4, 4), changed(9, 9)));
+    when(repo.findDeleted(0, 50, 3)).thenReturn(List.of(new Deleted(3, 2)));
+
+    ProductChanges res = service.changesSince(0, 2);
+
+    assertEquals(List.of(1L), res.getChanged().stream().map(Product::getId).toList());
+    assertEquals(List.of(2L), res.getDeleted());
+    assertEquals(3L, res.getWatermark());
+    assertTrue(res.isHasMore());
+  }
+
+  @Test
+  @DisplayName("changesSince: mốc đã bị dọn tombstone -> 410; mốc lớn hơn bộ đếm (replica trễ) -> rỗng, giữ nguyên mốc")
+  void rejectsPurgedAndHandlesLaggingReplica() {
+    when(repo.counter()).thenReturn(new Counter(100, 40));
+
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.changesSince(39, 10));
+    assertEquals(HttpStatus.GONE, ex.getStatusCode());
+
+    ProductChanges res = service.changesSince(120, 10);
+    assertTrue(res.getChanged().isEmpty());
+    assertEquals(120L, res.getWatermark());
+    verify(repo, never()).findChanged(anyLong(), anyLong(), anyInt());
+  }
+
+  @Test
+  @DisplayName("changesSince: since âm hoặc limit ngoài [1, MAX_LIMIT] -> 400; không có repository (logstore) -> 501")
+  void validatesInput() {
+    assertEquals(HttpStatus.BAD_REQUEST,
+        assertThrows(ResponseStatusException.class, () -> service.changesSince(-1, 10)).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST,
+        assertThrows(ResponseStatusException.class, () -> service.changesSince(0, ProductChangeService.MAX_LIMIT + 1)).getStatusCode());
+
+    ProductChangeService logstore = new ProductChangeService(null, txManager, Duration.ofDays(30), Clock.systemUTC());
+    assertEquals(HttpStatus.NOT_IMPLEMENTED,
+        assertThrows(ResponseStatusException.class, () -> logstore.changesSince(0, 10)).getStatusCode());
+  }
+
+  @Test
+  @DisplayName("assignSeqs: đánh số từng lô tới khi lô cuối chưa đầy; không có repository (logstore) -> 0")
+  void assignsInBatchesUntilDrained() {
+    when(repo.assignPending(ProductChangeService.SEQUENCE_BATCH))
+        .thenReturn(ProductChangeService.SEQUENCE_BATCH, 3);
+
+    assertEquals(ProductChangeService.SEQUENCE_BATCH + 3, service.assignSeqs());
+    verify(repo, times(2)).assignPending(ProductChangeService.SEQUENCE_BATCH);
+    assertEquals(0, new ProductChangeService(null, txManager, Duration.ofDays(30), Clock.systemUTC()).assignSeqs());
+  }
+
+  @Test
+  @DisplayName("purgeTombstones: dọn tombstone cũ hơn retention")
+  void purgesOlderThanRetention() {
+    service.purgeTombstones();
+    verify(repo).purgeTombstones(Instant.parse("2026-01-01T00:00:00Z"));
+  }
+}
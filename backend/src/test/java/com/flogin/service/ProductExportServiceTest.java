@@ -0,0 +1,73 @@
+package com.flogin.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+import com.flogin.repository.ProductStore;
+
+import jakarta.persistence.EntityManager;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProductExportService NDJSON Unit Tests")
+class ProductExportServiceTest {
+  @Mock ProductStore repo;
+  @Mock EntityManager em;
+  ProductExportService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new ProductExportService(repo, em, new ObjectMapper());
+  }
+
+  private Product product(long id, String name) {
+    Product p = new Product();
+    p.setId(id);
+    p.setName(name);
+    p.setPrice(1000);
+    p.setQuantity(1);
+    p.setCategory(Category.FOOD);
+    return p;
+  }
+
+  @Test @DisplayName("TC1: Moi san pham mot dong JSON, detach sau khi ghi")
+  void testExportWritesOneLinePerProduct() throws Exception {
+    Product a = product(1L, "Bánh ướt");
+    Product b = product(2L, "Mouse");
+    when(repo.streamAllOrderById()).thenReturn(Stream.of(a, b));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long count = service.exportNdjson(out);
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+    assertEquals(2, count);
+    assertEquals(3, lines.length);
+    assertTrue(lines[0].startsWith("{\"id\":1,\"name\":\"Bánh ướt\""));
+    assertTrue(lines[1].startsWith("{\"id\":2,"));
+    assertEquals("", lines[2]);
+    verify(em).detach(a);
+    verify(em).detach(b);
+  }
+
+  @Test @DisplayName("TC2: Catalog rong thi khong ghi gi")
+  void testExportEmpty() throws Exception {
+    when(repo.streamAllOrderById()).thenReturn(Stream.empty());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(0, service.exportNdjson(out));
+    assertEquals(0, out.size());
+  }
+}
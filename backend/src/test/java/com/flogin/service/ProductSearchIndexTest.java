@@ -0,0 +1,64 @@
+package com.flogin.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("ProductSearchIndex Unit Tests")
+class ProductSearchIndexTest {
+  ProductSearchIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new ProductSearchIndex();
+    index.put(1L, "Bánh ướt lòng gà", "Bánh ướt lòng gà Trang Đà Lạt");
+    index.put(2L, "Mouse Logitech", "Chuột không dây silent");
+    index.put(3L, "Iphone 15", "Iphone 15 Pro Max 256GB Titanium");
+    index.put(5L, "Laptop Dell", "Laptop Dell XPS 13 inch, RAM 16GB");
+  }
+
+  @Test @DisplayName("TC1: Tim khong dau van khop ten co dau")
+  void testDiacriticInsensitive() {
+    assertEquals(List.of(1L), index.search("banh uot", 10));
+    assertEquals(List.of(1L), index.search("da lat", 10));
+  }
+
+  @Test @DisplayName("TC2: Khop theo tien to")
+  void testPrefix() {
+    assertEquals(List.of(2L), index.search("logi", 10));
+    assertEquals(List.of(2L), index.search("chuot khong", 10));
+  }
+
+  @Test @DisplayName("TC3: Khop o name xep hang cao hon description")
+  void testRanking() {
+    index.put(9L, "Tai nghe", "Tặng kèm chuột Logitech");
+    assertEquals(List.of(2L, 9L), index.search("logitech", 10));
+  }
+
+  @Test @DisplayName("TC4: Moi tu khoa deu phai khop (AND)")
+  void testAllTermsRequired() {
+    assertTrue(index.search("laptop iphone", 10).isEmpty());
+    assertEquals(List.of(5L), index.search("dell 16gb", 10));
+  }
+
+  @Test @DisplayName("TC5: Cap nhat va xoa dong bo voi index")
+  void testUpdateAndRemove() {
+    index.put(2L, "Bàn phím cơ", "Keychron K2");
+    assertTrue(index.search("mouse", 10).isEmpty());
+    assertEquals(List.of(2L), index.search("ban phim", 10));
+
+    index.remove(2L);
+    assertTrue(index.search("keychron", 10).isEmpty());
+    assertEquals(3, index.size());
+  }
+
+  @Test @DisplayName("TC6: Tu khoa rong hoac chi co ky tu dac biet")
+  void testBlankQuery() {
+    assertTrue(index.search("  ", 10).isEmpty());
+    assertTrue(index.search("!!", 10).isEmpty());
+  }
+}
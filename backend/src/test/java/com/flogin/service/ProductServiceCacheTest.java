@@ -0,0 +1,172 @@
+package com.flogin.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import com.flogin.CacheConfig;
+import com.flogin.dto.ProductRequest;
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+import com.flogin.repository.ProductStore;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+@SpringJUnitConfig
+@DisplayName("ProductService Cache Tests")
+class ProductServiceCacheTest {
+
+  @Configuration
+  @Import({CacheConfig.class, ProductService.class, ProductLoadTracker.class})
+  static class Config {
+    @Bean
+    CacheManager cacheManager() {
+      CaffeineCacheManager manager = new CaffeineCacheManager(CacheConfig.PRODUCTS);
+      manager.setCaffeine(Caffeine.newBuilder().maximumSize(100).recordStats());
+      return manager;
+    }
+  }
+
+  @MockBean ProductStore repo;
+  @Autowired ProductService service;
+  @Autowired ProductLoadTracker loads;
+  @Autowired CacheManager cacheManager;
+
+  private CaffeineCache cache() {
+    return (CaffeineCache) cacheManager.getCache(CacheConfig.PRODUCTS);
+  }
+
+  private Product product(long id) {
+    Product p = new Product();
+    p.setId(id);
+    p.setName("Laptop Dell");
+    p.setPrice(15000000);
+    p.setQuantity(10);
+    p.setCategory(Category.ELECTRONICS);
+    return p;
+  }
+
+  private ProductRequest request() {
+    ProductRequest req = new ProductRequest();
+    req.setName("Laptop Dell XPS");
+    req.setPrice(16000000);
+    req.setQuantity(8);
+    req.setCategory("ELECTRONICS");
+    return req;
+  }
+
+  @BeforeEach
+  void clearCache() {
+    cache().clear();
+  }
+
+  @Test
+  @DisplayName("TC1: Doc lan 2 lay tu cache, khong goi findById")
+  void testReadThrough() {
+    Product p = product(1L);
+    when(repo.findById(1L)).thenReturn(Optional.of(p));
+    CacheStats before = cache().getNativeCache().stats();
+
+    Product first = service.getProduct(1L);
+    Product second = service.getProduct(1L);
+
+    assertSame(first, second);
+    verify(repo, times(1)).findById(1L);
+    CacheStats stats = cache().getNativeCache().stats().minus(before);
+    assertEquals(1, stats.hitCount());
+    assertEquals(1, stats.missCount());
+  }
+
+  @Test
+  @DisplayName("TC2: updateProduct xoa entry khoi cache")
+  void testUpdateEvicts() {
+    Product p = product(2L);
+    when(repo.findById(2L)).thenReturn(Optional.of(p));
+    when(repo.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
+
+    service.getProduct(2L);
+    service.updateProduct(2L, request());
+    service.getProduct(2L);
+
+    // 1 lần cho getProduct đầu, 1 lần trong updateProduct, 1 lần sau khi bị evict
+    verify(repo, times(3)).findById(2L);
+  }
+
+  @Test
+  @DisplayName("TC3: deleteProduct xoa entry khoi cache")
+  void testDeleteEvicts() {
+    when(repo.findById(3L)).thenReturn(Optional.of(product(3L)));
+    when(repo.existsById(3L)).thenReturn(true);
+
+    service.getProduct(3L);
+    service.deleteProduct(3L);
+
+    assertEquals(null, cache().get(3L));
+  }
+
+  @Test
+  @DisplayName("TC4: createProduct dua san pham moi vao cache")
+  void testCreatePuts() {
+    when(repo.save(any(Product.class))).thenAnswer(inv -> {
+      Product saved = inv.getArgument(0);
+      saved.setId(4L);
+      return saved;
+    });
+
+    Product created = service.createProduct(request());
+    Product read = service.getProduct(4L);
+
+    assertSame(created, read);
+    verify(repo, times(0)).findById(4L);
+  }
+
+  @Test
+  @DisplayName("TC5: Nhieu request dong thoi cung miss mot id: mot lan nap, isLoading dung trong luc nap")
+  void testConcurrentMissesLoadOnce() throws Exception {
+    Product p = product(5L);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(repo.findById(5L)).thenAnswer(inv -> {
+      started.countDown();
+      assertTrue(release.await(5, TimeUnit.SECONDS));
+      return Optional.of(p);
+    });
+    long before = loads.loadCount();
+
+    List<CompletableFuture<Product>> calls = new ArrayList<>();
+    calls.add(CompletableFuture.supplyAsync(() -> service.getProduct(5L)));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertTrue(loads.isLoading(5L));
+    for (int i = 0; i < 4; i++) calls.add(CompletableFuture.supplyAsync(() -> service.getProduct(5L)));
+    release.countDown();
+
+    for (CompletableFuture<Product> call : calls) assertSame(p, call.get(5, TimeUnit.SECONDS));
+    verify(repo, times(1)).findById(5L);
+    assertEquals(1, loads.loadCount() - before);
+    assertFalse(loads.isLoading(5L));
+  }
+}
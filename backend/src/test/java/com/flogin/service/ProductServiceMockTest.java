@@ -11,10 +11,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -23,13 +25,19 @@ import org.springframework.data.domain.Pageable;
 import com.flogin.dto.ProductRequest;
 import com.flogin.entity.Category;
 import com.flogin.entity.Product;
-import com.flogin.repository.ProductRepository;
+import com.flogin.repository.ProductStore;
 
 @ExtendWith(MockitoExtension.class)
 class ProductServiceMockTest {
 
     @Mock
-    private ProductRepository productRepository;
+    private ProductStore productRepository;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Spy
+    private ProductLoadTracker loads;
 
     @InjectMocks
     private ProductService productService;
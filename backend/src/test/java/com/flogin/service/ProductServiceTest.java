@@ -1,37 +1,54 @@
 package com.flogin.service;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.flogin.dto.CursorPage;
+import com.flogin.dto.ProductField;
 import com.flogin.dto.ProductRequest;
+import com.flogin.dto.ProductSummary;
 import com.flogin.entity.Category;
 import com.flogin.entity.Product;
-import com.flogin.repository.ProductRepository;
+import com.flogin.repository.ProductStore;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("ProductService CRUD Unit Tests")
 class ProductServiceTest {
-  @Mock ProductRepository repo;
+  @Mock ProductStore repo;
+  @Mock ApplicationEventPublisher events;
+  @Spy ProductLoadTracker loads;
   @InjectMocks ProductService service;
 
   private ProductRequest buildRequest() {
@@ -113,6 +130,18 @@ class ProductServiceTest {
     assertEquals(Category.ELECTRONICS, updated.getCategory());
     verify(repo).save(existing);
   }
+  @Test @DisplayName("updateProduct: request khong co quantity thi khong kiem tra giu cho, van ghi")
+  void testUpdateProductWithoutQuantity() {
+    Product existing = buildExisting();
+    ProductRequest req = buildRequest();
+    req.setQuantity(null);
+    when(repo.findById(1L)).thenReturn(Optional.of(existing));
+    when(repo.save(existing)).thenAnswer(inv -> inv.getArgument(0));
+    Product updated = service.updateProduct(1L, req);
+    assertEquals("iPhone 15", updated.getName());
+    verify(repo).save(existing);
+    verify(events, never()).publishEvent(argThat((Object e) -> e instanceof ProductChangingEvent));
+  }
   @Test @DisplayName("updateProduct: invalid category")
   void testUpdateProductInvalidCategory() {
     Product existing = buildExisting();
@@ -138,6 +167,13 @@ class ProductServiceTest {
     assertDoesNotThrow(() -> service.deleteProduct(1L));
     verify(repo).deleteById(1L);
   }
+  @Test @DisplayName("deleteProduct: phat su kien DELETED")
+  void testDeleteProductPublishesEvent() {
+    when(repo.existsById(1L)).thenReturn(true);
+    service.deleteProduct(1L);
+    verify(events).publishEvent(argThat((Object e) -> e instanceof ProductChangedEvent pe
+        && pe.getType() == ProductChangedEvent.Type.DELETED && pe.getId() == 1L));
+  }
   @Test @DisplayName("deleteProduct: not found")
   void testDeleteProductNotFound() {
     when(repo.existsById(55L)).thenReturn(false);
@@ -164,4 +200,117 @@ class ProductServiceTest {
     NullPointerException ex = assertThrows(NullPointerException.class, () -> service.getAll(null));
     assertEquals("pageable không được null", ex.getMessage());
   }
+  @Test @DisplayName("getPage: trang dau co nextCursor")
+  void testGetPageFirst() {
+    Product p1 = buildExisting();
+    Product p2 = buildExisting(); p2.setId(2L);
+    Product p3 = buildExisting(); p3.setId(3L);
+    when(repo.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3))).thenReturn(List.of(p1, p2, p3));
+    CursorPage<Product> page = service.getPage(null, 2);
+    assertEquals(2, page.getItems().size());
+    assertTrue(page.isHasMore());
+    assertEquals(2L, ProductService.decodeCursor(page.getNextCursor()));
+  }
+  @Test @DisplayName("getPage: trang cuoi khong co nextCursor")
+  void testGetPageLast() {
+    Product p5 = buildExisting(); p5.setId(5L);
+    when(repo.findByIdGreaterThanOrderByIdAsc(4L, Limit.of(3))).thenReturn(List.of(p5));
+    CursorPage<Product> page = service.getPage(ProductService.encodeCursor(4L), 2);
+    assertEquals(1, page.getItems().size());
+    assertFalse(page.isHasMore());
+    assertNull(page.getNextCursor());
+  }
+  @Test @DisplayName("getPage: limit ngoai khoang")
+  void testGetPageInvalidLimit() {
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.getPage(null, 0));
+    assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+  }
+  @Test @DisplayName("getPage: cursor sai dinh dang")
+  void testGetPageInvalidCursor() {
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.getPage("abc", 10));
+    assertEquals("Cursor không hợp lệ", ex.getReason());
+  }
+  @Test @DisplayName("getPage: fields=summary dung projection ProductSummary")
+  void testGetPageSummary() {
+    ProductSummary s1 = new ProductSummary(1L, "A", 1, 1, Category.OTHER);
+    ProductSummary s2 = new ProductSummary(2L, "B", 1, 1, Category.OTHER);
+    when(repo.findSummariesAfter(0L, Limit.of(2))).thenReturn(List.of(s1, s2));
+    CursorPage<?> page = service.getPage(null, 1, ProductService.parseFields("summary"));
+    assertEquals(List.of(s1), page.getItems());
+    assertEquals(1L, ProductService.decodeCursor(page.getNextCursor()));
+    verify(repo, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+  }
+  @Test @DisplayName("getPage: fields tuy chon chi SELECT cac cot da chon")
+  void testGetPageFields() {
+    Set<ProductField> fields = ProductService.parseFields("name, PRICE");
+    assertEquals(EnumSet.of(ProductField.ID, ProductField.NAME, ProductField.PRICE), fields);
+    when(repo.findFieldsAfter(fields, 0L, 3)).thenReturn(List.of(Map.of("id", 7L, "name", "A", "price", 1)));
+    CursorPage<?> page = service.getPage(null, 2, fields);
+    assertEquals(1, page.getItems().size());
+    assertFalse(page.isHasMore());
+  }
+  @Test @DisplayName("parseFields: khong co tham so -> null, truong la -> 400")
+  void testParseFields() {
+    assertNull(ProductService.parseFields(null));
+    assertNull(ProductService.parseFields(" "));
+    assertEquals(ProductField.SUMMARY, ProductService.parseFields("summary,id"));
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> ProductService.parseFields("name,secret"));
+    assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+  }
+  @Test @DisplayName("ProductField.attribute: khong phu thuoc locale mac dinh (tieng Tho Nhi Ky)")
+  void testFieldAttributeIgnoresDefaultLocale() {
+    Locale original = Locale.getDefault();
+    try {
+      Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+      assertEquals("price", ProductField.PRICE.attribute());
+      assertEquals("id", ProductField.ID.attribute());
+      assertEquals(EnumSet.of(ProductField.ID, ProductField.PRICE), ProductService.parseFields("price"));
+    } finally {
+      Locale.setDefault(original);
+    }
+  }
+  @Test @DisplayName("parseIfMatch: doc version tu header If-Match")
+  void testParseIfMatch() {
+    assertNull(ProductService.parseIfMatch(null));
+    assertNull(ProductService.parseIfMatch("*"));
+    assertEquals(Set.of(3L), ProductService.parseIfMatch("\"3\""));
+    assertEquals(Set.of(3L, 4L), ProductService.parseIfMatch("\"3\", \"4\""));
+    assertEquals(Set.of(), ProductService.parseIfMatch("W/\"3\""));
+  }
+  @Test @DisplayName("updateProduct: If-Match khong khop version thi 412")
+  void testUpdateVersionMismatch() {
+    Product existing = buildExisting();
+    existing.setVersion(5L);
+    when(repo.findById(1L)).thenReturn(Optional.of(existing));
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+        () -> service.updateProduct(1L, new ProductRequest(), Set.of(4L)));
+    assertEquals(HttpStatus.PRECONDITION_FAILED, ex.getStatusCode());
+    verify(repo, never()).save(any(Product.class));
+  }
+  @Test @DisplayName("adjustStock: mot UPDATE co dieu kien, doc lai de phat event")
+  void testAdjustStockSuccess() {
+    Product saved = buildExisting();
+    saved.setQuantity(7);
+    saved.setVersion(2L);
+    when(repo.adjustQuantity(1L, -3)).thenReturn(1);
+    when(repo.findById(1L)).thenReturn(Optional.of(saved));
+    Product result = service.adjustStock(1L, -3);
+    assertEquals(7, result.getQuantity());
+    verify(events).publishEvent(argThat((Object e) -> e instanceof ProductChangedEvent pe
+        && pe.getPrevious().getQuantity() == 10 && pe.getProduct() == saved));
+  }
+  @Test @DisplayName("adjustStock: khong du ton kho thi 409, khong tim thay thi 404")
+  void testAdjustStockRejected() {
+    when(repo.adjustQuantity(1L, -50)).thenReturn(0);
+    when(repo.existsById(1L)).thenReturn(true);
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.adjustStock(1L, -50));
+    assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+    assertEquals("Không đủ tồn kho", ex.getReason());
+
+    when(repo.adjustQuantity(9L, 1)).thenReturn(0);
+    when(repo.existsById(9L)).thenReturn(false);
+    ex = assertThrows(ResponseStatusException.class, () -> service.adjustStock(9L, 1));
+    assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+    verify(repo, never()).findById(any());
+  }
 }
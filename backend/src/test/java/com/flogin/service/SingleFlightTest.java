@@ -0,0 +1,119 @@
+package com.flogin.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("SingleFlight Unit Tests")
+class SingleFlightTest {
+  final ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+  final SingleFlight<Long, String> flight = new SingleFlight<>("test");
+
+  @AfterEach
+  void tearDown() {
+    pool.shutdownNow();
+  }
+
+  // Chờ tới khi đủ số follower đang đợi leader
+  void awaitFollowers(long n) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (flight.followerCount() < n) {
+      assertTrue(System.nanoTime() < deadline, "follower không tới kịp");
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  @DisplayName("TC1: 20 lời gọi cùng key đồng thời chỉ chạy loader một lần, tất cả nhận cùng kết quả; metrics tỉ lệ gộp")
+  void coalescesConcurrentCalls() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    flight.bindTo(registry);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+
+    List<Future<String>> calls = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      calls.add(pool.submit(() -> flight.run(1L, () -> {
+        loads.incrementAndGet();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return new String("Laptop Dell");
+      })));
+    }
+    awaitFollowers(19);
+    release.countDown();
+
+    String first = calls.get(0).get(5, TimeUnit.SECONDS);
+    for (Future<String> f : calls) assertSame(first, f.get(5, TimeUnit.SECONDS));
+    assertEquals(1, loads.get());
+    assertEquals(1.0, registry.get("flogin.singleflight.calls").tags("flight", "test", "role", "leader").functionCounter().count());
+    assertEquals(19.0, registry.get("flogin.singleflight.calls").tags("flight", "test", "role", "follower").functionCounter().count());
+    assertEquals(0.95, registry.get("flogin.singleflight.coalescing.ratio").gauge().value(), 1e-9);
+    assertEquals(0.0, registry.get("flogin.singleflight.in.flight").gauge().value());
+  }
+
+  @Test
+  @DisplayName("TC2: exception của leader ném lại nguyên vẹn cho follower; xong thì lời gọi sau chạy loader mới")
+  void sharesFailureThenRetries() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> leader = pool.submit(() -> flight.run(9L, () -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Không tìm thấy sản phẩm");
+    }));
+    while (flight.leaderCount() < 1) Thread.sleep(1);
+    Future<String> follower = pool.submit(() -> flight.run(9L, () -> "không được chạy"));
+    awaitFollowers(1);
+    release.countDown();
+
+    for (Future<String> f : List.of(leader, follower)) {
+      Exception ex = assertThrows(Exception.class, () -> f.get(5, TimeUnit.SECONDS));
+      assertEquals(HttpStatus.NOT_FOUND, ((ResponseStatusException) ex.getCause()).getStatusCode());
+    }
+    assertEquals("Mouse", flight.run(9L, () -> "Mouse"));
+  }
+
+  @Test
+  @DisplayName("TC3: forget -> lời gọi sau không dùng truy vấn đang chạy (bắt đầu trước khi ghi)")
+  void forgetStartsNewFlight() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> stale = pool.submit(() -> flight.run(1L, () -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "cũ";
+    }));
+    while (flight.leaderCount() < 1) Thread.sleep(1);
+
+    flight.forget(1L);
+    assertEquals("mới", flight.run(1L, () -> "mới"));
+    release.countDown();
+    assertEquals("cũ", stale.get(5, TimeUnit.SECONDS));
+    assertEquals(2L, flight.leaderCount());
+  }
+}
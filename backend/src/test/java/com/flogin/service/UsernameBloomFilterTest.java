@@ -0,0 +1,66 @@
+package com.flogin.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.flogin.repository.AuthUserRepository;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UsernameBloomFilter Unit Tests")
+class UsernameBloomFilterTest {
+  @Mock AuthUserRepository repo;
+
+  UsernameBloomFilter filter(Duration padding) {
+    return new UsernameBloomFilter(repo, 1000, 0.01, padding);
+  }
+
+  @Test @DisplayName("TC1: Chua nap thi luon tra co the co")
+  void testNotLoaded() {
+    assertTrue(filter(Duration.ZERO).mightContain("anyone"));
+  }
+
+  @Test @DisplayName("TC2: Khong co am tinh gia, duong tinh gia quanh fpp cau hinh")
+  void testNoFalseNegatives() {
+    List<String> users = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) users.add("user" + i);
+    when(repo.findAllUsernames()).thenReturn(users);
+    UsernameBloomFilter f = filter(Duration.ZERO);
+    f.rebuild();
+
+    for (String u : users) assertTrue(f.mightContain(u));
+    // Không phân biệt hoa thường, giống collation của cột username
+    assertTrue(f.mightContain("USER42"));
+    int falsePositives = 0;
+    for (int i = 0; i < 10_000; i++) if (f.mightContain("ghost" + i)) falsePositives++;
+    assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+  }
+
+  @Test @DisplayName("TC3: Username them sau khi nap duoc nhan ngay")
+  void testAdd() {
+    when(repo.findAllUsernames()).thenReturn(List.of("admin"));
+    UsernameBloomFilter f = filter(Duration.ZERO);
+    f.rebuild();
+    assertFalse(f.mightContain("newbie"));
+
+    f.add("NewBie");
+    assertTrue(f.mightContain("newbie"));
+  }
+
+  @Test @DisplayName("TC4: miss-padding keo dai nhanh khong ton tai")
+  void testPadMiss() {
+    UsernameBloomFilter f = filter(Duration.ofMillis(30));
+    long start = System.nanoTime();
+    f.padMiss(start);
+    assertTrue(System.nanoTime() - start >= Duration.ofMillis(30).toNanos());
+  }
+}
@@ -0,0 +1,107 @@
+package com.flogin.bench;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.flogin.dto.LoginRequest;
+import com.flogin.dto.LoginResponse;
+import com.flogin.entity.AuthUser;
+import com.flogin.repository.AuthUserRepository;
+import com.flogin.security.TokenService;
+import com.flogin.service.AuthService;
+import com.flogin.service.UsernameBloomFilter;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+
+/**
+ * AuthService.authenticate: validation + tra user (repository giả, không DB) + BCrypt cost 10 như production.
+ * BCrypt gọi trực tiếp, không qua pool của BoundedPasswordEncoder, để đo riêng chi phí băm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthServiceBenchmark {
+  ValidatorFactory factory;
+  AuthService service;
+  LoginRequest valid, wrongPassword, invalid, unknownUser;
+
+  @Setup
+  public void setup() {
+    BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    AuthUser admin = new AuthUser(1L, "admin", encoder.encode("Test123"));
+    factory = Validation.buildDefaultValidatorFactory();
+    AuthUserRepository users = usersWith(admin);
+    UsernameBloomFilter usernames = new UsernameBloomFilter(users, 1000, 0.01, Duration.ZERO);
+    usernames.rebuild();
+    service = new AuthService(users, encoder, factory.getValidator(),
+        new TokenService("bench-secret", Duration.ofHours(1)), usernames);
+
+    valid = new LoginRequest("admin", "Test123");
+    wrongPassword = new LoginRequest("admin", "Wrong123");
+    invalid = new LoginRequest("a", "123");
+    unknownUser = new LoginRequest("ghost", "Test123");
+  }
+
+  @TearDown
+  public void tearDown() {
+    factory.close();
+  }
+
+  @Benchmark
+  public LoginResponse success() {
+    return service.authenticate(valid);
+  }
+
+  @Benchmark
+  public LoginResponse wrongPassword() {
+    return service.authenticate(wrongPassword);
+  }
+
+  // Bị chặn ở validation, không chạm tới BCrypt
+  @Benchmark
+  public LoginResponse invalidRequest() {
+    return service.authenticate(invalid);
+  }
+
+  // Bị Bloom filter loại, không chạm tới repository
+  @Benchmark
+  public LoginResponse unknownUser() {
+    return service.authenticate(unknownUser);
+  }
+
+  /** Repository chỉ trả lời findByUsername và findAllUsernames, các method khác không được gọi trong benchmark. */
+  static AuthUserRepository usersWith(AuthUser user) {
+    return (AuthUserRepository) Proxy.newProxyInstance(
+        AuthUserRepository.class.getClassLoader(),
+        new Class<?>[] { AuthUserRepository.class },
+        (proxy, method, args) -> {
+          if (method.getName().equals("findByUsername")) {
+            return user.getUsername().equals(args[0]) ? Optional.of(user) : Optional.empty();
+          }
+          if (method.getName().equals("findAllUsernames")) {
+            return List.of(user.getUsername());
+          }
+          throw new UnsupportedOperationException(method.getName());
+        });
+  }
+}
@@ -0,0 +1,24 @@
+package com.flogin.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar. Takes the same arguments as the JMH CLI, but adds
+ * "-prof gc" when no profiler is given, so every run reports gc.alloc.rate.norm (bytes/op).
+ *
+ *   java -jar target/benchmarks.jar                  # tất cả benchmark
+ *   java -jar target/benchmarks.jar ProductJson -p size=1000
+ */
+public final class BenchmarkMain {
+  private BenchmarkMain() {}
+
+  public static void main(String[] args) throws Exception {
+    List<String> argv = new ArrayList<>(Arrays.asList(args));
+    if (!argv.contains("-prof")) {
+      argv.addAll(0, List.of("-prof", "gc"));
+    }
+    org.openjdk.jmh.Main.main(argv.toArray(String[]::new));
+  }
+}
@@ -0,0 +1,60 @@
+package com.flogin.bench;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.flogin.dto.LoginRequest;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+
+/** Bean validation của LoginRequest (@NotBlank, @Size, @Pattern) với Hibernate Validator. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoginValidationBenchmark {
+  ValidatorFactory factory;
+  Validator validator;
+  LoginRequest valid, invalid;
+
+  @Setup
+  public void setup() {
+    factory = Validation.buildDefaultValidatorFactory();
+    validator = factory.getValidator();
+    valid = new LoginRequest("admin", "Test123");
+    // Sai cả username lẫn password: tạo nhiều ConstraintViolation và nội suy message
+    invalid = new LoginRequest("a b", "abc");
+  }
+
+  @TearDown
+  public void tearDown() {
+    factory.close();
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<LoginRequest>> valid() {
+    return validator.validate(valid);
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<LoginRequest>> invalid() {
+    return validator.validate(invalid);
+  }
+}
@@ -0,0 +1,65 @@
+package com.flogin.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+
+/** Jackson serialize danh sách Product như GET /api/products trả về. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductJsonBenchmark {
+  @Param({"10", "1000", "100000"})
+  int size;
+
+  ObjectMapper mapper;
+  List<Product> products;
+
+  @Setup
+  public void setup() {
+    mapper = JsonMapper.builder().findAndAddModules().build();
+    Category[] categories = Category.values();
+    products = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      Product p = new Product();
+      p.setId((long) i + 1);
+      p.setName("Sản phẩm " + i);
+      p.setPrice(10_000 + i);
+      p.setQuantity(i % 100);
+      p.setDescription("Mô tả sản phẩm số " + i + " dùng cho benchmark");
+      p.setCategory(categories[i % categories.length]);
+      products.add(p);
+    }
+  }
+
+  @Benchmark
+  public byte[] writeBytes() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(products);
+  }
+
+  @Benchmark
+  public String writeString() throws JsonProcessingException {
+    return mapper.writeValueAsString(products);
+  }
+}
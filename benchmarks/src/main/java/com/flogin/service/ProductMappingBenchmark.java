@@ -0,0 +1,71 @@
+package com.flogin.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.flogin.dto.ProductRequest;
+import com.flogin.entity.Category;
+import com.flogin.entity.Product;
+
+/**
+ * ProductService.fill / parseCategory (package-private nên benchmark nằm cùng package).
+ * invalidCategory đo chi phí ném ResponseStatusException, gồm cả stack trace.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMappingBenchmark {
+  ProductRequest request;
+  Product target;
+
+  @Setup
+  public void setup() {
+    request = new ProductRequest();
+    request.setName("Laptop Dell");
+    request.setPrice(15_000_000);
+    request.setQuantity(10);
+    request.setDescription("Laptop Dell XPS 13 inch, RAM 16GB");
+    request.setCategory("electronics");
+    target = new Product();
+  }
+
+  @Benchmark
+  public Product fill() {
+    ProductService.fill(target, request);
+    return target;
+  }
+
+  @Benchmark
+  public Category parseCategory() {
+    return ProductService.parseCategory("ELECTRONICS");
+  }
+
+  // Dữ liệu từ form: chữ thường, có khoảng trắng
+  @Benchmark
+  public Category parseCategoryLenient() {
+    return ProductService.parseCategory(" fashion ");
+  }
+
+  @Benchmark
+  public Object invalidCategory() {
+    try {
+      return ProductService.parseCategory("TOYS");
+    } catch (ResponseStatusException ex) {
+      return ex;
+    }
+  }
+}
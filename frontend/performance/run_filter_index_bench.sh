@@ -0,0 +1,90 @@
+#!/usr/bin/env bash
+# Đo các truy vấn lọc sản phẩm (category + price, name, updated_at) trên ROWS dòng, trước và sau index
+# của V3__product_filter_indexes.sql. Dùng database riêng (mặc định flogin_bench), tạo lại mỗi lần chạy.
+# Yêu cầu: MySQL đang chạy, client mysql trong PATH (đổi lệnh/tài khoản qua biến MYSQL).
+#
+#   ROWS=1000000 RUNS=20 MYSQL="mysql -uroot -h127.0.0.1" ./run_filter_index_bench.sh
+set -euo pipefail
+
+HERE="$(cd "$(dirname "$0")" && pwd)"
+MIGRATIONS="$HERE/../../backend/src/main/resources/db/migration"
+ROWS="${ROWS:-1000000}"
+RUNS="${RUNS:-20}"
+DB="${DB:-flogin_bench}"
+MYSQL="${MYSQL:-mysql -uroot}"
+BATCH=100000
+
+sql() { $MYSQL --batch --skip-column-names "$DB" "$@"; }
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+$MYSQL -e "DROP DATABASE IF EXISTS $DB; CREATE DATABASE $DB CHARACTER SET utf8mb4"
+sql < "$MIGRATIONS/V1__create_auth_and_products.sql"
+sql < "$MIGRATIONS/V3__product_filter_indexes.sql"
+# Trạng thái "trước": chỉ có PRIMARY KEY như schema ddl-auto=update cũ
+sql -e "ALTER TABLE products DROP INDEX idx_products_category_price, DROP INDEX idx_products_name,
+        DROP INDEX idx_products_updated_at"
+
+echo "Nap $ROWS dong..."
+start=$(now_ms)
+for ((base = 0; base < ROWS; base += BATCH)); do
+  sql -e "INSERT INTO products (name, price, quantity, description, category, version, updated_at)
+    SELECT CONCAT(ELT(1 + n % 8, 'Ao thun', 'Banh', 'Chuot', 'Dien thoai', 'Laptop', 'Noi com', 'Sach', 'Tai nghe'), ' ', n),
+           1000 + (n * 7919) % 20000000, n % 1000, CONCAT('Mo ta san pham ', n),
+           ELT(1 + n % 5, 'ELECTRONICS', 'FASHION', 'FOOD', 'HOME', 'OTHER'), 0,
+           NOW(6) - INTERVAL ((n * 37) % 2592000) SECOND
+    FROM (SELECT $base + a.d + 10 * b.d + 100 * c.d + 1000 * e.d + 10000 * f.d AS n
+          FROM (SELECT 0 d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+                UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) a,
+               (SELECT 0 d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+                UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) b,
+               (SELECT 0 d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+                UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) c,
+               (SELECT 0 d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+                UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) e,
+               (SELECT 0 d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+                UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) f) seq
+    WHERE n < $ROWS"
+done
+sql -e "ANALYZE TABLE products" > /dev/null
+echo "  $(( $(now_ms) - start )) ms"
+
+NAMES=(category_price category_count name_exact name_prefix updated_since)
+QUERIES=(
+  "SELECT id, name, price, quantity, category FROM products WHERE category = 'FOOD' AND price BETWEEN 1000000 AND 1050000 ORDER BY price LIMIT 50"
+  "SELECT COUNT(*) FROM products WHERE category = 'ELECTRONICS' AND price < 2000000"
+  "SELECT id, name, price FROM products WHERE name = 'Laptop 123452'"
+  "SELECT id, name, price FROM products WHERE name LIKE 'Tai nghe 12345%' ORDER BY name LIMIT 20"
+  "SELECT id, updated_at FROM products WHERE updated_at >= NOW(6) - INTERVAL 1 HOUR ORDER BY updated_at DESC LIMIT 100"
+)
+
+# Thời gian trung bình mỗi lần (ms), RUNS lần liên tiếp trong cùng một kết nối; lần đầu để warm-up buffer pool
+measure() {
+  local q="$1" start
+  sql -e "$q" > /dev/null
+  start=$(now_ms)
+  for ((i = 0; i < RUNS; i++)); do echo "$q;"; done | sql > /dev/null
+  awk -v t=$(( $(now_ms) - start )) -v n="$RUNS" 'BEGIN { printf "%.2f", t / n }'
+}
+
+declare -a BEFORE AFTER KEYS
+for i in "${!QUERIES[@]}"; do BEFORE[$i]=$(measure "${QUERIES[$i]}"); done
+
+echo "Tao index cua V3..."
+start=$(now_ms)
+sql -e "ALTER TABLE products ADD INDEX idx_products_category_price (category, price),
+        ADD INDEX idx_products_name (name), ADD INDEX idx_products_updated_at (updated_at)"
+echo "  $(( $(now_ms) - start )) ms"
+sql -e "ANALYZE TABLE products" > /dev/null
+
+for i in "${!QUERIES[@]}"; do
+  AFTER[$i]=$(measure "${QUERIES[$i]}")
+  # Cột key của EXPLAIN: index được chọn (NULL = full scan)
+  KEYS[$i]=$($MYSQL --batch "$DB" -e "EXPLAIN ${QUERIES[$i]}" \
+    | awk -F'\t' 'NR == 1 { for (c = 1; c <= NF; c++) if ($c == "key") k = c } NR == 2 { print $k }')
+done
+
+printf '\n%-16s %12s %12s  %s\n' query before_ms after_ms index
+for i in "${!QUERIES[@]}"; do
+  printf '%-16s %12s %12s  %s\n' "${NAMES[$i]}" "${BEFORE[$i]}" "${AFTER[$i]}" "${KEYS[$i]}"
+done
+echo "($ROWS dong, trung binh $RUNS lan)"
@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Đo thời gian từ lúc chạy java tới request đăng nhập thành công đầu tiên (POST /api/auth/login):
+#   default   : jar thường với cấu hình hiện tại (Flyway kiểm tra migration, Hibernate validate schema)
+#   faststart : jar đã qua Spring AOT (mvn -Pfaststart) + archive CDS từ một lần chạy huấn luyện, profile faststart
+# Yêu cầu: MySQL đang chạy theo application.properties và đã có dữ liệu (backend đã chạy ít nhất một lần), curl.
+#
+#   RUNS=5 ./run_startup_modes.sh
+set -euo pipefail
+
+HERE="$(cd "$(dirname "$0")" && pwd)"
+BACKEND="$HERE/../../backend"
+RUNS="${RUNS:-5}"
+PORT="${PORT:-8080}"
+OUT="$HERE/startup"
+LOGIN='{"username":"admin","password":"Test123"}'
+rm -rf "$OUT" && mkdir -p "$OUT"
+
+# Jar thường
+(cd "$BACKEND" && mvn -B -q -DskipTests package)
+cp "$(ls "$BACKEND"/target/*-exec.jar | head -n 1)" "$OUT/default.jar"
+
+# Jar AOT, giải nén (jar mỏng + lib/) để CDS dùng được, rồi chạy huấn luyện: dựng context xong thì thoát
+# và ghi các class đã nạp vào application.jsa
+(cd "$BACKEND" && mvn -B -q -DskipTests -Pfaststart package)
+java -Djarmode=tools -jar "$(ls "$BACKEND"/target/*-exec.jar | head -n 1)" extract --destination "$OUT/faststart"
+FAST_JAR="$(ls "$OUT"/faststart/*.jar | head -n 1)"
+(cd "$OUT/faststart" && java -XX:ArchiveClassesAtExit=application.jsa -Dspring.aot.enabled=true \
+  -Dspring.context.exit=onRefresh -jar "$FAST_JAR" --spring.profiles.active=faststart \
+  > "$OUT/faststart/training.log" 2>&1)
+
+# In ra số ms từ lúc chạy java tới khi login trả 200
+measure() {
+  local mode="$1"; shift
+  local start end pid
+  start=$(date +%s%N)
+  java "$@" --server.port="$PORT" > "$OUT/$mode.log" 2>&1 &
+  pid=$!
+  trap "kill $pid 2>/dev/null || true" EXIT
+  until curl -sf -o /dev/null -H 'Content-Type: application/json' -d "$LOGIN" "http://localhost:$PORT/api/auth/login"; do
+    if ! kill -0 "$pid" 2>/dev/null; then echo "Server $mode dừng bất thường, xem $OUT/$mode.log" >&2; exit 1; fi
+    sleep 0.05
+  done
+  end=$(date +%s%N)
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+  trap - EXIT
+  echo $(( (end - start) / 1000000 ))
+}
+
+for i in $(seq "$RUNS"); do
+  measure default -jar "$OUT/default.jar" >> "$OUT/default.ms"
+  measure faststart -XX:SharedArchiveFile="$OUT/faststart/application.jsa" -Dspring.aot.enabled=true \
+    -jar "$FAST_JAR" --spring.profiles.active=faststart >> "$OUT/faststart.ms"
+done
+
+printf '\n%-10s %8s %8s %8s\n' mode min median max
+for mode in default faststart; do
+  sort -n "$OUT/$mode.ms" | awk -v m="$mode" '{ v[NR] = $1 }
+    END { printf "%-10s %8d %8d %8d\n", m, v[1], v[int((NR + 1) / 2)], v[NR] }'
+done
+echo "(ms từ lúc chạy java tới login thành công đầu tiên, $RUNS lần mỗi chế độ)"
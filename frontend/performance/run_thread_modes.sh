@@ -0,0 +1,61 @@
+#!/usr/bin/env bash
+# Đo throughput và p99 của backend ở hai chế độ: platform thread (mặc định) và virtual thread.
+# Mỗi chế độ: khởi động jar, warm-up, chạy thread_mode_test.js, dừng server.
+# Yêu cầu: MySQL đang chạy theo application.properties, k6 và jq trong PATH.
+#
+#   VUS=1000 DURATION=1m ./run_thread_modes.sh
+set -euo pipefail
+
+HERE="$(cd "$(dirname "$0")" && pwd)"
+BACKEND="$HERE/../../backend"
+VUS="${VUS:-1000}"
+DURATION="${DURATION:-1m}"
+PORT="${PORT:-8080}"
+# Cả hai chế độ dùng cùng pool DB để chỉ khác nhau ở mô hình thread
+HIKARI_POOL="${HIKARI_POOL:-20}"
+# Cả hai chế độ chạy thêm profile loadtest (tắt throttle đăng nhập) vì mọi VU đến từ cùng một IP
+
+(cd "$BACKEND" && mvn -B -q -DskipTests package)
+JAR="$(ls "$BACKEND"/target/*-exec.jar | head -n 1)"
+
+run_mode() {
+  local mode="$1" profile="$2"
+  echo "== $mode =="
+  java -Djdk.tracePinnedThreads=short -jar "$JAR" \
+    --server.port="$PORT" \
+    --spring.profiles.active="$profile" \
+    --spring.devtools.restart.enabled=false \
+    --spring.datasource.hikari.maximum-pool-size="$HIKARI_POOL" \
+    > "$HERE/thread_mode_$mode.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" EXIT
+
+  until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do sleep 1; done
+
+  # Chạy trong $HERE: thread_mode_test.js ghi thread_mode_<MODE>.json vào thư mục hiện tại
+  (cd "$HERE" && k6 run -q -e BASE_URL="http://localhost:$PORT" -e VUS=50 -e DURATION=15s -e MODE="warmup" \
+    thread_mode_test.js > /dev/null)
+  (cd "$HERE" && k6 run -q -e BASE_URL="http://localhost:$PORT" -e VUS="$VUS" -e DURATION="$DURATION" \
+    -e MODE="$mode" thread_mode_test.js > /dev/null)
+
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+  trap - EXIT
+
+  # jdk.tracePinnedThreads in stack trace khi virtual thread bị ghim lúc đang block
+  if grep -q "onPinned\|<== monitors" "$HERE/thread_mode_$mode.log"; then
+    echo "Canh bao: phat hien pinning, xem thread_mode_$mode.log"
+  fi
+}
+
+run_mode platform loadtest
+run_mode virtual virtual,loadtest
+rm -f "$HERE/thread_mode_warmup.json"
+
+printf '\n%-9s %10s %8s %10s %10s %10s %10s %10s\n' mode req/s fail% login_p99 create_p99 get_p99 update_p99 delete_p99
+for mode in platform virtual; do
+  jq -r '[.mode, (.rps|floor), (.failed*100|.*100|floor/100),
+          (.login.p99|floor), (.create.p99|floor), (.get.p99|floor), (.update.p99|floor), (.delete.p99|floor)]
+         | @tsv' "$HERE/thread_mode_$mode.json" \
+    | awk -F'\t' '{ printf "%-9s %10s %8s %10s %10s %10s %10s %10s\n", $1, $2, $3, $4, $5, $6, $7, $8 }'
+done
+echo "(p99 tinh bang ms)"
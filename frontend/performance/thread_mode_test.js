@@ -0,0 +1,88 @@
+import http from 'k6/http';
+import { check } from 'k6';
+
+/**
+ * So sánh platform thread và virtual thread: login + CRUD sản phẩm ở mức đồng thời cao.
+ * Chạy qua run_thread_modes.sh để đo cả hai chế độ trên cùng máy, cùng dữ liệu.
+ *   k6 run -e VUS=1000 -e DURATION=1m -e MODE=virtual thread_mode_test.js
+ */
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VUS = parseInt(__ENV.VUS || '1000');
+const DURATION = __ENV.DURATION || '1m';
+const MODE = __ENV.MODE || 'platform';
+
+export const options = {
+  scenarios: {
+    crud: {
+      executor: 'constant-vus',
+      vus: VUS,
+      duration: DURATION,
+      gracefulStop: '10s',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    'http_req_duration{name:Login}': [],
+    'http_req_duration{name:Create}': [],
+    'http_req_duration{name:Get}': [],
+    'http_req_duration{name:Update}': [],
+    'http_req_duration{name:Delete}': [],
+  },
+};
+
+const json = { 'Content-Type': 'application/json' };
+
+export default function () {
+  const login = http.post(
+    `${BASE_URL}/api/auth/login`,
+    JSON.stringify({ username: 'admin', password: 'Test123' }),
+    { headers: json, tags: { name: 'Login' } }
+  );
+  if (!check(login, { 'login 200': (r) => r.status === 200 })) return;
+
+  const headers = { ...json, Authorization: `Bearer ${login.json('token')}` };
+  const product = {
+    name: `Bench ${__VU}-${__ITER}`,
+    price: 100000,
+    quantity: 10,
+    description: 'k6 thread mode benchmark',
+    category: 'OTHER',
+  };
+
+  const created = http.post(`${BASE_URL}/api/products`, JSON.stringify(product), { headers, tags: { name: 'Create' } });
+  if (!check(created, { 'create 201': (r) => r.status === 201 })) return;
+  const id = created.json('id');
+
+  check(http.get(`${BASE_URL}/api/products/${id}`, { headers, tags: { name: 'Get' } }), {
+    'get 200': (r) => r.status === 200,
+  });
+  product.quantity = 5;
+  check(http.put(`${BASE_URL}/api/products/${id}`, JSON.stringify(product), { headers, tags: { name: 'Update' } }), {
+    'update 200': (r) => r.status === 200,
+  });
+  check(http.del(`${BASE_URL}/api/products/${id}`, null, { headers, tags: { name: 'Delete' } }), {
+    'delete 204': (r) => r.status === 204,
+  });
+}
+
+export function handleSummary(data) {
+  const row = (name) => {
+    const m = data.metrics[`http_req_duration{name:${name}}`];
+    return m ? { p50: m.values['p(50)'], p95: m.values['p(95)'], p99: m.values['p(99)'] } : null;
+  };
+  const result = {
+    mode: MODE,
+    vus: VUS,
+    rps: data.metrics.http_reqs.values.rate,
+    failed: data.metrics.http_req_failed.values.rate,
+    login: row('Login'),
+    create: row('Create'),
+    get: row('Get'),
+    update: row('Update'),
+    delete: row('Delete'),
+  };
+  return {
+    stdout: JSON.stringify(result, null, 2) + '\n',
+    [`thread_mode_${MODE}.json`]: JSON.stringify(result),
+  };
+}
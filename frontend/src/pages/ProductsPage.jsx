@@ -1,6 +1,7 @@
-import { useEffect, useMemo, useState } from 'react';
+import { useEffect, useMemo, useRef, useState } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { createProduct, deleteProduct, getProducts, updateProduct } from '../services/product';
+import { applyProductChanges, subscribeProductEvents } from '../services/productEvents';
 import { logout } from '../services/auth';
 import ProductList from '../components/ProductList';
 import ProductForm from '../components/ProductForm';
@@ -17,29 +18,52 @@ export default function ProductsPage() {
   const [totalPages, setTotalPages] = useState(1);
   const [mode, setMode] = useState('list');
   const [current, setCurrent] = useState(null);
+  // Tăng khi cần nạp lại toàn bộ danh sách: feed báo ready/resync hoặc không kết nối được feed
   const [refreshKey, setRefreshKey] = useState(0);
+  // Thay đổi nhận trong lúc đang nạp danh sách, áp lên kết quả sau khi nạp xong
+  const pendingChanges = useRef(null);
 
-  const [loading, setLoading] = useState(false);
+  const [loading, setLoading] = useState(true);
   const [searchTerm, setSearchTerm] = useState('');
 
   const user = useMemo(() => localStorage.getItem('username') ?? 'user', []);
 
   useEffect(() => {
+    const reload = () => setRefreshKey(old => old + 1);
+    return subscribeProductEvents({
+      onChange: applyChange,
+      onReload: reload,
+      onUnavailable: reload,
+    });
+  }, []);
+
+  useEffect(() => {
+    if (refreshKey === 0) return;
     async function fetchData() {
       setLoading(true);
+      pendingChanges.current = [];
       try {
         const all = await getProducts();
-        setFullList(all);
+        setFullList(applyProductChanges(all, pendingChanges.current));
       } catch (error) {
         console.error('Loi khi tai danh sach san pham', error);
         setFullList([]);
       } finally {
+        pendingChanges.current = null;
         setLoading(false);
       }
     }
     fetchData();
   }, [refreshKey]);
 
+  function applyChange(change) {
+    if (pendingChanges.current) {
+      pendingChanges.current.push(change);
+    } else {
+      setFullList(list => applyProductChanges(list, [change]));
+    }
+  }
+
   useEffect(() => {
     let filtered = fullList;
 
@@ -76,14 +100,16 @@ export default function ProductsPage() {
 
   async function handleSave(payload) {
     try {
+      // Áp ngay kết quả trả về; sự kiện từ feed đến sau cùng version nên không đổi gì thêm
       if (mode === 'edit' && current) {
-        await updateProduct(current.id, payload);
+        const saved = await updateProduct(current.id, payload);
+        applyChange({ type: 'UPDATED', id: saved.id, product: saved });
       } else {
-        await createProduct(payload);
+        const saved = await createProduct(payload);
+        applyChange({ type: 'CREATED', id: saved.id, product: saved });
       }
       setMode('list');
       setCurrent(null);
-      setRefreshKey(old => old + 1);
       if (mode === 'create') setCurrentPage(1);
     } catch (error) {
       alert('Có lỗi xảy ra: ' + error.message);
@@ -94,10 +120,9 @@ export default function ProductsPage() {
     if (!window.confirm('Xoá sản phẩm này?')) return;
     try {
       await deleteProduct(id);
+      applyChange({ type: 'DELETED', id });
       if (currentPage > 1 && (items.length === 1)) {
         setCurrentPage(prev => prev - 1);
-      } else {
-        setRefreshKey(old => old + 1);
       }
       setMode('list');
     } catch (error) {
@@ -0,0 +1,126 @@
+import api from './axios';
+
+// Thời gian chờ trước khi kết nối lại sau khi luồng bị đóng hoặc lỗi mạng
+const RETRY_MS = 2000;
+
+/**
+ * Tách các sự kiện SSE hoàn chỉnh (kết thúc bằng dòng trống) khỏi buffer
+ * @param {string} buffer - Dữ liệu đã nhận, có thể còn dở sự kiện cuối
+ * @returns {{ events: Array<{event: string, id: string|null, data: string}>, rest: string }}
+ */
+export function parseSseEvents(buffer) {
+  const events = [];
+  const blocks = buffer.replace(/\r\n?/g, '\n').split('\n\n');
+  const rest = blocks.pop();
+  for (const block of blocks) {
+    let event = 'message';
+    let id = null;
+    const data = [];
+    for (const line of block.split('\n')) {
+      if (line === '' || line.startsWith(':')) continue; // comment: heartbeat
+      const colon = line.indexOf(':');
+      const field = colon < 0 ? line : line.slice(0, colon);
+      const value = colon < 0 ? '' : line.slice(colon + 1).replace(/^ /, '');
+      if (field === 'event') event = value;
+      else if (field === 'id') id = value;
+      else if (field === 'data') data.push(value);
+    }
+    if (data.length) events.push({ event, id, data: data.join('\n') });
+  }
+  return { events, rest };
+}
+
+/**
+ * Áp các thay đổi { type, id, product } lên danh sách sản phẩm.
+ * Bản trong danh sách có version mới hơn thì giữ nguyên (sự kiện đến muộn).
+ * @returns {Array} Danh sách mới, hoặc chính list nếu không có gì đổi
+ */
+export function applyProductChanges(list, changes) {
+  let next = list;
+  for (const { type, id, product } of changes) {
+    const i = next.findIndex(p => p.id === id);
+    if (type === 'DELETED') {
+      if (i >= 0) next = next.filter(p => p.id !== id);
+    } else if (i < 0) {
+      next = [...next, product];
+    } else if ((product.version ?? 0) >= (next[i].version ?? 0)) {
+      next = next.slice();
+      next[i] = product;
+    }
+  }
+  return next;
+}
+
+/**
+ * Theo dõi thay đổi sản phẩm qua SSE
+ * API: GET /api/products/events
+ * Dùng fetch thay cho EventSource vì EventSource không gửi được header Authorization.
+ * Server không phát lại sự kiện đã lỡ: mỗi lần (kết nối lại) nhận "ready" hoặc bị ngắt vì đọc chậm
+ * ("resync"), onReload được gọi để nạp lại danh sách.
+ * @param {Object} handlers
+ * @param {Function} handlers.onChange - Nhận { type, id, product } với type CREATED | UPDATED | DELETED
+ * @param {Function} handlers.onReload - Cần nạp lại toàn bộ danh sách
+ * @param {Function} [handlers.onUnavailable] - Không kết nối được (trình duyệt không hỗ trợ, 401...)
+ * @returns {Function} Hàm huỷ theo dõi
+ */
+export function subscribeProductEvents({ onChange, onReload, onUnavailable = () => {} }) {
+  if (typeof fetch !== 'function' || typeof TextDecoder !== 'function') {
+    onUnavailable();
+    return () => {};
+  }
+  const controller = new AbortController();
+  let timer = null;
+  // Chỉ báo một lần cho mỗi đợt lỗi liên tiếp, tránh nạp lại danh sách sau mỗi lần thử lại
+  let reported = false;
+  const unavailable = () => {
+    if (!reported) onUnavailable();
+    reported = true;
+  };
+
+  async function connect() {
+    const token = localStorage.getItem('token');
+    try {
+      const res = await fetch(`${api.defaults.baseURL}/products/events`, {
+        headers: {
+          Accept: 'text/event-stream',
+          ...(token ? { Authorization: `Bearer ${token}` } : {}),
+        },
+        signal: controller.signal,
+      });
+      if (!res.ok || !res.body) {
+        unavailable();
+        // 401/403: token hết hạn hoặc không hợp lệ, thử lại cũng vô ích
+        if (res.status === 401 || res.status === 403) return;
+      } else {
+        reported = false;
+        await read(res.body);
+      }
+    } catch {
+      if (controller.signal.aborted) return;
+      unavailable();
+    }
+    if (!controller.signal.aborted) timer = setTimeout(connect, RETRY_MS);
+  }
+
+  async function read(body) {
+    const reader = body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+    for (;;) {
+      const { value, done } = await reader.read();
+      if (done) return;
+      const parsed = parseSseEvents(buffer + decoder.decode(value, { stream: true }));
+      buffer = parsed.rest;
+      for (const e of parsed.events) {
+        if (e.event === 'product') onChange(JSON.parse(e.data));
+        else if (e.event === 'ready' || e.event === 'resync') onReload();
+      }
+    }
+  }
+
+  connect();
+  return () => {
+    clearTimeout(timer);
+    controller.abort();
+  };
+}
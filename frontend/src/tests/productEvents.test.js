@@ -0,0 +1,43 @@
+import { applyProductChanges, parseSseEvents } from '../services/productEvents';
+
+const LAPTOP = { id: 1, name: 'Laptop Dell', price: 15000000, quantity: 10, category: 'ELECTRONICS', version: 2 };
+const AO = { id: 2, name: 'Ao thun', price: 150000, quantity: 100, category: 'FASHION', version: 0 };
+
+describe('Product Events Tests', () => {
+
+  test('TC1: Tach su kien hoan chinh, bo qua comment heartbeat, giu lai phan do dang', () => {
+    const { events, rest } = parseSseEvents(
+      'event:ready\nid:0\ndata:{}\n\n:ping\n\nevent:product\nid:1\ndata:{"type":"DELETED","id":2,"product":null}\n\nevent:prod'
+    );
+
+    expect(events).toEqual([
+      { event: 'ready', id: '0', data: '{}' },
+      { event: 'product', id: '1', data: '{"type":"DELETED","id":2,"product":null}' },
+    ]);
+    expect(rest).toBe('event:prod');
+  });
+
+  test('TC2: CREATED them vao cuoi, UPDATED thay ban cu, DELETED xoa khoi danh sach', () => {
+    const updated = { ...LAPTOP, price: 14000000, version: 3 };
+    const created = { id: 3, name: 'Mouse', price: 200000, quantity: 50, category: 'ELECTRONICS', version: 0 };
+
+    const next = applyProductChanges([LAPTOP, AO], [
+      { type: 'UPDATED', id: 1, product: updated },
+      { type: 'CREATED', id: 3, product: created },
+      { type: 'DELETED', id: 2 },
+    ]);
+
+    expect(next).toEqual([updated, created]);
+  });
+
+  test('TC3: Su kien den muon (version cu hon) khong ghi de, khong co gi doi thi tra ve chinh danh sach cu', () => {
+    const list = [LAPTOP, AO];
+
+    const next = applyProductChanges(list, [
+      { type: 'UPDATED', id: 1, product: { ...LAPTOP, quantity: 9, version: 1 } },
+      { type: 'DELETED', id: 99 },
+    ]);
+
+    expect(next).toBe(list);
+  });
+});